@@ -0,0 +1,43 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks of the discoverer, reporting the throughput (ops/s) and the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}).
+ * <p>
+ * The usual JMH command line options are accepted, e.g. {@code -p projectCount=1000 ProjectFileScanner}.
+ */
+public final class BenchmarkRunner
+{
+    private BenchmarkRunner()
+    {
+        // NOP
+    }
+
+    /**
+     * Entry point
+     *
+     * @param args
+     *            the JMH command line options
+     * @throws RunnerException
+     *             if a benchmark fails
+     * @throws CommandLineOptionException
+     *             if the command line is invalid
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLineOptions);
+        builder.addProfiler(GCProfiler.class);
+        if (commandLineOptions.getIncludes().isEmpty())
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        new Runner(builder.build()).run();
+    }
+}
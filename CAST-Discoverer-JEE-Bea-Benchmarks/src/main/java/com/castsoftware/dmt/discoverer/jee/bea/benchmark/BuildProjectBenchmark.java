@@ -0,0 +1,61 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.castsoftware.dmt.discoverer.jee.bea.JeeBeaProjectsDiscoverer;
+import com.castsoftware.dmt.discoverer.jee.bea.WorkspaceGenerator;
+import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
+import com.castsoftware.dmt.engine.project.Project;
+
+/**
+ * Full discovery of a synthetic .work file (parsing and recording) against a stub engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildProjectBenchmark
+{
+    @Param({ "10", "100", "1000", "10000" })
+    private int projectCount;
+
+    private String content;
+    private JeeBeaProjectsDiscoverer discoverer;
+    private Project project;
+    private IProjectsDiscovererUtilities utilities;
+
+    /**
+     * Generate the .work file and the stub engine
+     */
+    @Setup
+    public void setUp()
+    {
+        content = WorkspaceGenerator.generate(projectCount);
+        discoverer = new JeeBeaProjectsDiscoverer();
+        project = DiscoveryStubs.createWorkProject();
+        utilities = DiscoveryStubs.createUtilities(projectCount);
+    }
+
+    /**
+     * Build the projects of the .work file
+     */
+    @Benchmark
+    public void buildProject()
+    {
+        discoverer.buildProject(DiscoveryStubs.WORK_FILE, content, project, utilities);
+    }
+}
@@ -0,0 +1,144 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.castsoftware.dmt.discoverer.jee.bea.WorkspaceGenerator;
+import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration.ResourceTypeConfiguration;
+import com.castsoftware.dmt.engine.project.IProfileReadOnly;
+import com.castsoftware.dmt.engine.project.Project;
+
+/**
+ * Stubs of the discovery engine. The stubs do not record the invocations so that they do not weigh on the measures.
+ */
+public final class DiscoveryStubs
+{
+    /**
+     * Type of the projects
+     */
+    public static final String PROJECT_TYPE = "dmtdevjeetechno.J2EEProject";
+
+    /**
+     * Path of the synthetic .work file
+     */
+    public static final String WORK_FILE = "synthetic.work";
+
+    private DiscoveryStubs()
+    {
+        // NOP
+    }
+
+    /**
+     * Create the project created by default by the engine for the .work file
+     *
+     * @return the stub project
+     */
+    public static Project createWorkProject()
+    {
+        Project project = mock(Project.class, withSettings().stubOnly().defaultAnswer(RETURNS_DEEP_STUBS));
+        when(project.getId()).thenReturn(WORK_FILE);
+        when(project.getResourceId()).thenReturn(WORK_FILE);
+        when(project.getName()).thenReturn(WORK_FILE);
+        when(project.getType()).thenReturn(PROJECT_TYPE);
+        when(project.getPath()).thenReturn(".");
+        when(project.getMetadata(IProfileReadOnly.METADATA_DESCRIPTOR).getValue()).thenReturn(WORK_FILE);
+        return project;
+    }
+
+    /**
+     * Create the discoverer utilities for a workspace generated by {@link WorkspaceGenerator}
+     *
+     * @param projectCount
+     *            the number of projects of the generated workspace
+     * @return the stub utilities
+     */
+    public static IProjectsDiscovererUtilities createUtilities(int projectCount)
+    {
+        final Map<String, Project> projects = new HashMap<String, Project>();
+        for (int i = 0; i < projectCount; i++)
+        {
+            String name = WorkspaceGenerator.projectName(i);
+            String id = WORK_FILE.concat("_").concat(name);
+            Project project = mock(Project.class, withSettings().stubOnly());
+            when(project.getId()).thenReturn(id);
+            when(project.getResourceId()).thenReturn(id);
+            when(project.getName()).thenReturn(name);
+            when(project.getType()).thenReturn(PROJECT_TYPE);
+            when(project.getPath()).thenReturn("./".concat(name));
+            projects.put(id, project);
+        }
+
+        final List<LanguageConfiguration> languages = new ArrayList<LanguageConfiguration>();
+        languages.add(createLanguage(1, "JavaLanguage", "JavaContainerLanguage"));
+        languages.add(createLanguage(2, "JavaWebServerLanguage", "JavaWebContainerLanguage"));
+        languages.add(createLanguage(3, "JavaWebClientLanguage"));
+        ProfileOrProjectTypeConfiguration configuration = mock(ProfileOrProjectTypeConfiguration.class, withSettings().stubOnly());
+        when(configuration.getLanguageConfigurations()).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation)
+            {
+                return languages;
+            }
+        });
+
+        IProjectsDiscovererUtilities utilities = mock(IProjectsDiscovererUtilities.class, withSettings().stubOnly());
+        when(utilities.getProjectTypeConfiguration(PROJECT_TYPE)).thenReturn(configuration);
+        when(utilities.createInitialProject((String) any(), (String) any(), (String) any(), (String) any(), (String) any()))
+            .thenAnswer(new Answer<Project>()
+            {
+                @Override
+                public Project answer(InvocationOnMock invocation)
+                {
+                    return projects.get(invocation.getArgument(0));
+                }
+            });
+        when(utilities.getProject((String) any())).thenAnswer(new Answer<Project>()
+        {
+            @Override
+            public Project answer(InvocationOnMock invocation)
+            {
+                return projects.get(invocation.getArgument(0));
+            }
+        });
+        return utilities;
+    }
+
+    private static LanguageConfiguration createLanguage(int id, String name, String... resourceTypeNames)
+    {
+        final List<ResourceTypeConfiguration> resourceTypes = new ArrayList<ResourceTypeConfiguration>();
+        for (int i = 0; i < resourceTypeNames.length; i++)
+        {
+            ResourceTypeConfiguration resourceType = mock(ResourceTypeConfiguration.class, withSettings().stubOnly());
+            when(resourceType.getResourceTypeId()).thenReturn(i + 1);
+            when(resourceType.getResourceTypeName()).thenReturn(resourceTypeNames[i]);
+            resourceTypes.add(resourceType);
+        }
+        LanguageConfiguration language = mock(LanguageConfiguration.class, withSettings().stubOnly());
+        when(language.getLanguageId()).thenReturn(id);
+        when(language.getLanguageName()).thenReturn(name);
+        when(language.getResourceTypeConfigurations()).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation)
+            {
+                return resourceTypes;
+            }
+        });
+        return language;
+    }
+}
@@ -0,0 +1,58 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner;
+import com.castsoftware.dmt.discoverer.jee.bea.WorkspaceGenerator;
+
+/**
+ * Parsing of a .work file dominated by IDE state sections (editor state, debug data, build settings) that the
+ * discoverer does not use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdeStateBenchmark
+{
+    @Param({ "0", "8", "64" })
+    private int componentDepth;
+
+    private String content;
+    private NoOpProjectInterpreter interpreter;
+
+    /**
+     * Generate the .work file
+     */
+    @Setup
+    public void setUp()
+    {
+        content = WorkspaceGenerator.generate(1000, WorkspaceGenerator.DEFAULT_CLASSPATH_ENTRIES, componentDepth);
+        interpreter = new NoOpProjectInterpreter();
+    }
+
+    /**
+     * Scan the .work file
+     *
+     * @return the scan status
+     */
+    @Benchmark
+    public boolean scan()
+    {
+        return ProjectFileScanner.scan(interpreter, DiscoveryStubs.WORK_FILE, content);
+    }
+}
@@ -0,0 +1,117 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner.IProjectInterpreter;
+
+/**
+ * Interpreter ignoring everything, used to measure the parsing alone.
+ */
+public class NoOpProjectInterpreter implements IProjectInterpreter
+{
+    @Override
+    public void init()
+    {
+        // ignore
+    }
+
+    @Override
+    public void done()
+    {
+        // ignore
+    }
+
+    @Override
+    public void open(String resourceId)
+    {
+        // ignore
+    }
+
+    @Override
+    public void close()
+    {
+        // ignore
+    }
+
+    @Override
+    public void addProject(String name)
+    {
+        // ignore
+    }
+
+    @Override
+    public void resetProject()
+    {
+        // ignore
+    }
+
+    @Override
+    public void setProjectType(String type)
+    {
+        // ignore
+    }
+
+    @Override
+    public void setProjectPath(String path)
+    {
+        // ignore
+    }
+
+    @Override
+    public void addProjectSourceFolders()
+    {
+        // ignore
+    }
+
+    @Override
+    public void addClasspath(String classpath)
+    {
+        // ignore
+    }
+
+    @Override
+    public void addClasspaths()
+    {
+        // ignore
+    }
+
+    @Override
+    public void addProjectDependencies()
+    {
+        // ignore
+    }
+
+    @Override
+    public void addSourcepath(String sourcepath)
+    {
+        // ignore
+    }
+
+    @Override
+    public void setExcludedDirectories(String excludedDirectories)
+    {
+        // ignore
+    }
+
+    @Override
+    public void setOutputDirectory(String outputDirectory)
+    {
+        // ignore
+    }
+
+    @Override
+    public void setProjectDependencies(String dependencies)
+    {
+        // ignore
+    }
+
+    @Override
+    public void setWebContentPath(String webContentPath)
+    {
+        // ignore
+    }
+
+    @Override
+    public void setEclipseWorkspace()
+    {
+        // ignore
+    }
+}
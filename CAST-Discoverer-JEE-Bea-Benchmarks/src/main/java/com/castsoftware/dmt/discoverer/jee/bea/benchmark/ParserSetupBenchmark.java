@@ -0,0 +1,82 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner;
+import com.castsoftware.dmt.discoverer.jee.bea.WorkspaceGenerator;
+
+/**
+ * Per-file cost of the parser setup, measured on a .work file with a single project: a parser created for each file
+ * with the JAXP defaults, as before, against the parser reused by the scanner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserSetupBenchmark
+{
+    private String content;
+    private NoOpProjectInterpreter interpreter;
+    private DefaultHandler handler;
+
+    /**
+     * Generate the .work file
+     */
+    @Setup
+    public void setUp()
+    {
+        content = WorkspaceGenerator.generate(1, 1, 0);
+        interpreter = new NoOpProjectInterpreter();
+        handler = new DefaultHandler();
+    }
+
+    /**
+     * Parse the .work file with a new parser
+     *
+     * @return the handler
+     * @throws ParserConfigurationException
+     *             if the parser cannot be created
+     * @throws SAXException
+     *             if the file cannot be parsed
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Benchmark
+    public DefaultHandler newParser() throws ParserConfigurationException, SAXException, IOException
+    {
+        SAXParserFactory.newInstance().newSAXParser().parse(new InputSource(new StringReader(content)), handler);
+        return handler;
+    }
+
+    /**
+     * Scan the .work file with the reused parser
+     *
+     * @return the scan status
+     */
+    @Benchmark
+    public boolean pooledParser()
+    {
+        return ProjectFileScanner.scan(interpreter, DiscoveryStubs.WORK_FILE, content);
+    }
+}
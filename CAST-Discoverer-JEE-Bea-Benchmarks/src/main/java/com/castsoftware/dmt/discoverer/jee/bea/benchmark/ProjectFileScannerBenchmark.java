@@ -0,0 +1,105 @@
+package com.castsoftware.dmt.discoverer.jee.bea.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner;
+import com.castsoftware.dmt.discoverer.jee.bea.WorkspaceGenerator;
+import com.castsoftware.dmt.discoverer.jee.bea.WorkspaceModel;
+
+/**
+ * Parsing of a synthetic .work file without the discovery engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectFileScannerBenchmark
+{
+    @Param({ "10", "100", "1000", "10000" })
+    private int projectCount;
+
+    private String content;
+    private Path file;
+    private NoOpProjectInterpreter interpreter;
+
+    /**
+     * Generate the .work file
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        content = WorkspaceGenerator.generate(projectCount);
+        file = Files.createTempFile("synthetic", ".work");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        interpreter = new NoOpProjectInterpreter();
+    }
+
+    /**
+     * Delete the .work file
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.delete(file);
+    }
+
+    /**
+     * Scan the .work file
+     *
+     * @return the scan status
+     */
+    @Benchmark
+    public boolean scan()
+    {
+        return ProjectFileScanner.scan(interpreter, DiscoveryStubs.WORK_FILE, content);
+    }
+
+    /**
+     * Scan the .work file, streamed from the disk
+     *
+     * @return the scan status
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Benchmark
+    public boolean scanFile() throws IOException
+    {
+        return ProjectFileScanner.scan(interpreter, DiscoveryStubs.WORK_FILE, file);
+    }
+
+    /**
+     * Parse the .work file into its model
+     *
+     * @return the model
+     */
+    @Benchmark
+    public WorkspaceModel parse()
+    {
+        return ProjectFileScanner.parse(DiscoveryStubs.WORK_FILE, content);
+    }
+}
@@ -0,0 +1,82 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variables of the class.path options of a .work file, resolved once per file:
+ * <ul>
+ * <li>{@code ${X.root}}: the folder of the project X of the application</li>
+ * <li>{@code ${app.root}}: the folder of the .work file</li>
+ * <li>the variables defined by the user (see {@link DiscoveryOptions#CLASSPATH_VARIABLES})</li>
+ * </ul>
+ */
+final class ClasspathVariables
+{
+    private static final String VARIABLE_START = "${";
+    private static final String APP_ROOT = "app.root";
+    private static final String ROOT_SUFFIX = ".root";
+
+    private final Map<String, String> variables;
+
+    private ClasspathVariables(Map<String, String> variables)
+    {
+        this.variables = variables;
+    }
+
+    /**
+     * The variables of a .work file
+     *
+     * @param model
+     *            the parsed .work file
+     * @param workFolder
+     *            the folder of the .work file, relative to the package root
+     * @param userVariables
+     *            the variables defined by the user, overridden by the variables of the application
+     * @return the variables
+     */
+    static ClasspathVariables create(WorkspaceModel model, String workFolder, Map<String, String> userVariables)
+    {
+        Map<String, String> variables = new HashMap<String, String>(userVariables);
+        variables.put(APP_ROOT, workFolder);
+        for (int i = 0; i < model.getProjectCount(); i++)
+        {
+            String projectPath = model.getProjectPath(i);
+            if (projectPath != null)
+                variables.put(model.getProjectName(i).concat(ROOT_SUFFIX), workFolder.concat(projectPath.substring(1)));
+        }
+        return new ClasspathVariables(variables);
+    }
+
+    /**
+     * Replace the variables of a class path entry, in a single pass
+     *
+     * @param entry
+     *            the class path entry
+     * @return null if the entry uses an unknown variable
+     */
+    String resolve(String entry)
+    {
+        int varStart = entry.indexOf(VARIABLE_START);
+        if (varStart < 0)
+            return entry;
+
+        StringBuilder builder = new StringBuilder(entry.length() + 32);
+        int pos = 0;
+        while (varStart >= 0)
+        {
+            int varEnd = entry.indexOf('}', varStart + VARIABLE_START.length());
+            if (varEnd < 0)
+                // not a variable: kept as is
+                break;
+            String value = variables.get(entry.substring(varStart + VARIABLE_START.length(), varEnd));
+            if (value == null)
+                return null;
+            builder.append(entry, pos, varStart).append(value);
+            pos = varEnd + 1;
+            varStart = entry.indexOf(VARIABLE_START, pos);
+        }
+        builder.append(entry, pos, entry.length());
+        return builder.toString();
+    }
+}
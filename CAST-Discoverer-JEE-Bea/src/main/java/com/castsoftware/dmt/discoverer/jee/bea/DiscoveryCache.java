@@ -0,0 +1,245 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Persistent cache of the parsed .work files, so that the unchanged files of a new delivery are not parsed again.
+ * <p>
+ * The entries are keyed by the SHA-256 of the .work content and hold the recorded parsing of the file. As the
+ * parsing only depends on the content, the projects are rebuilt from the entry exactly as from the file, whatever the
+ * location of the file and the project type configuration. The cache is invalidated as a whole when its format or
+ * the parsing changes ({@link #SCANNER_VERSION}), and the least recently used entries are evicted above the maximum
+ * number of entries.
+ */
+final class DiscoveryCache
+{
+    private static final String MAGIC = "CAST-Discoverer-JEE-Bea cache";
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * Version of the parsing: to be increased each time the calls given to the interpreter change for a same content.
+     */
+    static final int SCANNER_VERSION = 4;
+
+    private final Path file;
+    private final Map<String, RecordedScan> entries;
+    private int hits;
+    private int misses;
+    private int evictions;
+
+    private DiscoveryCache(Path file, final int maxEntries)
+    {
+        this.file = file;
+        // access order: the least recently used entry is the eldest one
+        entries = new LinkedHashMap<String, RecordedScan>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecordedScan> eldest)
+            {
+                if (size() <= maxEntries)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Load the cache from its file. The cache is empty if the file does not exist, cannot be read or was written by
+     * another version.
+     *
+     * @param file
+     *            the cache file
+     * @param maxEntries
+     *            the maximum number of entries
+     * @return the cache
+     */
+    static DiscoveryCache load(Path file, int maxEntries)
+    {
+        DiscoveryCache cache = new DiscoveryCache(file, maxEntries);
+        if (!Files.isRegularFile(file))
+            return cache;
+
+        try
+        {
+            InputStream stream = Files.newInputStream(file);
+            try
+            {
+                DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)));
+                if (!MAGIC.equals(input.readUTF()) || input.readInt() != FORMAT_VERSION || input.readInt() != SCANNER_VERSION)
+                {
+                    Logging.info("cast.dmt.discover.jee.bea.cacheInvalidated", "PATH", file.toString());
+                    return cache;
+                }
+                int entryCount = input.readInt();
+                for (int i = 0; i < entryCount; i++)
+                {
+                    String key = input.readUTF();
+                    cache.entries.put(key, RecordedScan.read(input));
+                }
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.cacheReadFailure", "PATH", file.toString());
+            cache.entries.clear();
+        }
+        cache.evictions = 0;
+        return cache;
+    }
+
+    /**
+     * Write the cache to its file. The file is replaced only once completely written.
+     */
+    void save()
+    {
+        Path temporaryFile = file.resolveSibling(file.getFileName().toString().concat(".tmp"));
+        try
+        {
+            OutputStream stream = Files.newOutputStream(temporaryFile);
+            try
+            {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream)));
+                output.writeUTF(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(SCANNER_VERSION);
+                output.writeInt(entries.size());
+                for (Map.Entry<String, RecordedScan> entry : entries.entrySet())
+                {
+                    output.writeUTF(entry.getKey());
+                    entry.getValue().write(output);
+                }
+                output.close();
+            }
+            finally
+            {
+                stream.close();
+            }
+            try
+            {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.cacheWriteFailure", "PATH", file.toString());
+        }
+    }
+
+    /**
+     * The key of a .work content
+     *
+     * @param content
+     *            the content of the .work file
+     * @return the key
+     */
+    static String key(String content)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is required on every Java platform
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte b : hash)
+        {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16));
+            key.append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * The recorded parsing of a .work content
+     *
+     * @param key
+     *            the key of the content
+     * @return null if the content is not in the cache
+     */
+    RecordedScan get(String key)
+    {
+        RecordedScan scan = entries.get(key);
+        if (scan == null)
+            misses++;
+        else
+            hits++;
+        return scan;
+    }
+
+    /**
+     * Add the parsing of a .work content
+     *
+     * @param key
+     *            the key of the content
+     * @param scan
+     *            the recorded parsing
+     */
+    void put(String key, RecordedScan scan)
+    {
+        entries.put(key, scan);
+    }
+
+    /**
+     * @return a copy of the keys of the entries, in no particular order
+     */
+    Set<String> keys()
+    {
+        return new HashSet<String>(entries.keySet());
+    }
+
+    int getHits()
+    {
+        return hits;
+    }
+
+    int getMisses()
+    {
+        return misses;
+    }
+
+    int getEvictions()
+    {
+        return evictions;
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+}
@@ -0,0 +1,267 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Measures of a discovery, added up from the {@link WorkFileMetrics} of the .work files.
+ * <p>
+ * The measures are updated by the discovery thread and read by the JMX clients.
+ */
+final class DiscoveryMetrics implements DiscoveryMetricsMXBean
+{
+    /**
+     * Number of slowest files kept
+     */
+    static final int SLOWEST_FILE_COUNT = 10;
+
+    private static final Comparator<SlowFile> FASTEST_FIRST = new Comparator<SlowFile>()
+    {
+        @Override
+        public int compare(SlowFile file1, SlowFile file2)
+        {
+            return file1.parseNanos < file2.parseNanos ? -1 : (file1.parseNanos == file2.parseNanos ? 0 : 1);
+        }
+    };
+
+    private static final class SlowFile
+    {
+        private final String filePath;
+        private final long parseNanos;
+
+        private SlowFile(String filePath, long parseNanos)
+        {
+            this.filePath = filePath;
+            this.parseNanos = parseNanos;
+        }
+    }
+
+    private int fileCount;
+    private long parseNanos;
+    private long maxParseNanos;
+    private long elementCount;
+    private final long[] projectCounts;
+    private long referenceCount;
+    private long deletedProjectCount;
+    private final Histogram parseTimeHistogram;
+    private final Histogram projectsPerFileHistogram;
+    private final Histogram referencesPerFileHistogram;
+    // the fastest of the slowest files first, so that it is the one replaced
+    private final PriorityQueue<SlowFile> slowestFiles;
+
+    DiscoveryMetrics()
+    {
+        projectCounts = new long[WorkshopProjectType.values().length];
+        parseTimeHistogram = new Histogram();
+        projectsPerFileHistogram = new Histogram();
+        referencesPerFileHistogram = new Histogram();
+        slowestFiles = new PriorityQueue<SlowFile>(SLOWEST_FILE_COUNT + 1, FASTEST_FIRST);
+    }
+
+    /**
+     * Add the measures of a discovered .work file
+     *
+     * @param metrics
+     *            the measures of the file
+     */
+    synchronized void record(WorkFileMetrics metrics)
+    {
+        fileCount++;
+        parseNanos += metrics.getParseNanos();
+        maxParseNanos = Math.max(maxParseNanos, metrics.getParseNanos());
+        elementCount += metrics.getElementCount();
+        for (WorkshopProjectType type : WorkshopProjectType.values())
+            projectCounts[type.ordinal()] += metrics.getProjectCount(type);
+        referenceCount += metrics.getReferenceCount();
+        deletedProjectCount += metrics.getDeletedProjectCount();
+
+        parseTimeHistogram.add(TimeUnit.NANOSECONDS.toMillis(metrics.getParseNanos()));
+        projectsPerFileHistogram.add(metrics.getProjectCount());
+        referencesPerFileHistogram.add(metrics.getReferenceCount());
+
+        if (metrics.getParseNanos() > 0)
+        {
+            slowestFiles.add(new SlowFile(metrics.getFilePath(), metrics.getParseNanos()));
+            if (slowestFiles.size() > SLOWEST_FILE_COUNT)
+                slowestFiles.poll();
+        }
+    }
+
+    /**
+     * Add the references of the class path entries referenced when the discovery ends, after their .work files
+     *
+     * @param count
+     *            the number of references added
+     */
+    synchronized void addReferences(long count)
+    {
+        referenceCount += count;
+    }
+
+    /**
+     * Make the measures available through JMX, replacing the ones of a previous discovery.
+     */
+    void register()
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try
+            {
+                server.unregisterMBean(name);
+            }
+            catch (InstanceNotFoundException e)
+            {
+                // first discovery
+            }
+            server.registerMBean(this, name);
+        }
+        catch (JMException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.registerMetricsFailure", "MESSAGE", String.valueOf(e.getMessage()));
+        }
+        catch (SecurityException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.registerMetricsFailure", "MESSAGE", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Log the measures as one line of key=value pairs
+     */
+    synchronized void log()
+    {
+        Logging.info("cast.dmt.discover.jee.bea.discoveryMetrics", "FILES", Integer.toString(fileCount), "PARSE_MS",
+            Long.toString(getParseTimeMillis()), "MAX_PARSE_MS", Long.toString(getMaxParseTimeMillis()), "ELEMENTS",
+            Long.toString(elementCount), "PROJECTS", Long.toString(getProjectCount()), "PROJECTS_BY_TYPE",
+            format(getProjectCountByType()), "REFERENCES", Long.toString(referenceCount), "DELETED",
+            Long.toString(deletedProjectCount), "PARSE_MS_HISTOGRAM", parseTimeHistogram.toString(),
+            "PROJECTS_HISTOGRAM", projectsPerFileHistogram.toString(), "REFERENCES_HISTOGRAM",
+            referencesPerFileHistogram.toString(), "SLOWEST", format(getSlowestFiles()));
+    }
+
+    private static String format(Map<String, Long> counts)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> count : counts.entrySet())
+        {
+            if (builder.length() > 0)
+                builder.append(' ');
+            builder.append(count.getKey()).append(':').append(count.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static String format(List<String> values)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (String value : values)
+        {
+            if (builder.length() > 0)
+                builder.append(' ');
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public synchronized int getFileCount()
+    {
+        return fileCount;
+    }
+
+    @Override
+    public synchronized long getParseTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(parseNanos);
+    }
+
+    @Override
+    public synchronized long getMaxParseTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxParseNanos);
+    }
+
+    @Override
+    public synchronized long getElementCount()
+    {
+        return elementCount;
+    }
+
+    @Override
+    public synchronized long getProjectCount()
+    {
+        long count = 0;
+        for (long projectCount : projectCounts)
+            count += projectCount;
+        return count;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getProjectCountByType()
+    {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (WorkshopProjectType type : WorkshopProjectType.values())
+        {
+            if (projectCounts[type.ordinal()] > 0)
+                counts.put(type.name(), projectCounts[type.ordinal()]);
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized long getReferenceCount()
+    {
+        return referenceCount;
+    }
+
+    @Override
+    public synchronized long getDeletedProjectCount()
+    {
+        return deletedProjectCount;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getParseTimeHistogram()
+    {
+        return parseTimeHistogram.toMap();
+    }
+
+    @Override
+    public synchronized Map<String, Long> getProjectsPerFileHistogram()
+    {
+        return projectsPerFileHistogram.toMap();
+    }
+
+    @Override
+    public synchronized Map<String, Long> getReferencesPerFileHistogram()
+    {
+        return referencesPerFileHistogram.toMap();
+    }
+
+    @Override
+    public synchronized List<String> getSlowestFiles()
+    {
+        List<SlowFile> files = new ArrayList<SlowFile>(slowestFiles);
+        Collections.sort(files, Collections.reverseOrder(FASTEST_FIRST));
+        List<String> slowest = new ArrayList<String>(files.size());
+        for (SlowFile file : files)
+            slowest.add(file.filePath.concat("=").concat(Long.toString(TimeUnit.NANOSECONDS.toMillis(file.parseNanos))));
+        return slowest;
+    }
+}
@@ -0,0 +1,75 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures of the last discovery of bea .work files, exposed through JMX under {@link #OBJECT_NAME}.
+ */
+public interface DiscoveryMetricsMXBean
+{
+    /**
+     * Name of the MBean in the platform MBean server
+     */
+    String OBJECT_NAME = "com.castsoftware.dmt.discoverer.jee.bea:type=DiscoveryMetrics";
+
+    /**
+     * @return the number of .work files discovered
+     */
+    int getFileCount();
+
+    /**
+     * @return the time spent parsing the .work files, in milliseconds
+     */
+    long getParseTimeMillis();
+
+    /**
+     * @return the longest parsing of a .work file, in milliseconds
+     */
+    long getMaxParseTimeMillis();
+
+    /**
+     * @return the number of XML elements visited
+     */
+    long getElementCount();
+
+    /**
+     * @return the number of projects created
+     */
+    long getProjectCount();
+
+    /**
+     * @return the number of projects created, by Workshop project type
+     */
+    Map<String, Long> getProjectCountByType();
+
+    /**
+     * @return the number of references added to the created projects
+     */
+    long getReferenceCount();
+
+    /**
+     * @return the number of projects deleted
+     */
+    long getDeletedProjectCount();
+
+    /**
+     * @return the number of .work files by parsing time, in milliseconds
+     */
+    Map<String, Long> getParseTimeHistogram();
+
+    /**
+     * @return the number of .work files by number of projects created
+     */
+    Map<String, Long> getProjectsPerFileHistogram();
+
+    /**
+     * @return the number of .work files by number of references added
+     */
+    Map<String, Long> getReferencesPerFileHistogram();
+
+    /**
+     * @return the .work files with the longest parsing, the slowest first, as path=milliseconds
+     */
+    List<String> getSlowestFiles();
+}
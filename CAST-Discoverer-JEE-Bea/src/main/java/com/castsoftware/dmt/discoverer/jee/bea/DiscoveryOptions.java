@@ -0,0 +1,288 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.Properties;
+
+/**
+ * Options of the discoverer, read from the system properties when the discovery of a package starts.
+ */
+final class DiscoveryOptions
+{
+    private static final String PROPERTY_PREFIX = "cast.dmt.discover.jee.bea.";
+
+    /**
+     * Number of threads parsing the .work files ahead of the discovery engine. 1 or less to parse the files in
+     * sequence.
+     */
+    static final String PARALLELISM = PROPERTY_PREFIX + "parallelism";
+
+    /**
+     * {@code true} to keep the parsing of the .work files in a cache file, next to the package root folder, and reuse
+     * it for the unchanged files of the next deliveries.
+     */
+    static final String CACHE = PROPERTY_PREFIX + "cache";
+
+    /**
+     * Path of the cache file, overriding the default one
+     */
+    static final String CACHE_FILE = PROPERTY_PREFIX + "cacheFile";
+
+    /**
+     * Maximum number of .work files kept in the cache
+     */
+    static final String CACHE_MAX_ENTRIES = PROPERTY_PREFIX + "cacheMaxEntries";
+
+    /**
+     * Names of the build output folders excluded from the source folders of the java projects, separated by ;, for
+     * instance .workshop;.beabuild;classes;bin. When given, a project folder holding such a folder and no java file is
+     * narrowed to its other sub folders, listed on the disk. Empty by default: the project folder is kept, and only the
+     * excludedirs of the .work file are left out of the source.path folders.
+     */
+    static final String EXCLUDED_SOURCE_FOLDERS = PROPERTY_PREFIX + "excludedSourceFolders";
+
+    /**
+     * Properties file defining the variables used in the class.path options, e.g. {@code WL_HOME=C:/bea/weblogic81}
+     */
+    static final String CLASSPATH_VARIABLES = PROPERTY_PREFIX + "classpathVariables";
+
+    /**
+     * Maximum number of characters of a .work file, the parsing of larger files fails.
+     */
+    static final String MAX_FILE_SIZE = PROPERTY_PREFIX + "maxFileSize";
+
+    /**
+     * Maximum nesting depth of the elements of a .work file, the parsing of deeper files fails.
+     */
+    static final String MAX_ELEMENT_DEPTH = PROPERTY_PREFIX + "maxElementDepth";
+
+    /**
+     * Maximum number of elements of a .work file, the parsing of larger files is aborted. 0 for no limit.
+     */
+    static final String MAX_ELEMENT_COUNT = PROPERTY_PREFIX + "maxElementCount";
+
+    /**
+     * Maximum time spent parsing a .work file, in milliseconds, the parsing of slower files is aborted. 0 for no limit.
+     */
+    static final String MAX_PARSE_MILLIS = PROPERTY_PREFIX + "maxParseMillis";
+
+    /**
+     * Interval between the progress reports of the discovery, in milliseconds. 0 to report nothing.
+     */
+    static final String PROGRESS_INTERVAL_MILLIS = PROPERTY_PREFIX + "progressIntervalMillis";
+
+    /**
+     * {@code false} to create a project per .work file for a project folder declared by several .work files
+     */
+    static final String SHARE_PROJECTS = PROPERTY_PREFIX + "shareProjects";
+
+    /**
+     * {@code false} to keep the class path entries pointing at the folder or the jar of a project of another .work
+     * file as folder and jar references, instead of project references
+     */
+    static final String LINK_WORK_FILES = PROPERTY_PREFIX + "linkWorkFiles";
+
+    /**
+     * {@code true} to also reference the jars listed by the Class-Path of the manifests of the referenced jars,
+     * transitively
+     */
+    static final String EXPAND_MANIFEST_CLASSPATH = PROPERTY_PREFIX + "expandManifestClasspath";
+
+    /**
+     * {@code true} to drop the projects, source folders and class path entries which were not delivered in the package
+     */
+    static final String VALIDATE_PATHS = PROPERTY_PREFIX + "validatePaths";
+
+    /**
+     * {@code true} to discover the Eclipse-based Workshop projects (.project files) with the .work files, instead of
+     * leaving them to the generic Eclipse discoverer.
+     * <p>
+     * The projectsFilesPatterns of the discoverer model include .project for this option, so the engine reads every
+     * .project file of the package and gives it to the discoverer whatever the option. Off, each one is only deleted,
+     * without being parsed, logged or measured.
+     */
+    static final String ECLIPSE_PROJECTS = PROPERTY_PREFIX + "eclipseProjects";
+
+    /**
+     * {@code true} to link the projects of a .work file through their class path entries and their
+     * project.dependencies options only, instead of linking them all to all
+     */
+    static final String INFER_DEPENDENCIES = PROPERTY_PREFIX + "inferDependencies";
+
+    private final int parallelism;
+    private final boolean isCacheEnabled;
+    private final String cacheFile;
+    private final int cacheMaxEntries;
+    private final String excludedSourceFolders;
+    private final String classpathVariables;
+    private final long maxFileSize;
+    private final int maxElementDepth;
+    private final long maxElementCount;
+    private final long maxParseMillis;
+    private final long progressIntervalMillis;
+    private final boolean isSharingProjects;
+    private final boolean isLinkingWorkFiles;
+    private final boolean isExpandingManifestClasspath;
+    private final boolean isValidatingPaths;
+    private final boolean isDiscoveringEclipseProjects;
+    private final boolean isInferringDependencies;
+
+    DiscoveryOptions(Properties properties)
+    {
+        parallelism = getInt(properties, PARALLELISM, 1);
+        cacheFile = properties.getProperty(CACHE_FILE);
+        isCacheEnabled = cacheFile != null || Boolean.parseBoolean(properties.getProperty(CACHE));
+        cacheMaxEntries = getInt(properties, CACHE_MAX_ENTRIES, 10000);
+        excludedSourceFolders = properties.getProperty(EXCLUDED_SOURCE_FOLDERS, SourceFolders.DEFAULT_EXCLUDED_FOLDERS);
+        classpathVariables = properties.getProperty(CLASSPATH_VARIABLES);
+        maxFileSize = getLong(properties, MAX_FILE_SIZE, 256L * 1024 * 1024);
+        maxElementDepth = getInt(properties, MAX_ELEMENT_DEPTH, 1024);
+        maxElementCount = getLong(properties, MAX_ELEMENT_COUNT, 10000000L);
+        maxParseMillis = getLong(properties, MAX_PARSE_MILLIS, 0);
+        progressIntervalMillis = getLong(properties, PROGRESS_INTERVAL_MILLIS, 30000L);
+        isSharingProjects = !"false".equalsIgnoreCase(properties.getProperty(SHARE_PROJECTS, "true").trim());
+        isLinkingWorkFiles = !"false".equalsIgnoreCase(properties.getProperty(LINK_WORK_FILES, "true").trim());
+        isExpandingManifestClasspath = Boolean.parseBoolean(properties.getProperty(EXPAND_MANIFEST_CLASSPATH));
+        isValidatingPaths = Boolean.parseBoolean(properties.getProperty(VALIDATE_PATHS));
+        isDiscoveringEclipseProjects = Boolean.parseBoolean(properties.getProperty(ECLIPSE_PROJECTS));
+        isInferringDependencies = Boolean.parseBoolean(properties.getProperty(INFER_DEPENDENCIES));
+    }
+
+    /**
+     * The options defined by the system properties
+     *
+     * @return the options
+     */
+    static DiscoveryOptions fromSystemProperties()
+    {
+        return new DiscoveryOptions(System.getProperties());
+    }
+
+    int getParallelism()
+    {
+        return parallelism;
+    }
+
+    boolean isCacheEnabled()
+    {
+        return isCacheEnabled;
+    }
+
+    /**
+     * @return null to use the default cache file
+     */
+    String getCacheFile()
+    {
+        return cacheFile;
+    }
+
+    int getCacheMaxEntries()
+    {
+        return cacheMaxEntries;
+    }
+
+    String getExcludedSourceFolders()
+    {
+        return excludedSourceFolders;
+    }
+
+    /**
+     * @return null if no class path variable is defined
+     */
+    String getClasspathVariables()
+    {
+        return classpathVariables;
+    }
+
+    long getMaxFileSize()
+    {
+        return maxFileSize;
+    }
+
+    int getMaxElementDepth()
+    {
+        return maxElementDepth;
+    }
+
+    /**
+     * @return 0 for no limit
+     */
+    long getMaxElementCount()
+    {
+        return maxElementCount;
+    }
+
+    /**
+     * @return 0 for no limit
+     */
+    long getMaxParseMillis()
+    {
+        return maxParseMillis;
+    }
+
+    /**
+     * @return 0 to report nothing
+     */
+    long getProgressIntervalMillis()
+    {
+        return progressIntervalMillis;
+    }
+
+    boolean isSharingProjects()
+    {
+        return isSharingProjects;
+    }
+
+    boolean isLinkingWorkFiles()
+    {
+        return isLinkingWorkFiles;
+    }
+
+    boolean isExpandingManifestClasspath()
+    {
+        return isExpandingManifestClasspath;
+    }
+
+    boolean isValidatingPaths()
+    {
+        return isValidatingPaths;
+    }
+
+    boolean isDiscoveringEclipseProjects()
+    {
+        return isDiscoveringEclipseProjects;
+    }
+
+    boolean isInferringDependencies()
+    {
+        return isInferringDependencies;
+    }
+
+    private static long getLong(Properties properties, String name, long defaultValue)
+    {
+        String value = properties.getProperty(name);
+        if (value == null)
+            return defaultValue;
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return defaultValue;
+        }
+    }
+
+    private static int getInt(Properties properties, String name, int defaultValue)
+    {
+        String value = properties.getProperty(name);
+        if (value == null)
+            return defaultValue;
+        try
+        {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return defaultValue;
+        }
+    }
+}
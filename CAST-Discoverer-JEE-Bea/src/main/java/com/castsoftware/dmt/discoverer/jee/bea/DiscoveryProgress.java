@@ -0,0 +1,78 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.Locale;
+
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Progress of the discovery of a package, logged and given to the listener once per interval.
+ * <p>
+ * Used by the discovery thread only.
+ */
+final class DiscoveryProgress
+{
+    private final long intervalNanos;
+    private final DiscoveryProgressListener listener;
+    private final long start;
+    private long lastReport;
+    private int fileCount;
+    private long projectCount;
+
+    /**
+     * @param intervalMillis
+     *            the interval between the reports, in milliseconds, 0 to report nothing
+     * @param listener
+     *            the listener of the progress, null if none
+     */
+    DiscoveryProgress(long intervalMillis, DiscoveryProgressListener listener)
+    {
+        intervalNanos = intervalMillis <= 0 ? 0 : intervalMillis * 1000000L;
+        this.listener = listener;
+        start = System.nanoTime();
+        lastReport = start;
+    }
+
+    /**
+     * Count a discovered .work file, and report the progress when the interval elapsed
+     *
+     * @param metrics
+     *            the measures of the file
+     */
+    void addFile(WorkFileMetrics metrics)
+    {
+        fileCount++;
+        projectCount += metrics.getProjectCount();
+        if (intervalNanos == 0)
+            return;
+        long now = System.nanoTime();
+        if (now - lastReport >= intervalNanos)
+        {
+            lastReport = now;
+            report(now);
+        }
+    }
+
+    /**
+     * Report the progress when the discovery ends
+     */
+    void end()
+    {
+        if (intervalNanos > 0 && listener != null)
+            listener.progress(fileCount, projectCount, getFilesPerSecond(System.nanoTime()), true);
+    }
+
+    private void report(long now)
+    {
+        double filesPerSecond = getFilesPerSecond(now);
+        Logging.info("cast.dmt.discover.jee.bea.discoveryProgress", "FILES", Integer.toString(fileCount), "PROJECTS",
+            Long.toString(projectCount), "FILES_PER_SECOND", String.format(Locale.ENGLISH, "%.1f", filesPerSecond));
+        if (listener != null)
+            listener.progress(fileCount, projectCount, filesPerSecond, false);
+    }
+
+    private double getFilesPerSecond(long now)
+    {
+        long elapsed = now - start;
+        return elapsed <= 0 ? 0 : fileCount * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+/**
+ * Receiver of the progress of the discovery of the .work files of a package.
+ * <p>
+ * Called by the discovery thread, at most once per progress interval and once when the discovery ends.
+ */
+public interface DiscoveryProgressListener
+{
+    /**
+     * Progress of the discovery
+     *
+     * @param fileCount
+     *            the number of .work files discovered so far
+     * @param projectCount
+     *            the number of projects created so far
+     * @param filesPerSecond
+     *            the number of .work files discovered per second since the discovery started
+     * @param isDone
+     *            {@code true} if the discovery ended
+     */
+    void progress(int fileCount, long projectCount, double filesPerSecond, boolean isDone);
+}
@@ -0,0 +1,195 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Settings shared by all the .work files of a package, set up when the discovery of the package starts.
+ */
+final class DiscoverySession
+{
+    private final SourceFolders sourceFolders;
+    private final LibraryFolders libraryFolders;
+    private final Map<String, String> classpathVariables;
+    private final PathTable pathTable;
+    private final ProjectRegistry projectRegistry;
+    private final ProjectIndex projectIndex;
+    private final JarManifests jarManifests;
+    private final PackageTree packageTree;
+    private final ParseBudget parseBudget;
+    private final boolean isInferringDependencies;
+
+    private DiscoverySession(Path packageRoot, SourceFolders sourceFolders, Map<String, String> classpathVariables,
+        boolean isSharingProjects, boolean isLinkingWorkFiles, boolean isExpandingManifestClasspath,
+        boolean isValidatingPaths, boolean isInferringDependencies, ParseBudget parseBudget)
+    {
+        this.sourceFolders = sourceFolders;
+        libraryFolders = new LibraryFolders(packageRoot);
+        this.classpathVariables = classpathVariables;
+        projectRegistry = isSharingProjects ? new ProjectRegistry() : null;
+        pathTable = new PathTable();
+        projectIndex = isLinkingWorkFiles ? new ProjectIndex(pathTable) : null;
+        jarManifests = isExpandingManifestClasspath && packageRoot != null ? new JarManifests(packageRoot) : null;
+        packageTree = isValidatingPaths && packageRoot != null && Files.isDirectory(packageRoot) ? new PackageTree(packageRoot)
+            : null;
+        this.isInferringDependencies = isInferringDependencies;
+        this.parseBudget = parseBudget;
+    }
+
+    /**
+     * The settings used when the package is not available on the disk and no option is given. The .work files are
+     * discovered on their own: their projects are not shared and their class path entries are referenced at once, as no
+     * end of discovery resolves them.
+     *
+     * @return the settings
+     */
+    static DiscoverySession createDefault()
+    {
+        return new DiscoverySession(null, new SourceFolders(null, SourceFolders.DEFAULT_EXCLUDED_FOLDERS),
+            Collections.<String, String> emptyMap(), false, false, false, false, false, WorkFileParsers.createBudget());
+    }
+
+    /**
+     * The settings of a package
+     *
+     * @param packageRoot
+     *            the package root on the disk, null if not available
+     * @param options
+     *            the options of the discovery
+     * @return the settings
+     */
+    static DiscoverySession create(Path packageRoot, DiscoveryOptions options)
+    {
+        return new DiscoverySession(packageRoot, new SourceFolders(packageRoot, options.getExcludedSourceFolders()),
+            loadClasspathVariables(options.getClasspathVariables()), options.isSharingProjects(),
+            options.isLinkingWorkFiles(), options.isExpandingManifestClasspath(), options.isValidatingPaths(),
+            options.isInferringDependencies(), ParseBudget.create(options));
+    }
+
+    /**
+     * @return the resolution of the source folders of the java projects
+     */
+    SourceFolders getSourceFolders()
+    {
+        return sourceFolders;
+    }
+
+    /**
+     * @return the jars of the APP-INF/lib folders of the applications
+     */
+    LibraryFolders getLibraryFolders()
+    {
+        return libraryFolders;
+    }
+
+    /**
+     * @return the class path variables defined by the user
+     */
+    Map<String, String> getClasspathVariables()
+    {
+        return classpathVariables;
+    }
+
+    /**
+     * @return the canonical paths of the references of the package
+     */
+    PathTable getPathTable()
+    {
+        return pathTable;
+    }
+
+    /**
+     * @return the projects discovered in the package, null if every .work file creates its own projects
+     */
+    ProjectRegistry getProjectRegistry()
+    {
+        return projectRegistry;
+    }
+
+    /**
+     * @return the folders and output jars of the projects discovered in the package, null if the class path entries
+     *         are not linked to the projects of other .work files
+     */
+    ProjectIndex getProjectIndex()
+    {
+        return projectIndex;
+    }
+
+    /**
+     * @return the jars listed by the manifests of the jars of the package, null if the manifests are not read
+     */
+    JarManifests getJarManifests()
+    {
+        return jarManifests;
+    }
+
+    /**
+     * @return the files and folders delivered in the package, null if the discovered paths are not checked
+     */
+    PackageTree getPackageTree()
+    {
+        return packageTree;
+    }
+
+    /**
+     * @return {@code true} if the projects of a .work file are only linked by their class path entries and their
+     *         declared dependencies, {@code false} if they are linked all to all
+     */
+    boolean isInferringDependencies()
+    {
+        return isInferringDependencies;
+    }
+
+    /**
+     * @return the limits of the parsing of the .work files, cancelled with the discovery
+     */
+    ParseBudget getParseBudget()
+    {
+        return parseBudget;
+    }
+
+    private static Map<String, String> loadClasspathVariables(String file)
+    {
+        if (file == null)
+            return Collections.emptyMap();
+
+        Properties properties = new Properties();
+        try
+        {
+            InputStream stream = Files.newInputStream(Paths.get(file));
+            try
+            {
+                properties.load(stream);
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.readClasspathVariablesFailure", "PATH", file);
+            return Collections.emptyMap();
+        }
+        catch (InvalidPathException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.readClasspathVariablesFailure", "PATH", file);
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> variables = new HashMap<String, String>();
+        for (String name : properties.stringPropertyNames())
+            variables.put(name, properties.getProperty(name).replace('\\', '/'));
+        return Collections.unmodifiableMap(variables);
+    }
+}
@@ -0,0 +1,220 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events of the stages of the discovery of a .work file.
+ * <p>
+ * Only loaded by {@link WorkFileEvents} when the JVM has a Flight Recorder. The events are disabled by default, they
+ * are enabled by name in the settings of a recording.
+ */
+final class FlightRecorderEvents
+{
+    private static final String CATEGORY = "CAST DMT";
+    private static final String SUB_CATEGORY = "JEE Bea Discoverer";
+
+    @Name(WorkFileEvents.RESOLVE_LANGUAGES)
+    @Label("Resolve Languages")
+    @Description("Resolution of the languages of the project type of a .work file")
+    @Category({ CATEGORY, SUB_CATEGORY })
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ResolveLanguagesEvent extends Event
+    {
+        @Label("File Path")
+        String filePath;
+
+        @Label("Project Type")
+        String projectType;
+    }
+
+    @Name(WorkFileEvents.PARSE)
+    @Label("Parse .work File")
+    @Description("SAX parsing of a .work file")
+    @Category({ CATEGORY, SUB_CATEGORY })
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ParseEvent extends Event
+    {
+        @Label("File Path")
+        String filePath;
+
+        @Label("Elements")
+        int elementCount;
+
+        @Label("Succeeded")
+        boolean isOk;
+    }
+
+    @Name(WorkFileEvents.CREATE_PROJECT)
+    @Label("Create Project")
+    @Description("Creation of a project and of its source references")
+    @Category({ CATEGORY, SUB_CATEGORY })
+    @Enabled(false)
+    @StackTrace(false)
+    static final class CreateProjectEvent extends Event
+    {
+        @Label("File Path")
+        String filePath;
+
+        @Label("Project Name")
+        String projectName;
+
+        @Label("Workshop Type")
+        String projectType;
+
+        @Label("References")
+        int referenceCount;
+    }
+
+    @Name(WorkFileEvents.EXPAND_CLASSPATH)
+    @Label("Expand Class Path")
+    @Description("Resolution of the class path of a project into references")
+    @Category({ CATEGORY, SUB_CATEGORY })
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ExpandClasspathEvent extends Event
+    {
+        @Label("File Path")
+        String filePath;
+
+        @Label("Project Name")
+        String projectName;
+
+        @Label("Class Path Entries")
+        int classpathCount;
+
+        @Label("References")
+        int referenceCount;
+    }
+
+    @Name(WorkFileEvents.WIRE_DEPENDENCIES)
+    @Label("Wire Dependencies")
+    @Description("Addition of the references between the projects of a .work file")
+    @Category({ CATEGORY, SUB_CATEGORY })
+    @Enabled(false)
+    @StackTrace(false)
+    static final class WireDependenciesEvent extends Event
+    {
+        @Label("File Path")
+        String filePath;
+
+        @Label("Projects")
+        int projectCount;
+
+        @Label("References")
+        int referenceCount;
+    }
+
+    private FlightRecorderEvents()
+    {
+        // NOP
+    }
+
+    static Object beginResolveLanguages()
+    {
+        ResolveLanguagesEvent event = new ResolveLanguagesEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endResolveLanguages(Object handle, String filePath, String projectType)
+    {
+        ResolveLanguagesEvent event = (ResolveLanguagesEvent) handle;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.filePath = filePath;
+            event.projectType = projectType;
+            event.commit();
+        }
+    }
+
+    static Object beginParse()
+    {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endParse(Object handle, String filePath, int elementCount, boolean isOk)
+    {
+        ParseEvent event = (ParseEvent) handle;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.filePath = filePath;
+            event.elementCount = elementCount;
+            event.isOk = isOk;
+            event.commit();
+        }
+    }
+
+    static Object beginCreateProject()
+    {
+        CreateProjectEvent event = new CreateProjectEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endCreateProject(Object handle, String filePath, String projectName, String projectType, int referenceCount)
+    {
+        CreateProjectEvent event = (CreateProjectEvent) handle;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.filePath = filePath;
+            event.projectName = projectName;
+            event.projectType = projectType;
+            event.referenceCount = referenceCount;
+            event.commit();
+        }
+    }
+
+    static Object beginExpandClasspath()
+    {
+        ExpandClasspathEvent event = new ExpandClasspathEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endExpandClasspath(Object handle, String filePath, String projectName, int classpathCount, int referenceCount)
+    {
+        ExpandClasspathEvent event = (ExpandClasspathEvent) handle;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.filePath = filePath;
+            event.projectName = projectName;
+            event.classpathCount = classpathCount;
+            event.referenceCount = referenceCount;
+            event.commit();
+        }
+    }
+
+    static Object beginWireDependencies()
+    {
+        WireDependenciesEvent event = new WireDependenciesEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endWireDependencies(Object handle, String filePath, int projectCount, int referenceCount)
+    {
+        WireDependenciesEvent event = (WireDependenciesEvent) handle;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.filePath = filePath;
+            event.projectCount = projectCount;
+            event.referenceCount = referenceCount;
+            event.commit();
+        }
+    }
+}
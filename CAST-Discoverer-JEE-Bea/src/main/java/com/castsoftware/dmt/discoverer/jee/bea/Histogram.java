@@ -0,0 +1,83 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Histogram of non negative values, with buckets doubling in size: 0, 1, 2-3, 4-7, 8-15...
+ * <p>
+ * Not thread safe.
+ */
+final class Histogram
+{
+    private final long[] counts;
+
+    Histogram()
+    {
+        counts = new long[Long.SIZE];
+    }
+
+    /**
+     * Count a value
+     *
+     * @param value
+     *            the value, the negative ones are counted as 0
+     */
+    void add(long value)
+    {
+        counts[value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value)]++;
+    }
+
+    /**
+     * @return the number of values counted
+     */
+    long getCount()
+    {
+        long count = 0;
+        for (long bucketCount : counts)
+            count += bucketCount;
+        return count;
+    }
+
+    /**
+     * @return the counts of the non empty buckets, by bucket label in increasing order
+     */
+    Map<String, Long> toMap()
+    {
+        Map<String, Long> buckets = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] > 0)
+                buckets.put(label(i), counts[i]);
+        }
+        return buckets;
+    }
+
+    /**
+     * @return the non empty buckets, as label:count separated by spaces
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] == 0)
+                continue;
+            if (builder.length() > 0)
+                builder.append(' ');
+            builder.append(label(i)).append(':').append(counts[i]);
+        }
+        return builder.toString();
+    }
+
+    private static String label(int bucket)
+    {
+        if (bucket <= 1)
+            return Integer.toString(bucket);
+        long low = 1L << (bucket - 1);
+        // the last bucket ends with Long.MAX_VALUE
+        long high = bucket == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        return Long.toString(low).concat("-").concat(Long.toString(high));
+    }
+}
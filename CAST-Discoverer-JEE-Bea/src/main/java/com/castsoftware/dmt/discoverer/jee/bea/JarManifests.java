@@ -0,0 +1,373 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Jars listed by the Class-Path of the manifests of the jars of a package, followed transitively.
+ * <p>
+ * Only the central directory of a jar and its META-INF/MANIFEST.MF entry are read, through mapped regions of the
+ * file. The Class-Path of a jar is kept for the process, keyed by path, size and modification time, so that the
+ * unchanged jars are not read again by the next deliveries. The transitive jars are kept for the discovery of the
+ * package.
+ * <p>
+ * Used by the discovery thread only.
+ */
+final class JarManifests
+{
+    /**
+     * Number of jars whose Class-Path is kept for the process
+     */
+    static final int MAX_CACHED_MANIFESTS = 10000;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    // larger manifests are ignored
+    private static final int MAX_MANIFEST_SIZE = 1024 * 1024;
+    private static final byte[] MANIFEST_NAME = "META-INF/MANIFEST.MF".getBytes(StandardCharsets.US_ASCII);
+    private static final String[] NO_JARS = new String[0];
+
+    // Class-Path entries by path|size|modification time
+    private static final Map<String, String[]> CLASS_PATHS = Collections.synchronizedMap(
+        new LinkedHashMap<String, String[]>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest)
+            {
+                return size() > MAX_CACHED_MANIFESTS;
+            }
+        });
+
+    private final Path packageRoot;
+    // the transitive jars, by canonical jar path
+    private final Map<String, String[]> transitiveJars;
+
+    /**
+     * @param packageRoot
+     *            the package root on the disk, null if not available
+     */
+    JarManifests(Path packageRoot)
+    {
+        this.packageRoot = packageRoot;
+        transitiveJars = new HashMap<String, String[]>();
+    }
+
+    /**
+     * The jars listed by the Class-Path of the manifest of a jar, and by the manifests of these jars
+     *
+     * @param jar
+     *            the canonical path of the jar, relative to the package root or absolute
+     * @param paths
+     *            the canonical paths of the package, giving the paths of the listed jars
+     * @return the canonical paths of the listed jars found on the disk, the jar itself excluded
+     */
+    String[] getClassPath(String jar, PathTable paths)
+    {
+        String[] jars = transitiveJars.get(jar);
+        if (jars == null)
+        {
+            List<String> foundJars = new ArrayList<String>();
+            Set<String> visitedJars = new HashSet<String>();
+            visitedJars.add(jar);
+            List<String> pendingJars = new ArrayList<String>();
+            pendingJars.add(jar);
+            for (int i = 0; i < pendingJars.size(); i++)
+            {
+                String pendingJar = pendingJars.get(i);
+                String folder = getFolder(pendingJar);
+                for (String entry : readClassPath(pendingJar))
+                {
+                    String listedJar = resolve(folder, entry);
+                    if (listedJar == null)
+                        continue;
+                    listedJar = paths.intern(listedJar);
+                    if (visitedJars.add(listedJar) && exists(listedJar))
+                    {
+                        foundJars.add(listedJar);
+                        pendingJars.add(listedJar);
+                    }
+                }
+            }
+            jars = foundJars.isEmpty() ? NO_JARS : foundJars.toArray(new String[foundJars.size()]);
+            transitiveJars.put(jar, jars);
+        }
+        return jars;
+    }
+
+    private Path toFile(String path)
+    {
+        if (packageRoot == null)
+            return null;
+        try
+        {
+            return new File(path).isAbsolute() ? Paths.get(path) : packageRoot.resolve(path);
+        }
+        catch (InvalidPathException e)
+        {
+            return null;
+        }
+    }
+
+    private boolean exists(String path)
+    {
+        Path file = toFile(path);
+        return file != null && Files.isRegularFile(file);
+    }
+
+    private String[] readClassPath(String jar)
+    {
+        Path file = toFile(jar);
+        if (file == null)
+            return NO_JARS;
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile())
+                return NO_JARS;
+            String key = file.toAbsolutePath().toString() + '|' + attributes.size() + '|'
+                + attributes.lastModifiedTime().toMillis();
+            String[] classPath = CLASS_PATHS.get(key);
+            if (classPath == null)
+            {
+                classPath = readClassPath(file);
+                CLASS_PATHS.put(key, classPath);
+            }
+            return classPath;
+        }
+        catch (IOException e)
+        {
+            return NO_JARS;
+        }
+    }
+
+    /**
+     * Read the Class-Path of the manifest of a jar
+     *
+     * @param file
+     *            the jar
+     * @return the entries of the Class-Path, empty if the jar has none or is not a valid jar
+     * @throws IOException
+     *             if the jar cannot be read
+     */
+    static String[] readClassPath(Path file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            byte[] manifest = readManifest(channel);
+            if (manifest == null)
+                return NO_JARS;
+            String classPath = new Manifest(new ByteArrayInputStream(manifest)).getMainAttributes().getValue(
+                Attributes.Name.CLASS_PATH);
+            if (classPath == null || classPath.trim().isEmpty())
+                return NO_JARS;
+            return classPath.trim().split("\\s+");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // invalid manifest
+            return NO_JARS;
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    private static byte[] readManifest(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        if (size < END_OF_CENTRAL_DIRECTORY_SIZE)
+            return null;
+
+        // the end of central directory record is followed by the comment of the archive
+        int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = map(channel, size - tailSize, tailSize);
+        int endPos = -1;
+        for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--)
+        {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+            {
+                endPos = i;
+                break;
+            }
+        }
+        if (endPos < 0)
+            return null;
+        int entryCount = tail.getShort(endPos + 10) & 0xFFFF;
+        long directorySize = tail.getInt(endPos + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(endPos + 16) & 0xFFFFFFFFL;
+        // ZIP64 archives are not supported
+        if (directoryOffset + directorySize > size || directorySize > Integer.MAX_VALUE)
+            return null;
+
+        ByteBuffer directory = map(channel, directoryOffset, (int) directorySize);
+        int pos = 0;
+        for (int i = 0; i < entryCount && pos + CENTRAL_DIRECTORY_ENTRY_SIZE <= directorySize; i++)
+        {
+            if (directory.getInt(pos) != CENTRAL_DIRECTORY_ENTRY_SIGNATURE)
+                return null;
+            int nameLength = directory.getShort(pos + 28) & 0xFFFF;
+            int extraLength = directory.getShort(pos + 30) & 0xFFFF;
+            int commentLength = directory.getShort(pos + 32) & 0xFFFF;
+            if (pos + CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength > directorySize)
+                return null;
+            if (isManifest(directory, pos + CENTRAL_DIRECTORY_ENTRY_SIZE, nameLength))
+            {
+                int method = directory.getShort(pos + 10) & 0xFFFF;
+                long compressedSize = directory.getInt(pos + 20) & 0xFFFFFFFFL;
+                long uncompressedSize = directory.getInt(pos + 24) & 0xFFFFFFFFL;
+                long localHeaderOffset = directory.getInt(pos + 42) & 0xFFFFFFFFL;
+                return readEntry(channel, localHeaderOffset, method, compressedSize, uncompressedSize);
+            }
+            pos += CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength;
+        }
+        return null;
+    }
+
+    private static boolean isManifest(ByteBuffer directory, int namePos, int nameLength)
+    {
+        if (nameLength != MANIFEST_NAME.length)
+            return false;
+        for (int i = 0; i < nameLength; i++)
+        {
+            byte b = directory.get(namePos + i);
+            if (b >= 'a' && b <= 'z')
+                b -= 'a' - 'A';
+            if (b != MANIFEST_NAME[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static byte[] readEntry(FileChannel channel, long localHeaderOffset, int method, long compressedSize,
+        long uncompressedSize) throws IOException
+    {
+        long size = channel.size();
+        if (compressedSize > MAX_MANIFEST_SIZE || uncompressedSize > MAX_MANIFEST_SIZE
+            || localHeaderOffset + LOCAL_HEADER_SIZE > size)
+            return null;
+        ByteBuffer header = map(channel, localHeaderOffset, LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE)
+            return null;
+        // the sizes of the local header may be in a data descriptor, the ones of the central directory are used
+        long dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF)
+            + (header.getShort(28) & 0xFFFF);
+        if (dataOffset + compressedSize > size)
+            return null;
+        byte[] data = new byte[(int) compressedSize];
+        map(channel, dataOffset, data.length).get(data);
+
+        if (method == STORED)
+            return data;
+        if (method != DEFLATED)
+            return null;
+        Inflater inflater = new Inflater(true);
+        try
+        {
+            // the raw inflater expects an extra byte
+            byte[] input = new byte[data.length + 1];
+            System.arraycopy(data, 0, input, 0, data.length);
+            inflater.setInput(input);
+            byte[] manifest = new byte[(int) uncompressedSize];
+            int length = 0;
+            while (length < manifest.length && !inflater.finished())
+            {
+                int inflated = inflater.inflate(manifest, length, manifest.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    return null;
+                length += inflated;
+            }
+            return manifest;
+        }
+        catch (DataFormatException e)
+        {
+            return null;
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, int size) throws IOException
+    {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String getFolder(String jar)
+    {
+        int separatorPos = Math.max(jar.lastIndexOf('/'), jar.lastIndexOf('\\'));
+        return separatorPos < 0 ? "" : jar.substring(0, separatorPos);
+    }
+
+    /**
+     * Resolve a Class-Path entry, a relative URL, against the folder of the jar
+     *
+     * @return null if the entry is not a relative path of a jar
+     */
+    private static String resolve(String folder, String entry)
+    {
+        String path = entry.replace("%20", " ");
+        if (path.startsWith("/") || path.indexOf(':') >= 0 || !path.toLowerCase(Locale.ENGLISH).endsWith(".jar"))
+            return null;
+
+        List<String> segments = new ArrayList<String>();
+        for (String segment : folder.split("[/\\\\]"))
+        {
+            if (!segment.isEmpty())
+                segments.add(segment);
+        }
+        boolean isAbsolute = folder.startsWith("/");
+        for (String segment : path.split("/"))
+        {
+            if (segment.isEmpty() || ".".equals(segment))
+                continue;
+            if ("..".equals(segment) && !segments.isEmpty() && !"..".equals(segments.get(segments.size() - 1)))
+                segments.remove(segments.size() - 1);
+            else
+                segments.add(segment);
+        }
+        StringBuilder builder = new StringBuilder(isAbsolute ? "/" : "");
+        for (int i = 0; i < segments.size(); i++)
+        {
+            if (i > 0)
+                builder.append('/');
+            builder.append(segments.get(i));
+        }
+        return builder.toString();
+    }
+}
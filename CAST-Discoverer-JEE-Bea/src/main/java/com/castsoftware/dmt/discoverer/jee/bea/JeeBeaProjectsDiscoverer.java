@@ -1,5 +1,13 @@
 package com.castsoftware.dmt.discoverer.jee.bea;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
+
 import com.castsoftware.dmt.engine.discovery.BasicProjectsDiscovererAdapter;
 import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
 import com.castsoftware.dmt.engine.project.IProfileReadOnly;
@@ -7,10 +15,28 @@ import com.castsoftware.dmt.engine.project.Project;
 import com.castsoftware.util.logger.Logging;
 
 /**
- * Basic discoverer for
+ * Discoverer of the Workshop projects: the projects of the bea .work files, and when enabled the Eclipse-based Workshop
+ * projects described by .project files, in the same pass through the package
  */
 public class JeeBeaProjectsDiscoverer extends BasicProjectsDiscovererAdapter
 {
+    private String packageRootPath;
+    private WorkFilePrefetcher prefetcher;
+    private DiscoveryCache cache;
+    private LanguageDescriptor.Cache languages = new LanguageDescriptor.Cache();
+    // .work files which are not Workshop application files
+    private int rejectedFileCount;
+    // .project files which are not java projects
+    private int rejectedEclipseProjectCount;
+    private boolean isDiscoveringEclipseProjects;
+    // read by the thread cancelling the discovery
+    private volatile DiscoverySession session = DiscoverySession.createDefault();
+    private DiscoveryMetrics metrics = new DiscoveryMetrics();
+    private DiscoveryProgressListener progressListener;
+    private DiscoveryProgress progress = new DiscoveryProgress(0, null);
+    // .work files not discovered because the discovery was cancelled
+    private int cancelledFileCount;
+
     /**
      * Default constructor used by the discovery engine
      */
@@ -18,21 +44,320 @@ public class JeeBeaProjectsDiscoverer extends BasicProjectsDiscovererAdapter
     {
     }
 
+    /**
+     * Set the listener of the progress of the next discoveries
+     *
+     * @param listener
+     *            the listener, null to remove it
+     */
+    public void setProgressListener(DiscoveryProgressListener listener)
+    {
+        progressListener = listener;
+    }
+
+    /**
+     * Cancel the running discovery: the parsing of the current .work file is aborted, and the next .work files are not
+     * discovered. Can be called by any thread.
+     */
+    public void cancel()
+    {
+        session.getParseBudget().cancel();
+    }
+
+    @Override
+    public void startTree(String packageRootPath)
+    {
+        this.packageRootPath = packageRootPath;
+        languages = new LanguageDescriptor.Cache();
+        rejectedFileCount = 0;
+        rejectedEclipseProjectCount = 0;
+        cancelledFileCount = 0;
+        metrics = new DiscoveryMetrics();
+        metrics.register();
+
+        DiscoveryOptions options = DiscoveryOptions.fromSystemProperties();
+        session = DiscoverySession.create(getPackageFile(""), options);
+        isDiscoveringEclipseProjects = options.isDiscoveringEclipseProjects();
+        progress = new DiscoveryProgress(options.getProgressIntervalMillis(), progressListener);
+        if (options.isCacheEnabled())
+            loadCache(options);
+        if (options.getParallelism() > 1)
+            startPrefetcher(options.getParallelism());
+    }
+
+    @Override
+    public void endTree(String packageRootPath)
+    {
+        if (prefetcher != null)
+        {
+            prefetcher.close();
+            prefetcher = null;
+        }
+        if (cache != null)
+        {
+            cache.save();
+            Logging.info("cast.dmt.discover.jee.bea.cacheStatistics", "HITS", Integer.toString(cache.getHits()), "MISSES",
+                Integer.toString(cache.getMisses()), "EVICTIONS", Integer.toString(cache.getEvictions()), "ENTRIES",
+                Integer.toString(cache.size()));
+            cache = null;
+        }
+        if (rejectedFileCount > 0)
+            Logging.info("cast.dmt.discover.jee.bea.rejectedFiles", "COUNT", Integer.toString(rejectedFileCount));
+        if (rejectedEclipseProjectCount > 0)
+            Logging.info("cast.dmt.discover.jee.bea.rejectedEclipseProjects", "COUNT", Integer.toString(rejectedEclipseProjectCount));
+        if (cancelledFileCount > 0)
+            Logging.info("cast.dmt.discover.jee.bea.discoveryCancelled", "COUNT", Integer.toString(cancelledFileCount));
+        ProjectIndex index = session.getProjectIndex();
+        if (index != null)
+        {
+            int referenceCount = index.resolveDeferredEntries(metrics);
+            if (referenceCount > 0)
+                Logging.info("cast.dmt.discover.jee.bea.deferredProjectReferences", "COUNT", Integer.toString(referenceCount));
+        }
+        ProjectRegistry registry = session.getProjectRegistry();
+        if (registry != null && registry.getSharedCount() > 0)
+            Logging.info("cast.dmt.discover.jee.bea.sharedProjects", "COUNT", Integer.toString(registry.getSharedCount()),
+                "PROJECTS", Integer.toString(registry.size()));
+        PackageTree packageTree = session.getPackageTree();
+        if (packageTree != null)
+            packageTree.log();
+        metrics.log();
+        progress.end();
+        this.packageRootPath = null;
+    }
+
+    private void loadCache(DiscoveryOptions options)
+    {
+        Path cacheFile;
+        try
+        {
+            if (options.getCacheFile() != null)
+                cacheFile = Paths.get(options.getCacheFile());
+            else
+            {
+                // next to the package root folder
+                Path packageRoot = getPackageFile("");
+                if (packageRoot == null || packageRoot.toAbsolutePath().getParent() == null)
+                    return;
+                packageRoot = packageRoot.toAbsolutePath().normalize();
+                cacheFile = packageRoot.resolveSibling(packageRoot.getFileName().toString().concat(".jeebea.cache"));
+            }
+        }
+        catch (InvalidPathException e)
+        {
+            return;
+        }
+        cache = DiscoveryCache.load(cacheFile, options.getCacheMaxEntries());
+    }
+
+    private void startPrefetcher(int parallelism)
+    {
+        Path packageRoot = getPackageFile("");
+        if (packageRoot == null || !Files.isDirectory(packageRoot))
+            return;
+
+        Set<String> cachedKeys = cache != null ? cache.keys() : Collections.<String> emptySet();
+        prefetcher = new WorkFilePrefetcher(packageRoot, parallelism, session.getParseBudget(), cachedKeys);
+        try
+        {
+            int fileCount = prefetcher.start();
+            Logging.info("cast.dmt.discover.jee.bea.startParallelParsing", "COUNT", Integer.toString(fileCount), "THREADS",
+                Integer.toString(parallelism));
+        }
+        catch (IOException e)
+        {
+            // the files not submitted are parsed in sequence
+            Logging.info("cast.dmt.discover.jee.bea.browsePackageFailure", "PATH", packageRootPath);
+        }
+    }
+
     @Override
     public void buildProject(String relativeFilePath, String content, Project project,
         IProjectsDiscovererUtilities projectsDiscovererUtilities)
     {
-    	Logging.info("cast.dmt.discover.jee.bea.startbuildProject","FILE",relativeFilePath);
         String projectDescriptor = project.getMetadata(IProfileReadOnly.METADATA_DESCRIPTOR).getValue();
-        if ((!projectDescriptor.endsWith(".work")) || (!parseProjectFile(project, content, projectsDiscovererUtilities)))
+        if (!isDiscoveringEclipseProjects && isEclipseDescriptor(projectDescriptor))
+        {
+            // left to the generic Eclipse discoverer: neither logged nor measured
+            projectsDiscovererUtilities.deleteProject(project.getId());
+            return;
+        }
+    	Logging.info("cast.dmt.discover.jee.bea.startbuildProject","FILE",relativeFilePath);
+        WorkFileMetrics fileMetrics = new WorkFileMetrics(relativeFilePath);
+        boolean isKept;
+        if (isEclipseDescriptor(projectDescriptor))
+            isKept = !isCancelled() && parseEclipseProject(project, relativeFilePath, content, projectsDiscovererUtilities, fileMetrics);
+        else
+            isKept = projectDescriptor.endsWith(".work") && !isCancelled() && isWorkshopFile(relativeFilePath, content)
+                && parseProjectFile(project, relativeFilePath, content, projectsDiscovererUtilities, fileMetrics);
+        if (!isKept)
+        {
             projectsDiscovererUtilities.deleteProject(project.getId());
+            fileMetrics.addDeletedProject();
+        }
+        metrics.record(fileMetrics);
+        progress.addFile(fileMetrics);
     	Logging.info("cast.dmt.discover.jee.bea.endbuildProject","FILE",relativeFilePath);
     }
 
-    private static boolean parseProjectFile(Project project, String content, IProjectsDiscovererUtilities projectsDiscovererUtilities)
+    /**
+     * @return {@code true} for the .project file of an Eclipse project
+     */
+    private static boolean isEclipseDescriptor(String projectDescriptor)
     {
-        ProjectFileScanner.scan(project, content, projectsDiscovererUtilities);
+        return projectDescriptor.equals(".project") || projectDescriptor.endsWith("/.project")
+            || projectDescriptor.endsWith("\\.project");
+    }
+
+    private boolean isCancelled()
+    {
+        if (!session.getParseBudget().isCancelled())
+            return false;
+        cancelledFileCount++;
+        return true;
+    }
+
+    private boolean isWorkshopFile(String relativeFilePath, String content)
+    {
+        if (WorkFileSignature.matches(content))
+            return true;
+        rejectedFileCount++;
+        Logging.info("cast.dmt.discover.jee.bea.rejectedFile", "FILE", relativeFilePath);
+        return false;
+    }
+
+    private boolean parseProjectFile(Project project, String relativeFilePath, String content, IProjectsDiscovererUtilities projectsDiscovererUtilities, WorkFileMetrics fileMetrics)
+    {
+        Object event = WorkFileEvents.beginResolveLanguages();
+        LanguageDescriptor projectLanguages = languages.get(projectsDiscovererUtilities, project.getType());
+        WorkFileEvents.endResolveLanguages(event, relativeFilePath, project.getType());
+
+        if (cache != null)
+        {
+            String key = DiscoveryCache.key(content);
+            RecordedScan recordedScan = cache.get(key);
+            if (recordedScan != null && prefetcher != null)
+                prefetcher.discard(relativeFilePath);
+            if (recordedScan == null)
+            {
+                recordedScan = recordScan(relativeFilePath, content, fileMetrics);
+                if (recordedScan.isOk())
+                    cache.put(key, recordedScan);
+            }
+            ProjectFileScanner.scan(project, recordedScan, projectLanguages, session, fileMetrics, projectsDiscovererUtilities);
+            // always false to drop the project created by default
+            return false;
+        }
+
+        if (prefetcher != null)
+        {
+            RecordedScan recordedScan = prefetcher.take(relativeFilePath);
+            if (recordedScan != null)
+            {
+                fileMetrics.addParse(recordedScan.getMetrics());
+                ProjectFileScanner.scan(project, recordedScan, projectLanguages, session, fileMetrics, projectsDiscovererUtilities);
+                // always false to drop the project created by default
+                return false;
+            }
+        }
+
+        Path projectFile = getProjectFile(relativeFilePath);
+        if (projectFile != null)
+        {
+            try
+            {
+                ProjectFileScanner.scan(project, projectFile, projectLanguages, session, fileMetrics, projectsDiscovererUtilities);
+                // always false to drop the project created by default
+                return false;
+            }
+            catch (IOException e)
+            {
+                Logging.info("cast.dmt.discover.jee.bea.readProjectFileFailure", "FILE", relativeFilePath);
+            }
+        }
+        ProjectFileScanner.scan(project, content, projectLanguages, session, fileMetrics, projectsDiscovererUtilities);
+        // always false to drop the project created by default
+        return false;
+    }
+
+    private boolean parseEclipseProject(Project project, String relativeFilePath, String content,
+        IProjectsDiscovererUtilities projectsDiscovererUtilities, WorkFileMetrics fileMetrics)
+    {
+        LanguageDescriptor projectLanguages = languages.get(projectsDiscovererUtilities, project.getType());
+        // the other descriptors are next to the .project file
+        if (!ProjectFileScanner.scanEclipseProject(project, content, getProjectFile(relativeFilePath), projectLanguages, session,
+            fileMetrics, projectsDiscovererUtilities))
+            rejectedEclipseProjectCount++;
         // always false to drop the project created by default
         return false;
     }
+
+    /**
+     * Parse a .work file without interpreting it
+     */
+    private RecordedScan recordScan(String relativeFilePath, String content, WorkFileMetrics fileMetrics)
+    {
+        if (prefetcher != null)
+        {
+            RecordedScan recordedScan = prefetcher.take(relativeFilePath);
+            if (recordedScan != null)
+            {
+                fileMetrics.addParse(recordedScan.getMetrics());
+                return recordedScan;
+            }
+        }
+
+        Path projectFile = getProjectFile(relativeFilePath);
+        if (projectFile != null)
+        {
+            try
+            {
+                RecordedScan recordedScan = new RecordedScan();
+                recordedScan.setOk(ProjectFileScanner.scan(recordedScan, relativeFilePath, projectFile, fileMetrics,
+                    session.getParseBudget()));
+                return recordedScan;
+            }
+            catch (IOException e)
+            {
+                Logging.info("cast.dmt.discover.jee.bea.readProjectFileFailure", "FILE", relativeFilePath);
+            }
+        }
+        RecordedScan recordedScan = new RecordedScan();
+        recordedScan.setOk(ProjectFileScanner.scan(recordedScan, relativeFilePath, content, fileMetrics,
+            session.getParseBudget()));
+        return recordedScan;
+    }
+
+    /**
+     * The .work file on the disk when the package root is available, so that it can be parsed as a stream.
+     *
+     * @return null if the file is not available
+     */
+    private Path getProjectFile(String relativeFilePath)
+    {
+        Path projectFile = getPackageFile(relativeFilePath);
+        if (projectFile != null && Files.isRegularFile(projectFile))
+            return projectFile;
+        return null;
+    }
+
+    /**
+     * The path of a package file on the disk
+     *
+     * @return null if the package root is not a local path
+     */
+    private Path getPackageFile(String relativeFilePath)
+    {
+        if (packageRootPath == null)
+            return null;
+        try
+        {
+            return Paths.get(packageRootPath, relativeFilePath);
+        }
+        catch (InvalidPathException e)
+        {
+            // not a local path
+            return null;
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration.ResourceTypeConfiguration;
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Language and resource type IDs of a project type, used to reference the sources and the resources of the projects.
+ */
+final class LanguageDescriptor
+{
+    /**
+     * Resolved descriptors of a discovery session, keyed by project type, so that the configuration is browsed once
+     * per project type.
+     */
+    static final class Cache
+    {
+        private final Map<String, LanguageDescriptor> descriptors;
+
+        Cache()
+        {
+            descriptors = new HashMap<String, LanguageDescriptor>();
+        }
+
+        /**
+         * The descriptor of a project type, resolved on first use
+         *
+         * @param projectsDiscovererUtilities
+         *            the discoverer utilities giving the project type configuration
+         * @param projectType
+         *            the project type
+         * @return the descriptor
+         */
+        LanguageDescriptor get(IProjectsDiscovererUtilities projectsDiscovererUtilities, String projectType)
+        {
+            LanguageDescriptor descriptor = descriptors.get(projectType);
+            if (descriptor == null)
+            {
+                descriptor = resolve(projectsDiscovererUtilities, projectType);
+                descriptors.put(projectType, descriptor);
+            }
+            return descriptor;
+        }
+    }
+
+    // used when the engine API does not give the resource types (7.3.x)
+    private static final int DEFAULT_JAVA_CONTAINER_LANGUAGE_ID = 1;
+
+    private final int javaLanguageId;
+    private final int javaContainerLanguageId;
+    private final int javaWebServerLanguageId;
+    private final int javaWebClientLanguageId;
+
+    private LanguageDescriptor(int javaLanguageId, int javaContainerLanguageId, int javaWebServerLanguageId,
+        int javaWebClientLanguageId)
+    {
+        this.javaLanguageId = javaLanguageId;
+        this.javaContainerLanguageId = javaContainerLanguageId;
+        this.javaWebServerLanguageId = javaWebServerLanguageId;
+        this.javaWebClientLanguageId = javaWebClientLanguageId;
+    }
+
+    /**
+     * Resolve the IDs from the project type configuration
+     *
+     * @param projectsDiscovererUtilities
+     *            the discoverer utilities giving the project type configuration
+     * @param projectType
+     *            the project type
+     * @return the descriptor, with -1 for the IDs not found
+     */
+    static LanguageDescriptor resolve(IProjectsDiscovererUtilities projectsDiscovererUtilities, String projectType)
+    {
+        int javaLanguageId = -1;
+        int javaContainerLanguageId = -1;
+        int javaWebServerLanguageId = -1;
+        int javaWebClientLanguageId = -1;
+
+        for (LanguageConfiguration languageConfiguration : projectsDiscovererUtilities.getProjectTypeConfiguration(projectType).getLanguageConfigurations())
+        {
+            int languageId = languageConfiguration.getLanguageId();
+            if ("JavaLanguage".equals(languageConfiguration.getLanguageName()))
+            {
+                javaLanguageId = languageId;
+                javaContainerLanguageId = getResourceTypeId(languageConfiguration, "JavaContainerLanguage");
+            }
+            else if ("JavaWebServerLanguage".equals(languageConfiguration.getLanguageName()))
+            {
+                javaWebServerLanguageId = languageId;
+            }
+            else if ("JavaWebClientLanguage".equals(languageConfiguration.getLanguageName()))
+            {
+                javaWebClientLanguageId = languageId;
+            }
+        }
+        if (javaLanguageId == -1)
+        {
+            Logging.managedError("cast.dmt.discover.jee.bea.getJavaLanguageFailure");
+        }
+        else if (javaContainerLanguageId == -1)
+        {
+            Logging.managedError("cast.dmt.discover.jee.bea.getJavaContainerLanguageFailure");
+            javaContainerLanguageId = DEFAULT_JAVA_CONTAINER_LANGUAGE_ID;
+        }
+
+        return new LanguageDescriptor(javaLanguageId, javaContainerLanguageId, javaWebServerLanguageId, javaWebClientLanguageId);
+    }
+
+    private static int getResourceTypeId(LanguageConfiguration languageConfiguration, String resourceTypeName)
+    {
+        for (ResourceTypeConfiguration resourceTypeConfiguration : languageConfiguration.getResourceTypeConfigurations())
+        {
+            if (resourceTypeName.equals(resourceTypeConfiguration.getResourceTypeName()))
+                return resourceTypeConfiguration.getResourceTypeId();
+        }
+        return -1;
+    }
+
+    int getJavaLanguageId()
+    {
+        return javaLanguageId;
+    }
+
+    /**
+     * @return the resource type of the jar files and class folders, within the java language
+     */
+    int getJavaContainerLanguageId()
+    {
+        return javaContainerLanguageId;
+    }
+
+    int getJavaWebServerLanguageId()
+    {
+        return javaWebServerLanguageId;
+    }
+
+    int getJavaWebClientLanguageId()
+    {
+        return javaWebClientLanguageId;
+    }
+}
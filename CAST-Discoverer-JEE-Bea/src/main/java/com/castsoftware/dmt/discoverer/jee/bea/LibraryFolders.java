@@ -0,0 +1,106 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Jars of the APP-INF/lib folders of the applications of a package, listed once per folder and shared by all the
+ * projects of the application.
+ * <p>
+ * Used by the discovery thread only.
+ */
+final class LibraryFolders
+{
+    // the folder cannot be listed
+    private static final String[] NOT_LISTED = new String[0];
+
+    private final Path packageRoot;
+    private final Map<String, String[]> jars;
+
+    /**
+     * @param packageRoot
+     *            the package root on the disk, null if not available
+     */
+    LibraryFolders(Path packageRoot)
+    {
+        this.packageRoot = packageRoot;
+        jars = new HashMap<String, String[]>();
+    }
+
+    /**
+     * The jars of a library folder, sorted by name
+     *
+     * @param folder
+     *            the canonical path of the folder, relative to the package root or absolute
+     * @param paths
+     *            the canonical paths of the package, giving the paths of the jars
+     * @return the canonical paths of the jars, null if the folder cannot be listed
+     */
+    String[] list(String folder, PathTable paths)
+    {
+        String[] folderJars = jars.get(folder);
+        if (folderJars == null)
+        {
+            folderJars = listJars(folder, paths);
+            jars.put(folder, folderJars);
+        }
+        return folderJars == NOT_LISTED ? null : folderJars;
+    }
+
+    private String[] listJars(String folder, PathTable paths)
+    {
+        if (packageRoot == null)
+            return NOT_LISTED;
+        Path directory;
+        try
+        {
+            directory = new File(folder).isAbsolute() ? Paths.get(folder) : packageRoot.resolve(folder);
+        }
+        catch (InvalidPathException e)
+        {
+            return NOT_LISTED;
+        }
+        if (!Files.isDirectory(directory))
+            return NOT_LISTED;
+
+        List<String> names = new ArrayList<String>();
+        try
+        {
+            DirectoryStream<Path> stream = Files.newDirectoryStream(directory);
+            try
+            {
+                for (Path file : stream)
+                {
+                    String name = file.getFileName().toString();
+                    if (name.toLowerCase(Locale.ENGLISH).endsWith(".jar") && Files.isRegularFile(file))
+                        names.add(name);
+                }
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            return NOT_LISTED;
+        }
+        Collections.sort(names);
+
+        String[] folderJars = new String[names.size()];
+        for (int i = 0; i < folderJars.length; i++)
+            folderJars[i] = paths.intern(folder.concat("/").concat(names.get(i)));
+        return folderJars;
+    }
+}
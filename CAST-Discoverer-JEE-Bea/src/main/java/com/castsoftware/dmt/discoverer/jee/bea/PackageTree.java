@@ -0,0 +1,183 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Files and folders delivered in a package, indexed by lower case path relative to the package root, so that the
+ * project folders, source folders and class path entries which were not delivered are dropped instead of being looked
+ * up one at a time by the engine.
+ * <p>
+ * The package is browsed once, when the first path is looked up. The paths outside the package root cannot be checked
+ * and are kept. The dropped paths are reported in a single summary when the discovery ends.
+ * <p>
+ * Used by the discovery thread only.
+ */
+final class PackageTree
+{
+    /**
+     * Kind of path dropped because it was not delivered
+     */
+    enum Kind
+    {
+        PROJECT, SOURCE_FOLDER, CLASSPATH
+    }
+
+    /**
+     * Number of dropped paths listed by the summary
+     */
+    static final int MAX_REPORTED_PATHS = 10;
+
+    private final Path packageRoot;
+    // null until the package is browsed
+    private Set<String> paths;
+    // false if the package could not be browsed, every path is then kept
+    private boolean isBrowsed;
+    private final int[] danglingCounts;
+    private final List<String> reportedPaths;
+
+    /**
+     * @param packageRoot
+     *            the package root on the disk
+     */
+    PackageTree(Path packageRoot)
+    {
+        this.packageRoot = packageRoot.toAbsolutePath().normalize();
+        danglingCounts = new int[Kind.values().length];
+        reportedPaths = new ArrayList<String>();
+    }
+
+    /**
+     * Check that a path was delivered, and count it as dangling otherwise
+     *
+     * @param path
+     *            the path, relative to the package root or absolute
+     * @param kind
+     *            the kind of path, for the summary
+     * @return {@code false} if the path is in the package root and was not delivered
+     */
+    boolean check(String path, Kind kind)
+    {
+        String key = toKey(path);
+        if (key == null || getPaths().contains(key) || !isBrowsed)
+            return true;
+        danglingCounts[kind.ordinal()]++;
+        if (reportedPaths.size() < MAX_REPORTED_PATHS)
+            reportedPaths.add(path);
+        return false;
+    }
+
+    /**
+     * @return the number of paths of a kind which were not delivered
+     */
+    int getDanglingCount(Kind kind)
+    {
+        return danglingCounts[kind.ordinal()];
+    }
+
+    /**
+     * Report the paths which were not delivered, if any
+     */
+    void log()
+    {
+        int total = 0;
+        for (int count : danglingCounts)
+            total += count;
+        if (total == 0)
+            return;
+        StringBuilder builder = new StringBuilder();
+        for (String path : reportedPaths)
+        {
+            if (builder.length() > 0)
+                builder.append(' ');
+            builder.append(path);
+        }
+        if (total > reportedPaths.size())
+            builder.append(" ...");
+        Logging.info("cast.dmt.discover.jee.bea.danglingPaths", "PROJECTS",
+            Integer.toString(getDanglingCount(Kind.PROJECT)), "SOURCE_FOLDERS",
+            Integer.toString(getDanglingCount(Kind.SOURCE_FOLDER)), "CLASSPATHS",
+            Integer.toString(getDanglingCount(Kind.CLASSPATH)), "PATHS", builder.toString());
+    }
+
+    /**
+     * @return null if the path is not in the package root
+     */
+    private String toKey(String path)
+    {
+        Path file;
+        try
+        {
+            file = (new File(path).isAbsolute() ? Paths.get(path) : packageRoot.resolve(path)).normalize();
+        }
+        catch (InvalidPathException e)
+        {
+            return null;
+        }
+        if (!file.startsWith(packageRoot))
+            return null;
+        return toKey(packageRoot.relativize(file));
+    }
+
+    private static String toKey(Path relativePath)
+    {
+        return relativePath.toString().replace('\\', '/').toLowerCase(Locale.ENGLISH);
+    }
+
+    private Set<String> getPaths()
+    {
+        if (paths == null)
+        {
+            final Set<String> delivered = new HashSet<String>();
+            isBrowsed = true;
+            try
+            {
+                Files.walkFileTree(packageRoot, new SimpleFileVisitor<Path>()
+                {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    {
+                        delivered.add(toKey(packageRoot.relativize(dir)));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    {
+                        delivered.add(toKey(packageRoot.relativize(file)));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc)
+                    {
+                        // kept, it may be there
+                        delivered.add(toKey(packageRoot.relativize(file)));
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            catch (IOException e)
+            {
+                Logging.info("cast.dmt.discover.jee.bea.indexPackageFailure", "PATH", packageRoot.toString());
+                isBrowsed = false;
+            }
+            paths = delivered;
+        }
+        return paths;
+    }
+}
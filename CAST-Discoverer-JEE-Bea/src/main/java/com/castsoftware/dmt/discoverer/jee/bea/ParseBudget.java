@@ -0,0 +1,92 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+/**
+ * Limits of the parsing of each .work file of a discovery, and cancellation of the running parsings.
+ * <p>
+ * The parsing of a file fails when it is larger or its elements are nested deeper than the budget. It is aborted when
+ * it visits more elements or takes longer than the budget, or when the discovery is cancelled. The budget is shared by the threads parsing the files of the discovery.
+ */
+final class ParseBudget
+{
+    private final long maxFileSize;
+    private final int maxElementDepth;
+    private final long maxElementCount;
+    private final long maxParseNanos;
+    private volatile boolean isCancelled;
+
+    /**
+     * @param maxFileSize
+     *            the maximum number of characters of a file
+     * @param maxElementDepth
+     *            the maximum nesting depth of the elements of a file
+     * @param maxElementCount
+     *            the maximum number of elements of a file, 0 for no limit
+     * @param maxParseMillis
+     *            the maximum time spent parsing a file, in milliseconds, 0 for no limit
+     */
+    ParseBudget(long maxFileSize, int maxElementDepth, long maxElementCount, long maxParseMillis)
+    {
+        this.maxFileSize = maxFileSize;
+        this.maxElementDepth = maxElementDepth;
+        this.maxElementCount = maxElementCount <= 0 ? Long.MAX_VALUE : maxElementCount;
+        maxParseNanos = maxParseMillis <= 0 ? 0 : maxParseMillis * 1000000L;
+    }
+
+    /**
+     * The budget of a discovery
+     *
+     * @param options
+     *            the options of the discovery
+     * @return a budget which is not cancelled
+     */
+    static ParseBudget create(DiscoveryOptions options)
+    {
+        return new ParseBudget(options.getMaxFileSize(), options.getMaxElementDepth(), options.getMaxElementCount(),
+            options.getMaxParseMillis());
+    }
+
+    /**
+     * @return the maximum number of characters of a file
+     */
+    long getMaxFileSize()
+    {
+        return maxFileSize;
+    }
+
+    /**
+     * @return the maximum nesting depth of the elements of a file
+     */
+    int getMaxElementDepth()
+    {
+        return maxElementDepth;
+    }
+
+    /**
+     * @return the maximum number of elements of a file, {@link Long#MAX_VALUE} if not limited
+     */
+    long getMaxElementCount()
+    {
+        return maxElementCount;
+    }
+
+    /**
+     * @return the maximum time spent parsing a file, in nanoseconds, 0 if not limited
+     */
+    long getMaxParseNanos()
+    {
+        return maxParseNanos;
+    }
+
+    /**
+     * Abort the running parsings and the ones not started yet
+     */
+    void cancel()
+    {
+        isCancelled = true;
+    }
+
+    boolean isCancelled()
+    {
+        return isCancelled;
+    }
+}
@@ -0,0 +1,187 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Canonical paths of the references of a package, shared by all its projects.
+ * <p>
+ * The paths are stored as a trie of segments, so that the same folder is referenced by all the projects through the
+ * same string, whatever the spelling, and that the ancestors of a path are found without comparing strings. The . and
+ * .. segments are resolved, so that ./a/../b and b are the same path. The root of an absolute path (/, // of a UNC
+ * path, or a drive such as c:/) is a segment of its own, so that /opt/lib and opt/lib are different paths.
+ * <p>
+ * The segments are compared case insensitively, / and \ being equivalent: this is the WindowsNTFS collation with which
+ * the J2EE project type of dmtdevjeetechno declares all the languages and resource types referenced by this
+ * discoverer, so the engine never tells apart two paths merged by the table. Should a language be declared with a
+ * case sensitive collation, two folders differing by the case only would be referenced through one spelling.
+ */
+final class PathTable
+{
+    /**
+     * Segment of a path
+     */
+    private static final class Node
+    {
+        private final Node parent;
+        // the segment is .. above the root of the relative paths
+        private final boolean isParentSegment;
+        // the segment is the root of the absolute paths, .. stays on it
+        private final boolean isRootSegment;
+        private Map<String, Node> children;
+        // canonical spelling of the path ending with this segment, null if never interned
+        private String path;
+
+        private Node(Node parent, boolean isParentSegment, boolean isRootSegment)
+        {
+            this.parent = parent;
+            this.isParentSegment = isParentSegment;
+            this.isRootSegment = isRootSegment;
+        }
+
+        private Node getChild(String key, boolean isCreated, boolean isRootSegment)
+        {
+            Node child = children == null ? null : children.get(key);
+            if (child == null && isCreated)
+            {
+                if (children == null)
+                    children = new HashMap<String, Node>(4);
+                child = new Node(this, !isRootSegment && "..".equals(key), isRootSegment);
+                children.put(key, child);
+            }
+            return child;
+        }
+    }
+
+    private final Node root;
+    private int size;
+
+    PathTable()
+    {
+        root = new Node(null, false, false);
+    }
+
+    /**
+     * The canonical spelling of a path, the first one interned among the equivalent paths
+     *
+     * @param path
+     *            the path, may be null
+     * @return the canonical path, null if the path is null
+     */
+    String intern(String path)
+    {
+        if (path == null)
+            return null;
+        Node node = find(path, true);
+        if (node.path == null)
+        {
+            node.path = path;
+            size++;
+        }
+        return node.path;
+    }
+
+    /**
+     * The canonical spelling of a path, without interning it
+     *
+     * @param path
+     *            the path
+     * @return the canonical path, null if no equivalent path was interned
+     */
+    String get(String path)
+    {
+        Node node = find(path, false);
+        return node == null ? null : node.path;
+    }
+
+    /**
+     * Check that a path is a folder or one of its ancestors. The folder must have been interned.
+     *
+     * @param path
+     *            the path
+     * @param folder
+     *            the interned folder
+     * @return {@code true} if the path is equivalent to the folder or to one of its ancestors
+     */
+    boolean isSameOrAncestor(String path, String folder)
+    {
+        Node pathNode = find(path, false);
+        if (pathNode == null)
+            // the ancestors of the interned folders are all in the table
+            return false;
+        for (Node node = find(folder, false); node != null; node = node.parent)
+        {
+            if (node == pathNode)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of canonical paths
+     */
+    int size()
+    {
+        return size;
+    }
+
+    private Node find(String path, boolean isCreated)
+    {
+        Node node = root;
+        int length = path.length();
+        int start = getRootLength(path);
+        if (start > 0)
+            node = root.getChild(path.substring(0, start).replace('\\', '/').toLowerCase(Locale.ENGLISH), isCreated, true);
+        // number of segments below node missing from the table, left by the .. segments which follow them
+        int missingDepth = 0;
+        while (start < length && node != null)
+        {
+            int end = start;
+            while (end < length && path.charAt(end) != '/' && path.charAt(end) != '\\')
+                end++;
+            // empty segments (//, trailing /) and . are ignored
+            if (end > start && !(end == start + 1 && path.charAt(start) == '.'))
+            {
+                boolean isParentSegment = end == start + 2 && path.charAt(start) == '.' && path.charAt(start + 1) == '.';
+                if (missingDepth > 0)
+                    missingDepth += isParentSegment ? -1 : 1;
+                else if (isParentSegment && node.isRootSegment)
+                {
+                    // nothing above the root of an absolute path
+                }
+                else if (isParentSegment && node != root && !node.isParentSegment)
+                    node = node.parent;
+                else
+                {
+                    Node child = node.getChild(path.substring(start, end).toLowerCase(Locale.ENGLISH), isCreated, false);
+                    // a missing .. above the root of the relative paths has no equivalent path
+                    if (child == null && !isParentSegment)
+                        missingDepth = 1;
+                    else
+                        node = child;
+                }
+            }
+            start = end + 1;
+        }
+        return missingDepth > 0 ? null : node;
+    }
+
+    /**
+     * The root of an absolute path: a drive (c:), followed or not by a separator, a leading separator, or two for a UNC
+     * path
+     *
+     * @return the length of the root, 0 for a relative path
+     */
+    private static int getRootLength(String path)
+    {
+        int length = path.length();
+        int start = 0;
+        if (length >= 2 && path.charAt(1) == ':' && Character.isLetter(path.charAt(0)))
+            start = 2;
+        int end = start;
+        while (end < length && end < start + 2 && (path.charAt(end) == '/' || path.charAt(end) == '\\'))
+            end++;
+        return end;
+    }
+}
@@ -0,0 +1,147 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Dependencies between the projects declared in the {@code <projects>} element of a bea .work file. The projects are
+ * identified by their index in the .work file.
+ * <p>
+ * By default the projects are linked all to all. The dependencies inferred from the class path entries and the
+ * project.dependencies options of the projects can be recorded instead.
+ */
+class ProjectDependencies
+{
+    /**
+     * Receiver of the project references computed from the dependencies
+     */
+    interface IProjectReferenceRecorder
+    {
+        /**
+         * Add a reference between two projects
+         *
+         * @param project
+         *            the index of the referencing project
+         * @param referencedProject
+         *            the index of the referenced project
+         */
+        void addProjectReference(int project, int referencedProject);
+    }
+
+    private final BitSet javaProjects;
+    private final BitSet webProjects;
+    private final BitSet ejbProjects;
+    // the inferred dependencies, by project, null for the projects without any
+    private BitSet[] inferredDependencies;
+
+    ProjectDependencies()
+    {
+        javaProjects = new BitSet();
+        webProjects = new BitSet();
+        ejbProjects = new BitSet();
+        inferredDependencies = new BitSet[0];
+    }
+
+    void addJavaProject(int project)
+    {
+        javaProjects.set(project);
+    }
+
+    void addWebProject(int project)
+    {
+        webProjects.set(project);
+    }
+
+    void addEjbProject(int project)
+    {
+        ejbProjects.set(project);
+    }
+
+    /**
+     * Add a dependency inferred from the .work file, a project never depending on itself
+     *
+     * @param project
+     *            the index of the referencing project
+     * @param referencedProject
+     *            the index of the referenced project
+     */
+    void addInferredDependency(int project, int referencedProject)
+    {
+        if (project == referencedProject)
+            return;
+        if (project >= inferredDependencies.length)
+            inferredDependencies = Arrays.copyOf(inferredDependencies, Math.max(project + 1, inferredDependencies.length * 2));
+        if (inferredDependencies[project] == null)
+            inferredDependencies[project] = new BitSet();
+        inferredDependencies[project].set(referencedProject);
+    }
+
+    /**
+     * @return {@code true} if at least one dependency was inferred
+     */
+    boolean hasInferredDependencies()
+    {
+        for (BitSet dependencies : inferredDependencies)
+        {
+            if (dependencies != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the inferred dependencies, in the order of the projects. Each reference is recorded exactly once.
+     *
+     * @param recorder
+     *            the receiver of the references
+     */
+    void recordInferred(IProjectReferenceRecorder recorder)
+    {
+        for (int project = 0; project < inferredDependencies.length; project++)
+        {
+            BitSet dependencies = inferredDependencies[project];
+            if (dependencies == null)
+                continue;
+            for (int dep = dependencies.nextSetBit(0); dep >= 0; dep = dependencies.nextSetBit(dep + 1))
+                recorder.addProjectReference(project, dep);
+        }
+    }
+
+    /**
+     * Record the references between the projects, in the order of the projects. Each reference is recorded exactly
+     * once:
+     * <ul>
+     * <li>each java project references all the other java projects</li>
+     * <li>each web and ejb project references all the java projects</li>
+     * </ul>
+     * The java projects are only linked together when they are used by at least one web or ejb project.
+     *
+     * @param recorder
+     *            the receiver of the references
+     */
+    void record(IProjectReferenceRecorder recorder)
+    {
+        if (webProjects.isEmpty() && ejbProjects.isEmpty())
+            return;
+
+        for (int project = javaProjects.nextSetBit(0); project >= 0; project = javaProjects.nextSetBit(project + 1))
+        {
+            for (int dep = javaProjects.nextSetBit(0); dep >= 0; dep = javaProjects.nextSetBit(dep + 1))
+            {
+                if (dep != project)
+                    recorder.addProjectReference(project, dep);
+            }
+        }
+        recordJavaReferences(webProjects, recorder);
+        recordJavaReferences(ejbProjects, recorder);
+    }
+
+    private void recordJavaReferences(BitSet projects, IProjectReferenceRecorder recorder)
+    {
+        for (int project = projects.nextSetBit(0); project >= 0; project = projects.nextSetBit(project + 1))
+        {
+            for (int dep = javaProjects.nextSetBit(0); dep >= 0; dep = javaProjects.nextSetBit(dep + 1))
+                recorder.addProjectReference(project, dep);
+        }
+    }
+}
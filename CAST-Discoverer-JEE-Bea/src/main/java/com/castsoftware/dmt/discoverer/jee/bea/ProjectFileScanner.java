@@ -1,31 +1,51 @@
 package com.castsoftware.dmt.discoverer.jee.bea;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectRegistry.RegisteredProject;
 import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
-import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration;
 import com.castsoftware.dmt.engine.project.Profile;
 import com.castsoftware.dmt.engine.project.Project;
-import com.castsoftware.util.StringHelper;
 import com.castsoftware.util.logger.Logging;
-import com.castsoftware.util.xml.AbstractXMLFileReader;
 import com.castsoftware.util.xml.IInterpreter;
 
 /**
- * Scanner for bea .work files.
+ * Scanner for bea .work files and for the descriptors of the Eclipse-based Workshop projects.
  */
 public class ProjectFileScanner
 {
     protected static final String META_JSP_WEB_ROOT = "applicationRootPath";
     protected static final String META_JSP_WEB_APPDESCRIPTOR = "applicationDescriptor";
+    /**
+     * Class path of an Eclipse-based Workshop project, next to its .project file
+     */
+    static final String CLASSPATH_FILE = ".classpath";
+    /**
+     * Web module of an Eclipse-based Workshop project, relative to the folder of its .project file
+     */
+    static final String COMPONENT_FILE = ".settings/org.eclipse.wst.common.component";
+    /**
+     * Facets and runtime of an Eclipse-based Workshop project, relative to the folder of its .project file
+     */
+    static final String FACET_FILE = ".settings/org.eclipse.wst.common.project.facet.core.xml";
     /**
      * Interpreter of a bea .work file
      */
@@ -62,6 +82,14 @@ public class ProjectFileScanner
          */
         void setProjectPath(String path);
 
+        /**
+         * Set the projects of the .work file the project depends on
+         *
+         * @param dependencies
+         *            the project.dependencies option of the project: the names of the projects, separated by ;
+         */
+        void setProjectDependencies(String dependencies);
+
         /**
          * Adding the source folders to the project
          *
@@ -82,14 +110,55 @@ public class ProjectFileScanner
          */
         void addClasspaths();
 
+        /**
+         * Adding a source path defined in a compilation unit to the list
+         *
+         * @param sourcepath
+         *            the added source path (folders separated by ;)
+         */
+        void addSourcepath(String sourcepath);
+
+        /**
+         * Set the folders excluded from the application
+         *
+         * @param excludedDirectories
+         *            the names of the excluded folders, separated by ;
+         */
+        void setExcludedDirectories(String excludedDirectories);
+
+        /**
+         * Set the output directory of the EAR build of the application
+         *
+         * @param outputDirectory
+         *            the output.directory option of the EARBuild node
+         */
+        void setOutputDirectory(String outputDirectory);
+
         /**
          * Adding the dependencies between projects
          *
          */
         void addProjectDependencies();
+
+        /**
+         * Set the folder of the web content of the web project, when it is not the project folder
+         *
+         * @param webContentPath
+         *            the folder, relative to the project folder
+         */
+        void setWebContentPath(String webContentPath);
+
+        /**
+         * The projects are described by Eclipse descriptors instead of a .work file: their class path is complete, the
+         * APP-INF/lib folder of the EAR build is not implied.
+         */
+        void setEclipseWorkspace();
     }
 
-    private static class ProjectRecorder implements IProjectInterpreter
+    /**
+     * Creation of the projects of a parsed .work file
+     */
+    private static class ProjectMaterializer implements ProjectDependencies.IProjectReferenceRecorder
     {
     	private final IProjectsDiscovererUtilities projectsDiscovererUtilities;
         private final Project project;
@@ -97,17 +166,25 @@ public class ProjectFileScanner
         private final int javaContainerLanguageId;
         private final int  javaWebServerLanguage;
         private final int javaWebClientLanguage;
+        private final DiscoverySession session;
+        private final PathTable paths;
+        private final WorkFileMetrics metrics;
 
-        private Project currentProject;
-        private final Set<String> classpaths;
-        private final Set<String> sourcepaths;
-        private String projectPath;
-        private String projectType;
-        private final Set<String> javaProjects;
-        private final Set<String> webProjects;
-        private final Set<String> ejbProjects;
+        // the projects created or shared with a previous .work file, by index in the model, null if not delivered
+        private RegisteredProject[] createdProjects;
+        private ClasspathVariables classpathVariables;
+        // the class path entries resolved, by id in the model
+        private String[] resolvedClasspaths;
+        private BitSet unsupportedClasspaths;
+        private String outputPath;
+        private String libPath;
+        // the jars of the lib folder, null if it cannot be listed
+        private String[] libJars;
+        // the projects of the model by canonical folder and by output jar, null if the dependencies are not inferred
+        private Map<String, Integer> projectFolders;
+        private Map<String, Integer> projectOutputs;
 
-        private ProjectRecorder(IProjectsDiscovererUtilities projectsDiscovererUtilities, Project project, int javaLanguageId, int javaContainerLanguageId, int javaWebServerLanguage, int javaWebClientLanguage)
+        private ProjectMaterializer(IProjectsDiscovererUtilities projectsDiscovererUtilities, Project project, int javaLanguageId, int javaContainerLanguageId, int javaWebServerLanguage, int javaWebClientLanguage, DiscoverySession session, WorkFileMetrics metrics)
         {
         	this.projectsDiscovererUtilities = projectsDiscovererUtilities;
         	this.project = project;
@@ -115,394 +192,1025 @@ public class ProjectFileScanner
             this.javaContainerLanguageId = javaContainerLanguageId;
             this.javaWebServerLanguage = javaWebServerLanguage;
             this.javaWebClientLanguage = javaWebClientLanguage;
-
-        	currentProject = null;
-        	classpaths = new HashSet<String>();
-        	sourcepaths = new HashSet<String>();
-            javaProjects = new HashSet<String>();
-            webProjects = new HashSet<String>();
-            ejbProjects = new HashSet<String>();
+            this.session = session;
+            paths = session.getPathTable();
+            this.metrics = metrics;
         }
 
-        @Override
-        public void init()
+        /**
+         * Create the projects of the model
+         *
+         * @param model
+         *            the parsed .work file
+         */
+        private void materialize(WorkspaceModel model)
         {
-            // ignore
+            createdProjects = new RegisteredProject[model.getProjectCount()];
+            ProjectRegistry registry = session.getProjectRegistry();
+            ProjectIndex index = session.getProjectIndex();
+            classpathVariables = ClasspathVariables.create(model, project.getPath(), session.getClasspathVariables());
+            resolvedClasspaths = new String[model.getStringCount()];
+            unsupportedClasspaths = new BitSet();
+            // implicit classpath of all the projects of a .work file
+            // <component name="com.bea.ide.workspace.IWorkspace">
+            // <node name="EARBuild">
+            // <option name="output.directory" value="." />
+            // the class path of an Eclipse project is complete
+            if (!model.isEclipseWorkspace())
+            {
+                outputPath = getOutputDirectory(model);
+                libPath = paths.intern(outputPath.concat("/APP-INF/lib"));
+                libJars = session.getLibraryFolders().list(libPath, paths);
+            }
+            if (session.isInferringDependencies() && model.hasDependencies())
+                addDeclaredDependencies(model);
+            for (int i = 0; i < model.getProjectCount(); i++)
+            {
+                String projectPath = model.getProjectPath(i);
+                if (projectPath != null)
+                {
+                    projectPath = paths.intern(project.getPath().concat(projectPath.substring(1)));
+                    if (!isDelivered(projectPath, PackageTree.Kind.PROJECT))
+                        continue;
+                }
+                WorkshopProjectType projectType = model.getProjectType(i);
+                Object event = WorkFileEvents.beginCreateProject();
+                int referenceCount = metrics.getReferenceCount();
+                // the same folder declared by another .work file
+                RegisteredProject currentProject = registry == null || projectPath == null ? null : registry.get(projectPath, projectType);
+                boolean isCreated = currentProject == null;
+                if (isCreated)
+                {
+                    Project createdProject = addProject(model.getProjectName(i), model.getProjectTypeUrn(i), projectPath);
+                    metrics.addProject(projectType);
+                    if (registry == null || projectPath == null)
+                        currentProject = new RegisteredProject(createdProject);
+                    else
+                        currentProject = registry.register(projectPath, projectType, createdProject);
+                    if (index != null)
+                        index.add(currentProject, projectPath, getOutput(model.getProjectName(i), projectType));
+                }
+                createdProjects[i] = currentProject;
+                addProjectSourceFolders(currentProject, model, i, projectPath, isCreated);
+                WorkFileEvents.endCreateProject(event, metrics.getFilePath(), model.getProjectName(i), projectType,
+                    metrics.getReferenceCount() - referenceCount);
+
+                event = WorkFileEvents.beginExpandClasspath();
+                referenceCount = metrics.getReferenceCount();
+                addClasspaths(currentProject, model, i, projectPath);
+                // otherwise flushed once the dependencies of the .work file are added
+                if (!model.hasDependencies())
+                    currentProject.flush();
+                WorkFileEvents.endExpandClasspath(event, metrics.getFilePath(), model.getProjectName(i), model.getClasspathCount(i),
+                    metrics.getReferenceCount() - referenceCount);
+            }
+            if (model.hasDependencies())
+            {
+                Object event = WorkFileEvents.beginWireDependencies();
+                int referenceCount = metrics.getReferenceCount();
+                ProjectDependencies dependencies = model.getDependencies();
+                if (projectFolders != null && dependencies.hasInferredDependencies())
+                    dependencies.recordInferred(this);
+                else
+                {
+                    if (projectFolders != null)
+                        Logging.info("cast.dmt.discover.jee.bea.noInferredDependencies", "FILE", metrics.getFilePath());
+                    dependencies.record(this);
+                }
+                for (RegisteredProject createdProject : createdProjects)
+                {
+                    if (createdProject != null)
+                        createdProject.flush();
+                }
+                WorkFileEvents.endWireDependencies(event, metrics.getFilePath(), model.getProjectCount(),
+                    metrics.getReferenceCount() - referenceCount);
+            }
+            createdProjects = null;
+            classpathVariables = null;
+            resolvedClasspaths = null;
+            unsupportedClasspaths = null;
+            outputPath = null;
+            libPath = null;
+            libJars = null;
+            projectFolders = null;
+            projectOutputs = null;
         }
 
-        @Override
-        public void done()
+        /**
+         * Index the folders and the output jars of the projects of the model, and add the dependencies declared by the
+         * project.dependencies options. The projects declared by other .work files are not known by name.
+         */
+        private void addDeclaredDependencies(WorkspaceModel model)
         {
-            // ignore
+            projectFolders = new HashMap<String, Integer>();
+            projectOutputs = new HashMap<String, Integer>();
+            Map<String, Integer> projectNames = new HashMap<String, Integer>();
+            for (int i = 0; i < model.getProjectCount(); i++)
+            {
+                Integer projectIndex = Integer.valueOf(i);
+                projectNames.put(model.getProjectName(i), projectIndex);
+                if (model.getProjectPath(i) != null)
+                    projectFolders.put(paths.intern(project.getPath().concat(model.getProjectPath(i).substring(1))), projectIndex);
+                String output = getOutput(model.getProjectName(i), model.getProjectType(i));
+                if (output != null)
+                    projectOutputs.put(output, projectIndex);
+            }
+            ProjectDependencies dependencies = model.getDependencies();
+            for (int i = 0; i < model.getProjectCount(); i++)
+            {
+                for (int j = 0; j < model.getDeclaredDependencyCount(i); j++)
+                {
+                    Integer referencedProject = projectNames.get(model.getDeclaredDependency(i, j));
+                    if (referencedProject != null)
+                        dependencies.addInferredDependency(i, referencedProject.intValue());
+                }
+            }
         }
 
-        @Override
-        public void open(String resourceId)
+        /**
+         * Record the dependency on another project of the model when a class path entry is its folder or its output
+         * jar
+         *
+         * @return {@code true} if the entry points at another project of the model
+         */
+        private boolean addInferredDependency(WorkspaceModel model, int projectIndex, String location, boolean isJar)
         {
-            // ignore
+            if (projectFolders == null)
+                return false;
+            Integer referencedProject = (isJar ? projectOutputs : projectFolders).get(paths.intern(location));
+            if (referencedProject == null || referencedProject.intValue() == projectIndex)
+                return false;
+            model.getDependencies().addInferredDependency(projectIndex, referencedProject.intValue());
+            return true;
         }
 
-        @Override
-        public void close()
+        /**
+         * The output directory of the EAR build, relative to the .work file when it is not absolute
+         */
+        private String getOutputDirectory(WorkspaceModel model)
         {
-            // ignore
+            String outputDirectory = model.getOutputDirectory();
+            if (outputDirectory != null)
+                outputDirectory = classpathVariables.resolve(outputDirectory.trim().replace('\\', '/'));
+            while (outputDirectory != null && outputDirectory.endsWith("/") && outputDirectory.length() > 1)
+                outputDirectory = outputDirectory.substring(0, outputDirectory.length() - 1);
+            if (outputDirectory == null || outputDirectory.isEmpty() || ".".equals(outputDirectory))
+                return project.getPath();
+            if (outputDirectory.startsWith("./"))
+                return project.getPath().concat(outputDirectory.substring(1));
+            if (outputDirectory.startsWith("/") || new File(outputDirectory).isAbsolute()
+                || (outputDirectory.length() > 1 && outputDirectory.charAt(1) == ':'))
+                return outputDirectory;
+            return project.getPath().concat("/").concat(outputDirectory);
         }
 
-		@Override
-        public void addProject(String name)
+        /**
+         * The jar built by Workshop from a project: APP-INF/lib/name.jar for a java project, name.jar in the output
+         * directory for an EJB project
+         *
+         * @return null if the project builds no jar, or if it is an Eclipse project
+         */
+        private String getOutput(String name, WorkshopProjectType projectType)
         {
-			if (!"urn:com-bea-ide:project.type:Schema".equals(projectType))
-			{
-				String id = project.getId().concat("_").concat(name);
-				String resourceId = project.getResourceId().concat("_").concat(name);
-				currentProject = projectsDiscovererUtilities.createInitialProject(id, name, project.getType(), resourceId, projectPath);
-	            currentProject.addMetadata("beaType", projectType);
-			}
-			return;
-		}
+            if (outputPath == null)
+                return null;
+            switch (projectType)
+            {
+            case JAVA:
+                return paths.intern(libPath.concat("/").concat(name).concat(".jar"));
+            case EJB:
+                return paths.intern(outputPath.concat("/").concat(name).concat(".jar"));
+            default:
+                return null;
+            }
+        }
 
-		@Override
-        public void resetProject()
+        private Project addProject(String name, String projectType, String projectPath)
         {
-			//currentProject = null;
-            classpaths.clear();
-            sourcepaths.clear();
-            projectPath = null;
-            projectType = null;
-            return;
-		}
-        @Override
-        public void addProjectSourceFolders()
+            String id = project.getId().concat("_").concat(name);
+            String resourceId = project.getResourceId().concat("_").concat(name);
+            Project currentProject = projectsDiscovererUtilities.createInitialProject(id, name, project.getType(), resourceId, projectPath);
+            currentProject.addMetadata("beaType", projectType);
+            return currentProject;
+        }
+
+        private void addProjectSourceFolders(RegisteredProject currentProject, WorkspaceModel model, int projectIndex, String projectPath, boolean isCreated)
         {
-            if ("urn:com-bea-ide:project.type:Java".equals(projectType))
+            switch (model.getProjectType(projectIndex))
             {
-                javaProjects.add(currentProject.getId());
-
-                //String projectFolder = projectPath;
-                //if (projectFolder.startsWith("./"))
-                //	projectFolder = buildPackageRelativePath(currentProject, projectFolder.substring(2));
-
-                if (sourcepaths.size() == 0)
-                	//currentProject.addSourceDirectoryReference(projectFolder, javaLanguageId);
-                	currentProject.addSourceDirectoryReference(projectPath, javaLanguageId);
-                else
+            case JAVA:
+            case EJB:
+                if (projectPath == null)
                 {
-                	for (String sourcepath : sourcepaths)
-                	{
-                		//String sourceFolder = projectFolder.concat("/").concat(sourcepath);
-                		String sourceFolder = projectPath.concat("/").concat(sourcepath);
-                		currentProject.addSourceDirectoryReference(sourceFolder, javaLanguageId);
-                	}
+                    if (currentProject.addSourceDirectoryReference(projectPath, javaLanguageId))
+                        metrics.addReference();
+                    break;
                 }
-            }
-            else if ("urn:com-bea-ide:project.type:WebApp".equals(projectType))
-            {
-                webProjects.add(currentProject.getId());
-                //String sourceFolder = projectPath;
-                //if (sourceFolder.startsWith("./"))
-                //    sourceFolder = buildPackageRelativePath(currentProject, sourceFolder.substring(2));
-                //currentProject.addMetadata(META_JSP_WEB_APPDESCRIPTOR, sourceFolder.concat("/WEB-INF/web.xml"));
-                currentProject.addMetadata(META_JSP_WEB_APPDESCRIPTOR, projectPath.concat("/WEB-INF/web.xml"));
-                //currentProject.addMetadata(META_JSP_WEB_ROOT, sourceFolder);
-                currentProject.addMetadata(META_JSP_WEB_ROOT, projectPath);
-                //currentProject.addSourceDirectoryReference(sourceFolder, javaWebServerLanguage);
-                currentProject.addSourceDirectoryReference(projectPath, javaWebServerLanguage);
-                //currentProject.addSourceDirectoryReference(sourceFolder, javaWebClientLanguage);
-                currentProject.addSourceDirectoryReference(projectPath, javaWebClientLanguage);
-            }
-            else if ("urn:com-bea-ide:project.type:Schema".equals(projectType))
-            {
-            	// skip Schemas
-            }
-            else if ("urn:com-bea-ide:project.type:EJB".equals(projectType))
-            {
-                ejbProjects.add(currentProject.getId());
-
-                //String projectFolder = projectPath;
-                //if (projectFolder.startsWith("./"))
-                //	projectFolder = buildPackageRelativePath(currentProject, projectFolder.substring(2));
-
-                if (sourcepaths.size() == 0)
-                	//currentProject.addSourceDirectoryReference(projectFolder, javaLanguageId);
-                	currentProject.addSourceDirectoryReference(projectPath, javaLanguageId);
-                else
+                for (String sourceFolder : session.getSourceFolders().resolve(model, projectIndex, classpathVariables, project.getPath(), projectPath))
+                {
+                    if (isDelivered(sourceFolder, PackageTree.Kind.SOURCE_FOLDER)
+                        && currentProject.addSourceDirectoryReference(paths.intern(sourceFolder), javaLanguageId))
+                        metrics.addReference();
+                }
+                break;
+            case WEB_APP:
+                if (isCreated)
                 {
-                	for (String sourcepath : sourcepaths)
-                	{
-                		//String sourceFolder = projectFolder.concat("/").concat(sourcepath);
-                		String sourceFolder = projectPath.concat("/").concat(sourcepath);
-                		currentProject.addSourceDirectoryReference(sourceFolder, javaLanguageId);
-                	}
+                    String webRoot = projectPath;
+                    if (model.getWebContentPath(projectIndex) != null)
+                        webRoot = paths.intern(projectPath.concat("/").concat(model.getWebContentPath(projectIndex)));
+                    currentProject.getProject().addMetadata(META_JSP_WEB_APPDESCRIPTOR, paths.intern(webRoot.concat("/WEB-INF/web.xml")));
+                    currentProject.getProject().addMetadata(META_JSP_WEB_ROOT, webRoot);
                 }
+                if (currentProject.addSourceDirectoryReference(projectPath, javaWebServerLanguage))
+                    metrics.addReference();
+                if (currentProject.addSourceDirectoryReference(projectPath, javaWebClientLanguage))
+                    metrics.addReference();
+                break;
+            default:
+                // no source folder
+                break;
             }
-
         }
 
-		@Override
-		public void addClasspath(String classpath) {
-            List<String> list = new ArrayList<String>(Arrays.asList(classpath.split(";")));
-            for (int i = 0; i < list.size(); i++)
-            {
-                String path = list.get(i);
-                if (!StringHelper.isEmpty(path))
-                    classpaths.add(path);
-            }
-		}
-
-		@Override
-		public void addClasspaths() {
-            for (String path : classpaths)
+        private void addClasspaths(RegisteredProject currentProject, WorkspaceModel model, int projectIndex, String projectPath)
+        {
+            JarManifests jarManifests = session.getJarManifests();
+            // the jars whose manifests are read, by canonical path
+            List<String> jars = jarManifests == null ? null : new ArrayList<String>();
+            for (int i = 0; i < model.getClasspathCount(projectIndex); i++)
             {
-                int varStart = path.indexOf("${");
-                if (varStart >= 0)
+                String path = resolveClasspath(model, model.getClasspathId(projectIndex, i));
+                if (path == null)
                 {
-                    int varEnd = path.indexOf("}", varStart);
-                    if (varEnd > 0)
-                    {
-                        String name = path.substring(varStart + 2, varEnd);
-                        if (name.endsWith(".root") && name.substring(0, name.length() - 5).equals(currentProject.getName()))
-                        {
-                            if (varStart > 0)
-                                path = path.substring(0, varStart - 1).concat(projectPath)
-                                        .concat(path.substring(varEnd + 1));
-                            else
-                                path = projectPath.concat(path.substring(varEnd + 1));
-                        }
-                        else
-                        {
-                            // not supported
-                            continue;
-                        }
-                    }
+                    // not supported
+                    continue;
                 }
                 String classpath = path;
                 if (path.startsWith("./"))
-                    classpath = buildPackageRelativePath(currentProject, path.substring(2));
-                if (classpath.toLowerCase().endsWith(".jar"))
+                    classpath = buildPackageRelativePath(currentProject.getProject(), path.substring(2));
+                // ./ is relative to the .work file like the project path
+                String location = path.startsWith("./") ? project.getPath().concat(path.substring(1)) : path;
+                boolean isJar = classpath.toLowerCase().endsWith(".jar");
+                // referenced once the projects of the .work file are created
+                if (addInferredDependency(model, projectIndex, location, isJar))
+                    continue;
+                if (isJar)
                 {
-                    currentProject.addContainerReference(classpath, javaLanguageId, javaContainerLanguageId);
+                    if (jars != null)
+                        jars.add(paths.intern(location));
+                    addClasspathReference(currentProject, location, classpath, true);
                 }
                 else
                 {
                     // do not add the classpath if it's already the sources
-                    if (!projectPath.contains(classpath))
-                    {
-                        currentProject.addDirectoryReference(classpath, javaLanguageId, javaContainerLanguageId);
-                    }
+                    if (projectPath == null || !paths.isSameOrAncestor(location, projectPath))
+                        addClasspathReference(currentProject, location, classpath, false);
                 }
             }
-            classpaths.clear();
-            // add implicit classpath
-            // TODO: extract the option "output.directory" from the node "EARBuild"
-            // <component name="com.bea.ide.workspace.IWorkspace">
-            // <node name="EARBuild">
-            // <option name="output.directory" value="." />
-            String libpath = project.getPath().concat("/APP-INF/lib");
-            currentProject.addDirectoryReference(libpath, javaLanguageId, javaContainerLanguageId);
-		}
+            if (libPath == null)
+            {
+                // no EAR build folder
+            }
+            else if (libJars == null)
+            {
+                if (isDelivered(libPath, PackageTree.Kind.CLASSPATH)
+                    && currentProject.addDirectoryReference(libPath, javaLanguageId, javaContainerLanguageId))
+                    metrics.addReference();
+            }
+            else
+            {
+                for (String libJar : libJars)
+                {
+                    if (currentProject.addContainerReference(libJar, javaLanguageId, javaContainerLanguageId))
+                        metrics.addReference();
+                }
+                if (jars != null)
+                    jars.addAll(Arrays.asList(libJars));
+            }
+            if (jars != null)
+                addManifestClasspaths(currentProject, jarManifests, jars);
+        }
 
-		@Override
-		public void setProjectType(String type) {
-            projectType = type;
-		}
+        /**
+         * Reference the jars listed by the Class-Path of the manifests of the jars of the class path, transitively
+         */
+        private void addManifestClasspaths(RegisteredProject currentProject, JarManifests jarManifests, List<String> jars)
+        {
+            for (String jar : jars)
+            {
+                for (String listedJar : jarManifests.getClassPath(jar, paths))
+                {
+                    if (currentProject.addContainerReference(listedJar, javaLanguageId, javaContainerLanguageId))
+                        metrics.addReference();
+                }
+            }
+        }
 
-        @Override
-        public void setProjectPath(String path)
+        /**
+         * @return {@code false} if the path was not delivered in the package, {@code true} if it was or if the paths
+         *         are not checked
+         */
+        private boolean isDelivered(String path, PackageTree.Kind kind)
+        {
+            PackageTree packageTree = session.getPackageTree();
+            return packageTree == null || packageTree.check(path, kind);
+        }
+
+        /**
+         * Reference a class path entry: a reference to the project whose folder or jar it points at, otherwise a jar or
+         * folder reference. The entries matching no discovered project are referenced when the discovery ends, once all
+         * the projects are known, so that the references do not depend on the order of the .work files.
+         */
+        private void addClasspathReference(RegisteredProject currentProject, String location, String classpath, boolean isJar)
         {
-            projectPath = project.getPath().concat(path.substring(1));
+            ProjectIndex index = session.getProjectIndex();
+            RegisteredProject referencedProject = index == null ? null : index.find(location, isJar);
+            if (referencedProject != null)
+            {
+                // the project itself is dropped
+                if (currentProject.addProjectReference(referencedProject))
+                    metrics.addReference();
+                return;
+            }
+            // null if only a project can be referenced
+            String reference = isDelivered(location, PackageTree.Kind.CLASSPATH) ? classpath : null;
+            // interned once all the projects are known, the spelling of their folders first
+            if (index != null)
+                index.defer(currentProject, location, isJar, reference, javaLanguageId, javaContainerLanguageId);
+            else if (reference != null && (isJar ? currentProject.addContainerReference(paths.intern(reference), javaLanguageId, javaContainerLanguageId)
+                : currentProject.addDirectoryReference(paths.intern(reference), javaLanguageId, javaContainerLanguageId)))
+                metrics.addReference();
+        }
+
+        /**
+         * Resolve the variables of a class path entry, once per .work file
+         *
+         * @return null if the entry uses an unknown variable
+         */
+        private String resolveClasspath(WorkspaceModel model, int entryId)
+        {
+            String resolved = resolvedClasspaths[entryId];
+            if (resolved == null && !unsupportedClasspaths.get(entryId))
+            {
+                resolved = classpathVariables.resolve(model.getString(entryId));
+                if (resolved == null)
+                    unsupportedClasspaths.set(entryId);
+                resolvedClasspaths[entryId] = resolved;
+            }
+            return resolved;
         }
 
         @Override
-        public void addProjectDependencies()
-        {
-        	for (String webProject : webProjects)
-        	{
-	            Project p = projectsDiscovererUtilities.getProject(webProject);
-	            for (String id : javaProjects)
-	            {
-	                p.addProjectReference(id);
-	                Project j = projectsDiscovererUtilities.getProject(id);
-	                for (String dep : javaProjects)
-	                {
-	                    if (!dep.equals(id))
-	                        j.addProjectReference(dep);
-	                }
-	            }
-        	}
-
-        	for (String ejbProject : ejbProjects)
-        	{
-	            Project p = projectsDiscovererUtilities.getProject(ejbProject);
-	            for (String id : javaProjects)
-	            {
-	                p.addProjectReference(id);
-	                Project j = projectsDiscovererUtilities.getProject(id);
-	                for (String dep : javaProjects)
-	                {
-	                    if (!dep.equals(id))
-	                        j.addProjectReference(dep);
-	                }
-	            }
-        	}
+        public void addProjectReference(int projectIndex, int referencedProjectIndex)
+        {
+            RegisteredProject currentProject = createdProjects[projectIndex];
+            RegisteredProject referencedProject = createdProjects[referencedProjectIndex];
+            // null if the folder of the project was not delivered
+            if (currentProject != null && referencedProject != null && currentProject.addProjectReference(referencedProject))
+                metrics.addReference();
         }
     }
 
-    private static class BeaProjectReader extends AbstractXMLFileReader
+    private static class BeaProjectReader extends DefaultHandler
     {
+        /**
+         * Elements of a .work file used by the discoverer
+         */
+        private enum Element
+        {
+            APPLICATION, PROJECTS, PROJECT, COMPONENTS, COMPONENT, NODE, OPTION
+        }
+
+        // read-only, shared by the readers of all the threads
+        private static final Map<String, Element> ELEMENTS;
+        static
+        {
+            Map<String, Element> elements = new HashMap<String, Element>();
+            elements.put("application", Element.APPLICATION);
+            elements.put("projects", Element.PROJECTS);
+            elements.put("project", Element.PROJECT);
+            elements.put("components", Element.COMPONENTS);
+            elements.put("component", Element.COMPONENT);
+            elements.put("node", Element.NODE);
+            elements.put("option", Element.OPTION);
+            ELEMENTS = Collections.unmodifiableMap(elements);
+        }
+
+        // depth of the elements below <application>
+        // 1: <projects>, <components> or <option name="excludedirs" value="..." />
+        // 2: <project name="...">
+        // 3: <option name="project.path|type|project.dependencies" value="..." /> or <components>
+        // 4: <component name="com.bea.ide.JavaCompiler">
+        // 5: <option name="class.path|source.path" value="..." />
+        private static final int PROJECTS_DEPTH = 1;
+        private static final int PROJECT_DEPTH = 2;
+        private static final int PROJECT_OPTION_DEPTH = 3;
+        private static final int COMPONENT_DEPTH = 4;
+        private static final int COMPONENT_OPTION_DEPTH = 5;
+        // below the <components> of the application
+        // 2: <component name="com.bea.ide.workspace.IWorkspace">
+        // 3: <node name="EARBuild">
+        // 4: <option name="output.directory" value="..." />
+        private static final int WORKSPACE_DEPTH = 2;
+        private static final int BUILD_NODE_DEPTH = 3;
+        private static final int BUILD_OPTION_DEPTH = 4;
+
+        // the budget and the cancellation are checked once every CHECK_INTERVAL elements
+        static final int CHECK_INTERVAL = 256;
+
         private IProjectInterpreter interpreter;
 
+        private int maxElementDepth;
+        private ParseBudget budget;
+        private long start;
+        private int projectCount;
+        // the reason why the parsing was aborted, null if it was not
+        private String abortMessage;
+        // depth of the elements in the document, limited
+        private int documentDepth;
+        private int elementCount;
         private boolean isInApplication;
+        // inside the <components> of the application
         private boolean isInComponents;
-        private boolean isInComponent;
-        private String componentName;
-        private boolean isInProjects;
-        private boolean isInProject;
         private int depth;
+        // depth of the element whose subtree is ignored, 0 when nothing is ignored
+        private int skipDepth;
         private String projectName;
         private String projectType;
 
-        private BeaProjectReader()
-        {
-            // NOP
-        }
-
-        private boolean process(IProjectInterpreter projectInterpreter, String filePath, String content)
+        private boolean process(IProjectInterpreter projectInterpreter, String filePath, Reader reader, WorkFileMetrics metrics,
+            ParseBudget parseBudget)
         {
             interpreter = projectInterpreter;
+            budget = parseBudget;
+            maxElementDepth = budget.getMaxElementDepth();
 
+            documentDepth = 0;
+            elementCount = 0;
+            projectCount = 0;
+            abortMessage = null;
             isInApplication = false;
             isInComponents = false;
-            isInComponent = false;
-            componentName = null;
-            isInProjects = false;
-            isInProject = false;
             depth = 0;
+            skipDepth = 0;
+            projectName = null;
+            projectType = null;
 
-
-            StringReader reader = new StringReader(content);
-            boolean isOk = readContents(interpreter, filePath, reader, false);
+            interpreter.init();
+            interpreter.open(filePath);
+            Object event = WorkFileEvents.beginParse();
+            start = System.nanoTime();
+            boolean isOk = budget.isCancelled() ? abort("The discovery was cancelled") : WorkFileParsers.parse(reader, this, filePath, budget);
+            long parseNanos = System.nanoTime() - start;
+            WorkFileEvents.endParse(event, filePath, elementCount, isOk);
+            if (metrics != null)
+                metrics.addParse(parseNanos, elementCount);
+            if (abortMessage != null)
+                Logging.info("cast.dmt.discover.jee.bea.parseAborted", "FILE", filePath, "MESSAGE", abortMessage, "ELEMENTS",
+                    Integer.toString(elementCount), "PROJECTS", Integer.toString(projectCount), "PARSE_MS",
+                    Long.toString(parseNanos / 1000000L));
+            interpreter.close();
+            interpreter.done();
 
             interpreter = null;
+            budget = null;
 
             return isOk;
         }
 
         @Override
-        protected void startElement(String elementName, Attributes attributes)
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException
+        {
+            documentDepth++;
+            elementCount++;
+            if (documentDepth > maxElementDepth)
+                throw new SAXException("The elements are nested deeper than " + maxElementDepth);
+            if (elementCount > budget.getMaxElementCount())
+                throw new WorkFileParsers.AbortedException(abortMessage("The file has more than " + budget.getMaxElementCount()
+                    + " elements"));
+            if (elementCount % CHECK_INTERVAL == 0)
+                checkBudget();
+            startElement(qName, attributes);
+        }
+
+        private void checkBudget() throws SAXException
+        {
+            if (budget.isCancelled())
+                throw new WorkFileParsers.AbortedException(abortMessage("The discovery was cancelled"));
+            if (budget.getMaxParseNanos() > 0 && System.nanoTime() - start > budget.getMaxParseNanos())
+                throw new WorkFileParsers.AbortedException(abortMessage("The parsing takes more than "
+                    + budget.getMaxParseNanos() / 1000000L + " ms"));
+        }
+
+        private String abortMessage(String message)
+        {
+            abortMessage = message;
+            return message;
+        }
+
+        private boolean abort(String message)
+        {
+            abortMessage = message;
+            return false;
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            documentDepth--;
+            endElement(qName);
+        }
+
+        private void startElement(String elementName, Attributes attributes)
         {
-        	if ("application".equals(elementName))
-        		isInApplication = true;
-            else if (isInApplication)
+            if (!isInApplication)
             {
-            	depth++;
-            	if ("option".equals(elementName))
-            	{
-            		if (isInProject)
+                if (ELEMENTS.get(elementName) == Element.APPLICATION)
+                    isInApplication = true;
+                return;
+            }
+
+            depth++;
+            // inside an ignored subtree: nothing below can be used
+            if (skipDepth > 0)
+                return;
+
+            Element element = ELEMENTS.get(elementName);
+            if (isInComponents)
+            {
+                startComponentsElement(element, attributes);
+                return;
+            }
+            switch (depth)
+            {
+            case PROJECTS_DEPTH:
+                if (element == Element.OPTION)
+                {
+                    // <option name="excludedirs" value="cvs;sccs;rcs;" />
+                    if ("excludedirs".equals(attributes.getValue("name")))
+                        interpreter.setExcludedDirectories(attributes.getValue("value"));
+                    skipDepth = depth;
+                }
+                else if (element == Element.COMPONENTS)
+                    isInComponents = true;
+                else if (element != Element.PROJECTS)
+                    skipDepth = depth;
+                break;
+
+            case PROJECT_DEPTH:
+                if (element == Element.PROJECT)
+                    projectName = attributes.getValue("name");
+                else
+                    skipDepth = depth;
+                break;
+
+            case PROJECT_OPTION_DEPTH:
+                if (element == Element.OPTION)
+                {
+                    String optionName = attributes.getValue("name");
+                    if ("project.path".equals(optionName))
+                        interpreter.setProjectPath(attributes.getValue("value"));
+                    else if ("type".equals(optionName))
                     {
-                        String optionName = attributes.getValue("name");
-                        if (depth == 3)
-                        {
-                            if ("project.path".equals(optionName))
-                                // interpreter.addSourceFolder(attributes.getValue("value"));
-                                interpreter.setProjectPath(attributes.getValue("value"));
-                            else if ("type".equals(optionName))
-                            {
-                                projectType = attributes.getValue("value");
-                                interpreter.setProjectType(projectType);
-                            }
-                        }
-                        else if (isInComponents && isInComponent && depth == 5)
-                        {
-                            if ("com.bea.ide.JavaCompiler".equals(componentName))
-                            {
-                                if ("class.path".equals(optionName))
-                                {
-                                    interpreter.addClasspath(attributes.getValue("value"));
-                                }
-                                else if ("source.path".equals(optionName))
-                                {
-                                    // TODO: always empty
-                                }
-                            }
-                        }
+                        projectType = attributes.getValue("value");
+                        interpreter.setProjectType(projectType);
                     }
-            	}
-            	else if ("projects".equals(elementName))
-            	{
-            		isInProjects = true;
-            	}
-            	else if ("project".equals(elementName))
-            	{
-            		if (isInProjects)
-            		{
-            			isInProject = true;
-            			projectName = attributes.getValue("name");
-            		}
-            	}
-                else if ("components".equals(elementName))
-                    isInComponents = true;
-                else if ("component".equals(elementName))
+                    else if ("project.dependencies".equals(optionName))
+                        interpreter.setProjectDependencies(attributes.getValue("value"));
+                    skipDepth = depth;
+                }
+                else if (element != Element.COMPONENTS)
+                    skipDepth = depth;
+                break;
+
+            case COMPONENT_DEPTH:
+                // inside a project
+                // the component is either empty
+                // <component name="com.bea.ide.JavaCompiler" />
+                //
+                //
+                // <component name="com.bea.ide.JavaCompiler">
+                //   <option name="class.path" value="" />
+                //   <option name="source.path" value="" />
+                // </component>
+                if (element != Element.COMPONENT || !"com.bea.ide.JavaCompiler".equals(attributes.getValue("name")))
+                    skipDepth = depth;
+                break;
+
+            case COMPONENT_OPTION_DEPTH:
+                if (element == Element.OPTION)
                 {
-                	// inside a project
-                	// the component is either empty
-                	// <component name="com.bea.ide.JavaCompiler" />
-                	//
-                	//
-                	// <component name="com.bea.ide.JavaCompiler">
-                	//   <option name="class.path" value="" />
-                	//   <option name="source.path" value="" />
-                	// </component>
-                    isInComponent = true;
-                    componentName = attributes.getValue("name");
+                    String optionName = attributes.getValue("name");
+                    if ("class.path".equals(optionName))
+                    {
+                        interpreter.addClasspath(attributes.getValue("value"));
+                    }
+                    else if ("source.path".equals(optionName))
+                    {
+                        interpreter.addSourcepath(attributes.getValue("value"));
+                    }
                 }
+                skipDepth = depth;
+                break;
+
+            default:
+                skipDepth = depth;
+                break;
             }
         }
 
-        @Override
-        protected void endElement(String elementName)
+        private void startComponentsElement(Element element, Attributes attributes)
         {
-            if (isInApplication && depth > 0)
+            switch (depth)
             {
-                depth--;
+            case WORKSPACE_DEPTH:
+                if (element != Element.COMPONENT || !"com.bea.ide.workspace.IWorkspace".equals(attributes.getValue("name")))
+                    skipDepth = depth;
+                break;
+
+            case BUILD_NODE_DEPTH:
+                if (element != Element.NODE || !"EARBuild".equals(attributes.getValue("name")))
+                    skipDepth = depth;
+                break;
+
+            case BUILD_OPTION_DEPTH:
+                // <option name="output.directory" value="." />
+                if (element == Element.OPTION && "output.directory".equals(attributes.getValue("name")))
+                    interpreter.setOutputDirectory(attributes.getValue("value"));
+                skipDepth = depth;
+                break;
+
+            default:
+                skipDepth = depth;
+                break;
             }
-            if ("project".equals(elementName))
+        }
+
+        private void endElement(String elementName)
+        {
+            if (!isInApplication)
+                return;
+            if (depth == 0)
             {
-                if (isInProject)
+                // </application>
+                isInApplication = false;
+                return;
+            }
+
+            if (skipDepth > 0)
+            {
+                if (skipDepth == depth)
+                    skipDepth = 0;
+            }
+            else if (isInComponents && depth > PROJECTS_DEPTH)
+            {
+                // <component> or <node> of the EAR build
+            }
+            else if (depth == PROJECT_DEPTH)
+            {
+                if (WorkshopProjectType.fromUrn(projectType) != WorkshopProjectType.SCHEMA)
                 {
-            		isInProject = false;
-                    if (!"urn:com-bea-ide:project.type:Schema".equals(projectType))
-                    {
-                        interpreter.addProject(projectName);
-                        interpreter.addProjectSourceFolders();
-                        interpreter.addClasspaths();
-                    }
-                    interpreter.resetProject();
-                    projectName = null;
+                    interpreter.addProject(projectName);
+                    projectCount++;
+                    interpreter.addProjectSourceFolders();
+                    interpreter.addClasspaths();
                 }
+                interpreter.resetProject();
+                projectName = null;
+                projectType = null;
             }
-            else if ("projects".equals(elementName))
+            else if (depth == PROJECTS_DEPTH)
             {
-                if (isInProjects)
-                {
-            		isInProjects = false;
+                if (isInComponents)
+                    isInComponents = false;
+                else
                     interpreter.addProjectDependencies();
-                }
             }
-            else if ("component".equals(elementName))
+            depth--;
+        }
+
+    }
+
+    /**
+     * Reader of the descriptors of an Eclipse-based Workshop project: .project, .classpath,
+     * .settings/org.eclipse.wst.common.component and .settings/org.eclipse.wst.common.project.facet.core.xml. The project
+     * is given to the interpreter like a project of a .work file whose folder is the one of the .project file.
+     * <p>
+     * Only the java projects with a Workshop marker are given: a BEA or WebLogic nature, facet, runtime or component
+     * property. The other Eclipse projects are left to the generic Eclipse discoverer.
+     */
+    private static class EclipseProjectReader extends DefaultHandler
+    {
+        /**
+         * Descriptors of an Eclipse project, in the order they are parsed
+         */
+        private enum Descriptor
+        {
+            COMPONENT, FACETS, PROJECT, CLASSPATH
+        }
+
+        private static final String JAVA_NATURE = "org.eclipse.jdt.core.javanature";
+        private static final String EJB_NATURE_SUFFIX = ".EJBNature";
+        // WEB-INF/lib of the web content
+        private static final String WEB_CONTAINER = "org.eclipse.jst.j2ee.internal.web.container";
+        // ids and names of the Workshop natures, facets and runtimes, in lower case
+        private static final String[] WORKSHOP_PREFIXES = { "com.bea.", "wls." };
+        private static final String[] WORKSHOP_NAMES = { "weblogic", "beehive" };
+
+        // depth of the elements of the descriptors
+        // 2: <name> of <projectDescription>, <classpathentry kind="..." path="..." />, <wb-module>, <installed facet="..." />
+        // or <runtime name="..." />
+        // 3: <nature> of <natures>, <wb-resource deploy-path="/" source-path="..." /> or <property name="..." value="..." />
+        private static final int ENTRY_DEPTH = 2;
+        private static final int MODULE_ENTRY_DEPTH = 3;
+
+        private int maxElementDepth;
+        private ParseBudget budget;
+        private Descriptor descriptor;
+        private int documentDepth;
+        private int elementCount;
+        // the reason why the parsing was aborted, null if it was not
+        private String abortMessage;
+        // text of the <name> or <nature> element being read, null outside
+        private StringBuilder text;
+        private String projectName;
+        private boolean isJavaProject;
+        private boolean isWorkshopProject;
+        private boolean isEjbProject;
+        private boolean isWebProject;
+        private String webContentPath;
+        private List<String> sourcepaths;
+        private List<String> classpaths;
+
+        /**
+         * Parse the descriptors of a project and interpret them
+         *
+         * @param projectReader
+         *            the .project file
+         * @param classpathReader
+         *            the .classpath file, null if missing
+         * @param componentReader
+         *            the org.eclipse.wst.common.component file, null if missing
+         * @param facetReader
+         *            the org.eclipse.wst.common.project.facet.core.xml file, null if missing
+         * @return {@code true} if no error was encountered during parsing
+         */
+        private boolean process(IProjectInterpreter interpreter, String filePath, Reader projectReader, Reader classpathReader,
+            Reader componentReader, Reader facetReader, WorkFileMetrics metrics, ParseBudget parseBudget)
+        {
+            budget = parseBudget;
+            maxElementDepth = budget.getMaxElementDepth();
+            elementCount = 0;
+            abortMessage = null;
+            projectName = null;
+            isJavaProject = false;
+            isWorkshopProject = false;
+            isEjbProject = false;
+            isWebProject = false;
+            webContentPath = null;
+            sourcepaths = new ArrayList<String>();
+            classpaths = new ArrayList<String>();
+
+            interpreter.init();
+            interpreter.open(filePath);
+            Object event = WorkFileEvents.beginParse();
+            long start = System.nanoTime();
+            boolean isOk;
+            if (budget.isCancelled())
+            {
+                abortMessage = "The discovery was cancelled";
+                isOk = false;
+            }
+            else
+            {
+                // a missing or broken component, facet or class path file still gives the project
+                boolean isComponentOk = parse(Descriptor.COMPONENT, componentReader, getSiblingPath(filePath, COMPONENT_FILE));
+                boolean isFacetOk = abortMessage == null && parse(Descriptor.FACETS, facetReader, getSiblingPath(filePath, FACET_FILE));
+                boolean isProjectOk = abortMessage == null && parse(Descriptor.PROJECT, projectReader, filePath);
+                boolean isClasspathOk = isProjectOk && parse(Descriptor.CLASSPATH, classpathReader, getSiblingPath(filePath, CLASSPATH_FILE));
+                if (isProjectOk && isJavaProject && isWorkshopProject)
+                    interpret(interpreter, filePath);
+                isOk = isComponentOk && isFacetOk && isProjectOk && isClasspathOk;
+            }
+            long parseNanos = System.nanoTime() - start;
+            WorkFileEvents.endParse(event, filePath, elementCount, isOk);
+            if (metrics != null)
+                metrics.addParse(parseNanos, elementCount);
+            if (abortMessage != null)
+                Logging.info("cast.dmt.discover.jee.bea.parseAborted", "FILE", filePath, "MESSAGE", abortMessage, "ELEMENTS",
+                    Integer.toString(elementCount), "PROJECTS", "0", "PARSE_MS", Long.toString(parseNanos / 1000000L));
+            interpreter.close();
+            interpreter.done();
+
+            budget = null;
+            sourcepaths = null;
+            classpaths = null;
+
+            return isOk;
+        }
+
+        private boolean parse(Descriptor parsedDescriptor, Reader reader, String filePath)
+        {
+            if (reader == null)
+                return true;
+            descriptor = parsedDescriptor;
+            documentDepth = 0;
+            text = null;
+            return WorkFileParsers.parse(reader, this, filePath, budget);
+        }
+
+        /**
+         * Give the project to the interpreter, in the order of a .work file
+         */
+        private void interpret(IProjectInterpreter interpreter, String filePath)
+        {
+            interpreter.setEclipseWorkspace();
+            interpreter.setProjectPath(".");
+            if (isWebProject)
+                interpreter.setProjectType(WorkshopProjectType.WEB_APP.getUrn());
+            else if (isEjbProject)
+                interpreter.setProjectType(WorkshopProjectType.EJB.getUrn());
+            else
+                interpreter.setProjectType(WorkshopProjectType.JAVA.getUrn());
+            if (isWebProject && webContentPath != null)
+                interpreter.setWebContentPath(webContentPath);
+            for (String sourcepath : sourcepaths)
+                interpreter.addSourcepath(sourcepath);
+            for (String classpath : classpaths)
+                interpreter.addClasspath(classpath);
+            interpreter.addProject(projectName == null ? getFolderName(filePath) : projectName);
+            interpreter.addProjectSourceFolders();
+            interpreter.addClasspaths();
+            interpreter.resetProject();
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException
+        {
+            documentDepth++;
+            elementCount++;
+            if (documentDepth > maxElementDepth)
+                throw new SAXException("The elements are nested deeper than " + maxElementDepth);
+            if (elementCount > budget.getMaxElementCount())
+            {
+                abortMessage = "The file has more than " + budget.getMaxElementCount() + " elements";
+                throw new WorkFileParsers.AbortedException(abortMessage);
+            }
+            if (elementCount % BeaProjectReader.CHECK_INTERVAL == 0 && budget.isCancelled())
             {
-                if (isInComponent)
+                abortMessage = "The discovery was cancelled";
+                throw new WorkFileParsers.AbortedException(abortMessage);
+            }
+
+            switch (descriptor)
+            {
+            case PROJECT:
+                // <projectDescription><name>X</name><natures><nature>...</nature></natures></projectDescription>
+                if ((documentDepth == ENTRY_DEPTH && "name".equals(qName)) || (documentDepth == MODULE_ENTRY_DEPTH && "nature".equals(qName)))
+                    text = new StringBuilder();
+                break;
+            case CLASSPATH:
+                if (documentDepth == ENTRY_DEPTH && "classpathentry".equals(qName))
+                    addClasspathEntry(attributes.getValue("kind"), attributes.getValue("path"));
+                break;
+            case FACETS:
+                // <installed facet="wls.web" version="..." /> or <runtime name="Oracle WebLogic Server" />
+                if (documentDepth == ENTRY_DEPTH && "installed".equals(qName))
+                    setWorkshopMarker(attributes.getValue("facet"));
+                else if (documentDepth == ENTRY_DEPTH && "runtime".equals(qName))
+                    setWorkshopMarker(attributes.getValue("name"));
+                break;
+            case COMPONENT:
+                if (documentDepth != MODULE_ENTRY_DEPTH)
+                    break;
+                // <wb-resource deploy-path="/" source-path="/WebContent" />
+                if ("wb-resource".equals(qName) && "/".equals(attributes.getValue("deploy-path")) && webContentPath == null)
+                    webContentPath = toProjectRelativePath(attributes.getValue("source-path"));
+                // <property name="context-root" value="..." />
+                else if ("property".equals(qName) && "context-root".equals(attributes.getValue("name")))
+                    isWebProject = true;
+                // <property name="..." value="com.bea..." />
+                else if ("property".equals(qName))
+                    setWorkshopMarker(attributes.getValue("value"));
+                break;
+            default:
+                break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length)
+        {
+            if (text != null)
+                text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            if (text != null)
+            {
+                String value = text.toString().trim();
+                text = null;
+                if (documentDepth == ENTRY_DEPTH)
+                    projectName = value.isEmpty() ? null : value;
+                else if (JAVA_NATURE.equals(value))
+                    isJavaProject = true;
+                else
                 {
-                    isInComponent = false;
-                    componentName = "";
+                    if (value.endsWith(EJB_NATURE_SUFFIX))
+                        isEjbProject = true;
+                    setWorkshopMarker(value);
                 }
             }
-            else if ("components".equals(elementName))
+            documentDepth--;
+        }
+
+        /**
+         * Mark the project as a Workshop project if a nature, facet, runtime or property is a BEA or WebLogic one
+         */
+        private void setWorkshopMarker(String id)
+        {
+            if (id == null || isWorkshopProject)
+                return;
+            String normalizedId = id.trim().toLowerCase(Locale.ENGLISH);
+            for (String prefix : WORKSHOP_PREFIXES)
             {
-                if (isInComponents)
-                    isInComponents = false;
+                if (normalizedId.startsWith(prefix))
+                    isWorkshopProject = true;
+            }
+            for (String name : WORKSHOP_NAMES)
+            {
+                if (normalizedId.contains(name))
+                    isWorkshopProject = true;
+            }
+        }
+
+        /**
+         * Convert a .classpath entry into a source.path or class.path entry of a .work file
+         */
+        private void addClasspathEntry(String kind, String path)
+        {
+            if (kind == null || path == null)
+                return;
+            path = path.trim().replace('\\', '/');
+            if ("src".equals(kind))
+            {
+                // /Other: the sources of another project of the workspace, a sibling folder
+                if (path.startsWith("/"))
+                    classpaths.add("./..".concat(path));
+                else
+                    sourcepaths.add(path.isEmpty() ? "." : path);
+            }
+            else if ("lib".equals(kind))
+            {
+                if (path.startsWith("/"))
+                    classpaths.add("./..".concat(path));
+                else if (new File(path).isAbsolute() || (path.length() > 1 && path.charAt(1) == ':'))
+                    classpaths.add(path);
+                else
+                    classpaths.add("./".concat(path));
+            }
+            else if ("var".equals(kind))
+            {
+                // VARIABLE/path: resolved with the class path variables defined by the user
+                int slashPos = path.indexOf('/');
+                String variable = slashPos < 0 ? path : path.substring(0, slashPos);
+                classpaths.add("${".concat(variable).concat("}").concat(slashPos < 0 ? "" : path.substring(slashPos)));
+            }
+            else if ("con".equals(kind) && WEB_CONTAINER.equals(path))
+            {
+                // the component is parsed first
+                String webContent = webContentPath == null ? "." : "./".concat(webContentPath);
+                classpaths.add(webContent.concat("/WEB-INF/lib"));
             }
         }
 
+        /**
+         * @return null for the project folder
+         */
+        private static String toProjectRelativePath(String path)
+        {
+            if (path == null)
+                return null;
+            path = path.trim().replace('\\', '/');
+            while (path.startsWith("/"))
+                path = path.substring(1);
+            while (path.endsWith("/"))
+                path = path.substring(0, path.length() - 1);
+            return path.isEmpty() ? null : path;
+        }
+
+        private static String getFolderName(String filePath)
+        {
+            String folder = filePath.replace('\\', '/');
+            int slashPos = folder.lastIndexOf('/');
+            if (slashPos <= 0)
+                return folder;
+            folder = folder.substring(0, slashPos);
+            return folder.substring(folder.lastIndexOf('/') + 1);
+        }
     }
 
     private ProjectFileScanner()
@@ -522,12 +1230,275 @@ public class ProjectFileScanner
      * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
      */
     public static boolean scan(IProjectInterpreter interpreter, String projectFilePath, String projectContent)
+    {
+        return scan(interpreter, projectFilePath, projectContent, null, WorkFileParsers.createBudget());
+    }
+
+    /**
+     * Scan a .work file content and measure the parsing.
+     *
+     * @param interpreter
+     *            the project file interpreter
+     * @param projectFilePath
+     *            the path to the project file used for reference
+     * @param projectContent
+     *            the file content to scan.
+     * @param metrics
+     *            the measures of the file, null if the parsing is not measured
+     * @param budget
+     *            the limits of the parsing
+     * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
+     */
+    static boolean scan(IProjectInterpreter interpreter, String projectFilePath, String projectContent, WorkFileMetrics metrics,
+        ParseBudget budget)
     {
         BeaProjectReader reader = new BeaProjectReader();
 
-        return reader.process(interpreter, projectFilePath, projectContent);
+        return reader.process(interpreter, projectFilePath, new StringReader(projectContent), metrics, budget);
+    }
+
+    /**
+     * Parse a .work file content without the discovery engine.
+     *
+     * @param projectFilePath
+     *            the path to the project file used for reference
+     * @param projectContent
+     *            the file content to parse.
+     * @return the projects of the file, the ones parsed before the error if an error was encountered
+     */
+    public static WorkspaceModel parse(String projectFilePath, String projectContent)
+    {
+        WorkspaceModel.Builder builder = new WorkspaceModel.Builder();
+        scan(builder, projectFilePath, projectContent);
+        return builder.build();
+    }
+
+    /**
+     * Scan a .work file read from the disk. The file is decoded while it is parsed instead of being loaded in memory.
+     *
+     * @param interpreter
+     *            the project file interpreter
+     * @param projectFilePath
+     *            the path to the project file used for reference
+     * @param projectFile
+     *            the file to scan.
+     * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public static boolean scan(IProjectInterpreter interpreter, String projectFilePath, Path projectFile) throws IOException
+    {
+        return scan(interpreter, projectFilePath, projectFile, null, WorkFileParsers.createBudget());
+    }
+
+    /**
+     * Scan a .work file read from the disk and measure the parsing.
+     *
+     * @param interpreter
+     *            the project file interpreter
+     * @param projectFilePath
+     *            the path to the project file used for reference
+     * @param projectFile
+     *            the file to scan.
+     * @param metrics
+     *            the measures of the file, null if the parsing is not measured
+     * @param budget
+     *            the limits of the parsing
+     * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    static boolean scan(IProjectInterpreter interpreter, String projectFilePath, Path projectFile, WorkFileMetrics metrics,
+        ParseBudget budget) throws IOException
+    {
+        Reader fileReader = WorkFileReaders.open(projectFile);
+        try
+        {
+            BeaProjectReader reader = new BeaProjectReader();
+
+            return reader.process(interpreter, projectFilePath, fileReader, metrics, budget);
+        }
+        finally
+        {
+            fileReader.close();
+        }
+    }
+
+    /**
+     * Scan the content of a .work file. The content is decoded while it is parsed instead of being loaded in memory.
+     *
+     * @param interpreter
+     *            the project file interpreter
+     * @param projectFilePath
+     *            the path to the project file used for reference
+     * @param projectStream
+     *            the file content to scan. The stream is closed by the scan.
+     * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
+     * @throws IOException
+     *             if the content cannot be read
+     */
+    public static boolean scan(IProjectInterpreter interpreter, String projectFilePath, InputStream projectStream) throws IOException
+    {
+        Reader streamReader = WorkFileReaders.open(projectStream);
+        try
+        {
+            BeaProjectReader reader = new BeaProjectReader();
+
+            return reader.process(interpreter, projectFilePath, streamReader, null, WorkFileParsers.createBudget());
+        }
+        finally
+        {
+            streamReader.close();
+        }
+    }
+
+
+    /**
+     * Scan the descriptors of an Eclipse-based Workshop project. Only the java projects with a Workshop marker are given
+     * to the interpreter.
+     *
+     * @param interpreter
+     *            the project file interpreter
+     * @param projectFilePath
+     *            the path to the .project file used for reference
+     * @param projectContent
+     *            the content of the .project file
+     * @param classpathContent
+     *            the content of the .classpath file, null if missing
+     * @param componentContent
+     *            the content of the .settings/org.eclipse.wst.common.component file, null if missing
+     * @param facetContent
+     *            the content of the .settings/org.eclipse.wst.common.project.facet.core.xml file, null if missing
+     * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
+     */
+    public static boolean scanEclipseProject(IProjectInterpreter interpreter, String projectFilePath, String projectContent,
+        String classpathContent, String componentContent, String facetContent)
+    {
+        return scanEclipseProject(interpreter, projectFilePath, new StringReader(projectContent),
+            classpathContent == null ? null : new StringReader(classpathContent),
+            componentContent == null ? null : new StringReader(componentContent),
+            facetContent == null ? null : new StringReader(facetContent), null, WorkFileParsers.createBudget());
+    }
+
+    /**
+     * Scan the descriptors of an Eclipse-based Workshop project and measure the parsing.
+     *
+     * @param interpreter
+     *            the project file interpreter
+     * @param projectFilePath
+     *            the path to the .project file used for reference
+     * @param projectReader
+     *            the content of the .project file
+     * @param classpathReader
+     *            the content of the .classpath file, null if missing
+     * @param componentReader
+     *            the content of the .settings/org.eclipse.wst.common.component file, null if missing
+     * @param facetReader
+     *            the content of the .settings/org.eclipse.wst.common.project.facet.core.xml file, null if missing
+     * @param metrics
+     *            the measures of the file, null if the parsing is not measured
+     * @param budget
+     *            the limits of the parsing
+     * @return {@code true} if no error was encountered during scanning. {@code false} otherwise.
+     */
+    static boolean scanEclipseProject(IProjectInterpreter interpreter, String projectFilePath, Reader projectReader,
+        Reader classpathReader, Reader componentReader, Reader facetReader, WorkFileMetrics metrics, ParseBudget budget)
+    {
+        EclipseProjectReader reader = new EclipseProjectReader();
+
+        return reader.process(interpreter, projectFilePath, projectReader, classpathReader, componentReader, facetReader,
+            metrics, budget);
+    }
+
+    /**
+     * Scan the descriptors of an Eclipse-based Workshop project and add info to the project. The .classpath,
+     * org.eclipse.wst.common.component and org.eclipse.wst.common.project.facet.core.xml files are read next to the
+     * .project file on the disk.
+     *
+     * @param project
+     *            the project containing the .project file
+     * @param projectContent
+     *            the content of the .project file
+     * @param projectFile
+     *            the .project file on the disk, null if the package is not available
+     * @param languages
+     *            the languages of the project type, resolved once per discovery
+     * @param session
+     *            the settings of the package
+     * @param metrics
+     *            the measures of the file
+     * @param projectsDiscovererUtilities
+     *            the discoverer utilities used to create the projects
+     * @return {@code false} if the project is not a Workshop java project, nothing was added in that case
+     */
+    static boolean scanEclipseProject(Project project, String projectContent, Path projectFile, LanguageDescriptor languages,
+        DiscoverySession session, WorkFileMetrics metrics, IProjectsDiscovererUtilities projectsDiscovererUtilities)
+    {
+        WorkspaceModel.Builder builder = new WorkspaceModel.Builder();
+        Reader classpathReader = openSibling(projectFile, CLASSPATH_FILE, metrics.getFilePath());
+        Reader componentReader = openSibling(projectFile, COMPONENT_FILE, metrics.getFilePath());
+        Reader facetReader = openSibling(projectFile, FACET_FILE, metrics.getFilePath());
+        try
+        {
+            scanEclipseProject(builder, metrics.getFilePath(), new StringReader(projectContent), classpathReader,
+                componentReader, facetReader, metrics, session.getParseBudget());
+        }
+        finally
+        {
+            close(classpathReader);
+            close(componentReader);
+            close(facetReader);
+        }
+        WorkspaceModel model = builder.build();
+        if (model.getProjectCount() == 0)
+            return false;
+        materialize(project, model, languages, session, metrics, projectsDiscovererUtilities);
+        return true;
+    }
+
+    /**
+     * @return null if the file is missing or cannot be read
+     */
+    private static Reader openSibling(Path projectFile, String name, String projectFilePath)
+    {
+        if (projectFile == null)
+            return null;
+        Path file = projectFile.resolveSibling(name);
+        if (!Files.isRegularFile(file))
+            return null;
+        try
+        {
+            return WorkFileReaders.open(file);
+        }
+        catch (IOException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.readEclipseDescriptorFailure", "FILE", getSiblingPath(projectFilePath, name));
+            return null;
+        }
     }
 
+    private static void close(Reader reader)
+    {
+        if (reader == null)
+            return;
+        try
+        {
+            reader.close();
+        }
+        catch (IOException e)
+        {
+            // already read
+        }
+    }
+
+    /**
+     * The path of a descriptor of the folder of the .project file
+     */
+    private static String getSiblingPath(String projectFilePath, String name)
+    {
+        int slashPos = Math.max(projectFilePath.lastIndexOf('/'), projectFilePath.lastIndexOf('\\'));
+        return slashPos < 0 ? name : projectFilePath.substring(0, slashPos + 1).concat(name);
+    }
 
     private static String buildPackageRelativePath(Project project, String projectPath)
     {
@@ -564,47 +1535,101 @@ public class ProjectFileScanner
      */
     public static void scan(Project project, String projectContent, IProjectsDiscovererUtilities projectsDiscovererUtilities)
     {
-    	int javaLanguageId = -1;
-    	int javaContainerLanguageId = -1;
-    	int javaWebServerLanguage = -1;
-    	int javaWebClientLanguage = -1;
-
-        for (LanguageConfiguration languageConfiguration : projectsDiscovererUtilities.getProjectTypeConfiguration(project.getType()).getLanguageConfigurations())
-        {
-            int languageId = languageConfiguration.getLanguageId();
-            if ("JavaLanguage".equals(languageConfiguration.getLanguageName()))
-            {
-                // TODO: not available in 7.3.x API => hardcoded value
-            	javaLanguageId = languageId;
-            	/*
-                if ("JavaContainerLanguage".equals(languageConfiguration.getLanguageName()))
-                	javaContainerLanguageId = languageId;
-                */
-                if (javaContainerLanguageId == -1)
-                {
-                	javaContainerLanguageId = 1;
-                    //Logging.managedError("cast.dmt.discover.jee.bea.getJavaContainerLanguageFailure");
-                }
-            }
-            else if ("JavaWebServerLanguage".equals(languageConfiguration.getLanguageName()))
-            {
-                // TODO: not available in 7.3.x API => hardcoded value
-            	javaWebServerLanguage = languageId;
-            }
-            else if ("JavaWebClientLanguage".equals(languageConfiguration.getLanguageName()))
-            {
-                // TODO: not available in 7.3.x API => hardcoded value
-            	javaWebClientLanguage = languageId;
-            }
-        }
-        if (javaLanguageId == -1)
-        {
-            Logging.managedError("cast.dmt.discover.jee.bea.getJavaLanguageFailure");
-        }
+        scan(project, projectContent, LanguageDescriptor.resolve(projectsDiscovererUtilities, project.getType()),
+            DiscoverySession.createDefault(), new WorkFileMetrics(project.getPath()), projectsDiscovererUtilities);
+    }
 
-        IProjectInterpreter interpreter = new ProjectRecorder(projectsDiscovererUtilities, project, javaLanguageId, javaContainerLanguageId, javaWebServerLanguage, javaWebClientLanguage);
-        scan(interpreter, project.getPath(), projectContent);
-        return;
+    /**
+     * Scan a .work file content and add info to the project.
+     *
+     * @param project
+     *            the project containing this file
+     * @param projectContent
+     *            the file content to scan.
+     * @param languages
+     *            the languages of the project type, resolved once per discovery
+     * @param session
+     *            the settings of the package
+     * @param metrics
+     *            the measures of the file
+     * @param projectsDiscovererUtilities
+     *            the discoverer utilities used to create the projects
+     */
+    static void scan(Project project, String projectContent, LanguageDescriptor languages, DiscoverySession session, WorkFileMetrics metrics, IProjectsDiscovererUtilities projectsDiscovererUtilities)
+    {
+        WorkspaceModel.Builder builder = new WorkspaceModel.Builder();
+        scan(builder, metrics.getFilePath(), projectContent, metrics, session.getParseBudget());
+        materialize(project, builder.build(), languages, session, metrics, projectsDiscovererUtilities);
+    }
+
+    /**
+     * Scan a .work file read from the disk and add info to the project.
+     *
+     * @param project
+     *            the project containing this file
+     * @param projectFile
+     *            the file to scan.
+     * @param languages
+     *            the languages of the project type, resolved once per discovery
+     * @param session
+     *            the settings of the package
+     * @param metrics
+     *            the measures of the file
+     * @param projectsDiscovererUtilities
+     *            the discoverer utilities used to create the projects
+     * @throws IOException
+     *             if the file cannot be opened. Nothing was added to the project in that case.
+     */
+    static void scan(Project project, Path projectFile, LanguageDescriptor languages, DiscoverySession session, WorkFileMetrics metrics, IProjectsDiscovererUtilities projectsDiscovererUtilities) throws IOException
+    {
+        WorkspaceModel.Builder builder = new WorkspaceModel.Builder();
+        scan(builder, metrics.getFilePath(), projectFile, metrics, session.getParseBudget());
+        materialize(project, builder.build(), languages, session, metrics, projectsDiscovererUtilities);
+    }
+
+    /**
+     * Interpret a .work file parsed ahead and add info to the project.
+     *
+     * @param project
+     *            the project containing this file
+     * @param recordedScan
+     *            the recorded parsing of the file
+     * @param languages
+     *            the languages of the project type, resolved once per discovery
+     * @param session
+     *            the settings of the package
+     * @param metrics
+     *            the measures of the file
+     * @param projectsDiscovererUtilities
+     *            the discoverer utilities used to create the projects
+     */
+    static void scan(Project project, RecordedScan recordedScan, LanguageDescriptor languages, DiscoverySession session, WorkFileMetrics metrics, IProjectsDiscovererUtilities projectsDiscovererUtilities)
+    {
+        WorkspaceModel.Builder builder = new WorkspaceModel.Builder();
+        recordedScan.replay(builder);
+        materialize(project, builder.build(), languages, session, metrics, projectsDiscovererUtilities);
+    }
+
+    /**
+     * Create the projects of a parsed .work file.
+     *
+     * @param project
+     *            the project containing this file
+     * @param model
+     *            the parsed file
+     * @param languages
+     *            the languages of the project type, resolved once per discovery
+     * @param session
+     *            the settings of the package
+     * @param metrics
+     *            the measures of the file
+     * @param projectsDiscovererUtilities
+     *            the discoverer utilities used to create the projects
+     */
+    static void materialize(Project project, WorkspaceModel model, LanguageDescriptor languages, DiscoverySession session, WorkFileMetrics metrics, IProjectsDiscovererUtilities projectsDiscovererUtilities)
+    {
+        new ProjectMaterializer(projectsDiscovererUtilities, project, languages.getJavaLanguageId(), languages.getJavaContainerLanguageId(),
+            languages.getJavaWebServerLanguageId(), languages.getJavaWebClientLanguageId(), session, metrics).materialize(model);
     }
 
 }
@@ -0,0 +1,233 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectRegistry.RegisteredProject;
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * Folders and output jars of the projects discovered in a package, so that a class path entry pointing at a project
+ * of another .work file becomes a reference to that project.
+ * <p>
+ * The paths are the canonical ones of the {@link PathTable} of the package: an entry is looked up with a hash of its
+ * canonical path, whatever the number of .work files. The output jars are also indexed by file name, used when a
+ * single project builds a jar of that name and the entry is in an APP-INF/lib folder or in the folder of an output jar,
+ * such as the EAR output of another copy of the application. A jar elsewhere with the name of an output, for instance
+ * in a WEB-INF/lib folder, stays a jar reference and the match is logged.
+ * <p>
+ * The entries which match no project yet are kept with their jar or folder reference, and looked up again when the
+ * discovery ends, once the projects of all the .work files are known: an entry gives either a project reference or
+ * its jar or folder reference, whatever the order of the .work files. Used by the discovery thread only.
+ */
+final class ProjectIndex
+{
+    // several projects build a jar of that name
+    private static final RegisteredProject AMBIGUOUS = new RegisteredProject(null);
+    // the EAR build folder of the java project jars
+    private static final String LIB_FOLDER = "app-inf/lib";
+
+    /**
+     * Class path entry which matched no project when it was added
+     */
+    private static final class DeferredEntry
+    {
+        private final RegisteredProject project;
+        private final String path;
+        private final boolean isJar;
+        private final String reference;
+        private final int languageId;
+        private final int resourceTypeId;
+
+        private DeferredEntry(RegisteredProject project, String path, boolean isJar, String reference, int languageId,
+            int resourceTypeId)
+        {
+            this.project = project;
+            this.path = path;
+            this.isJar = isJar;
+            this.reference = reference;
+            this.languageId = languageId;
+            this.resourceTypeId = resourceTypeId;
+        }
+    }
+
+    private final Map<String, RegisteredProject> roots;
+    private final Map<String, RegisteredProject> outputs;
+    private final Map<String, RegisteredProject> outputNames;
+    // the canonical folders of the output jars
+    private final Set<String> outputFolders;
+    private final List<DeferredEntry> deferredEntries;
+    private final PathTable paths;
+
+    /**
+     * @param paths
+     *            the canonical paths of the package
+     */
+    ProjectIndex(PathTable paths)
+    {
+        roots = new HashMap<String, RegisteredProject>();
+        outputs = new HashMap<String, RegisteredProject>();
+        outputNames = new HashMap<String, RegisteredProject>();
+        outputFolders = new HashSet<String>();
+        deferredEntries = new ArrayList<DeferredEntry>();
+        this.paths = paths;
+    }
+
+    /**
+     * Index a discovered project
+     *
+     * @param project
+     *            the project
+     * @param root
+     *            the canonical folder of the project, null if unknown
+     * @param output
+     *            the canonical path of the jar built from the project, null if the project builds no jar
+     */
+    void add(RegisteredProject project, String root, String output)
+    {
+        if (root != null && !roots.containsKey(root))
+            roots.put(root, project);
+        if (output != null && !outputs.containsKey(output))
+        {
+            outputs.put(output, project);
+            String name = getFileName(output);
+            outputNames.put(name, outputNames.containsKey(name) ? AMBIGUOUS : project);
+            String folder = getFolder(output);
+            if (folder != null)
+                outputFolders.add(paths.intern(folder));
+        }
+    }
+
+    /**
+     * The project a class path entry points at. The path is not interned, so that the spelling of an entry does not
+     * become the one of a project discovered later.
+     *
+     * @param path
+     *            the path of the entry
+     * @param isJar
+     *            {@code true} if the entry is a jar, {@code false} if it is a folder
+     * @return null if the entry matches no project
+     */
+    RegisteredProject find(String path, boolean isJar)
+    {
+        String canonicalPath = paths.get(path);
+        if (!isJar)
+            return canonicalPath == null ? null : roots.get(canonicalPath);
+        RegisteredProject project = canonicalPath == null ? null : outputs.get(canonicalPath);
+        if (project == null && isOutputFolder(getFolder(path)))
+            project = outputNames.get(getFileName(path));
+        return project == AMBIGUOUS ? null : project;
+    }
+
+    /**
+     * @return the project building a jar of the name of an entry, null if none or several
+     */
+    private RegisteredProject findByName(String path)
+    {
+        RegisteredProject project = outputNames.get(getFileName(path));
+        return project == AMBIGUOUS ? null : project;
+    }
+
+    /**
+     * @param folder
+     *            the folder of a jar, null if none
+     * @return {@code true} if the folder is an APP-INF/lib folder or the folder of an output jar
+     */
+    private boolean isOutputFolder(String folder)
+    {
+        if (folder == null)
+            return false;
+        String canonicalFolder = paths.get(folder);
+        if (canonicalFolder != null && outputFolders.contains(canonicalFolder))
+            return true;
+        String normalizedFolder = folder.replace('\\', '/').toLowerCase(Locale.ENGLISH);
+        return normalizedFolder.equals(LIB_FOLDER) || normalizedFolder.endsWith("/".concat(LIB_FOLDER));
+    }
+
+    /**
+     * Look up a class path entry again when the discovery ends, and reference it then
+     *
+     * @param project
+     *            the project of the class path
+     * @param path
+     *            the path of the entry, not interned
+     * @param isJar
+     *            {@code true} if the entry is a jar, {@code false} if it is a folder
+     * @param reference
+     *            the jar or folder reference of the entry when it matches no project, interned when the discovery ends,
+     *            null if not delivered
+     * @param languageId
+     *            the language of the jar or folder reference
+     * @param resourceTypeId
+     *            the resource type of the jar or folder reference
+     */
+    void defer(RegisteredProject project, String path, boolean isJar, String reference, int languageId, int resourceTypeId)
+    {
+        deferredEntries.add(new DeferredEntry(project, path, isJar, reference, languageId, resourceTypeId));
+    }
+
+    /**
+     * Reference the deferred class path entries: the projects discovered after the entries pointing at them, the jars
+     * and folders otherwise. Each project of the entries is flushed once.
+     *
+     * @param metrics
+     *            the measures of the discovery, counting all the references added
+     * @return the number of project references added
+     */
+    int resolveDeferredEntries(DiscoveryMetrics metrics)
+    {
+        int resourceReferenceCount = 0;
+        int referenceCount = 0;
+        Set<RegisteredProject> projects = new LinkedHashSet<RegisteredProject>();
+        for (DeferredEntry entry : deferredEntries)
+        {
+            projects.add(entry.project);
+            RegisteredProject referencedProject = find(entry.path, entry.isJar);
+            if (referencedProject != null)
+            {
+                if (entry.project.addProjectReference(referencedProject))
+                    referenceCount++;
+            }
+            else
+            {
+                RegisteredProject namesake = entry.isJar ? findByName(entry.path) : null;
+                if (namesake != null)
+                    Logging.info("cast.dmt.discover.jee.bea.outputNameMatch", "PATH", entry.path, "PROJECT",
+                        namesake.getProject().getName());
+                if (entry.reference != null)
+                {
+                    String reference = paths.intern(entry.reference);
+                    if (entry.isJar ? entry.project.addContainerReference(reference, entry.languageId, entry.resourceTypeId)
+                        : entry.project.addDirectoryReference(reference, entry.languageId, entry.resourceTypeId))
+                        resourceReferenceCount++;
+                }
+            }
+        }
+        for (RegisteredProject project : projects)
+            project.flush();
+        deferredEntries.clear();
+        metrics.addReferences(referenceCount + resourceReferenceCount);
+        return referenceCount;
+    }
+
+    /**
+     * @return the folder of a path, null if it has none
+     */
+    private static String getFolder(String path)
+    {
+        int separatorPos = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return separatorPos <= 0 ? null : path.substring(0, separatorPos);
+    }
+
+    private static String getFileName(String path)
+    {
+        int separatorPos = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(separatorPos + 1).toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,134 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.castsoftware.dmt.engine.project.Project;
+
+/**
+ * Projects discovered in a package, keyed by folder and Workshop type, so that a project folder declared by several
+ * .work files gives a single project.
+ * <p>
+ * The references are added through the registered project, which drops the ones the project already has and submits
+ * the others when it is flushed.
+ */
+final class ProjectRegistry
+{
+    /**
+     * A discovered project and the batch of its references
+     */
+    static final class RegisteredProject
+    {
+        private final Project project;
+        private final ReferenceBatch references;
+
+        RegisteredProject(Project project)
+        {
+            this.project = project;
+            references = new ReferenceBatch();
+        }
+
+        /**
+         * @return the project
+         */
+        Project getProject()
+        {
+            return project;
+        }
+
+        synchronized boolean addSourceDirectoryReference(String path, int languageId)
+        {
+            return references.addSourceDirectoryReference(path, languageId);
+        }
+
+        synchronized boolean addContainerReference(String path, int languageId, int resourceTypeId)
+        {
+            return references.addContainerReference(path, languageId, resourceTypeId);
+        }
+
+        synchronized boolean addDirectoryReference(String path, int languageId, int resourceTypeId)
+        {
+            return references.addDirectoryReference(path, languageId, resourceTypeId);
+        }
+
+        synchronized boolean addProjectReference(RegisteredProject referencedProject)
+        {
+            return referencedProject != this && references.addProjectReference(referencedProject.project.getId());
+        }
+
+        /**
+         * Submit the references added since the last flush to the project
+         */
+        synchronized void flush()
+        {
+            references.flush(project);
+        }
+    }
+
+    private final ConcurrentMap<String, RegisteredProject> projects;
+    private final AtomicInteger sharedCount;
+
+    ProjectRegistry()
+    {
+        projects = new ConcurrentHashMap<String, RegisteredProject>();
+        sharedCount = new AtomicInteger();
+    }
+
+    /**
+     * The project already discovered for a folder
+     *
+     * @param path
+     *            the folder of the project, interned in the {@link PathTable} of the package
+     * @param type
+     *            the Workshop type of the project
+     * @return null if no project of that type was discovered for the folder
+     */
+    RegisteredProject get(String path, WorkshopProjectType type)
+    {
+        RegisteredProject registeredProject = projects.get(key(path, type));
+        if (registeredProject != null)
+            sharedCount.incrementAndGet();
+        return registeredProject;
+    }
+
+    /**
+     * Register a discovered project
+     *
+     * @param path
+     *            the folder of the project, interned in the {@link PathTable} of the package
+     * @param type
+     *            the Workshop type of the project
+     * @param project
+     *            the project
+     * @return the registered project
+     */
+    RegisteredProject register(String path, WorkshopProjectType type, Project project)
+    {
+        RegisteredProject registeredProject = new RegisteredProject(project);
+        projects.put(key(path, type), registeredProject);
+        return registeredProject;
+    }
+
+    /**
+     * @return the number of times an already discovered project was found again
+     */
+    int getSharedCount()
+    {
+        return sharedCount.get();
+    }
+
+    /**
+     * @return the number of projects registered
+     */
+    int size()
+    {
+        return projects.size();
+    }
+
+    // the interned paths are the same string for the equivalent paths
+    private static String key(String path, WorkshopProjectType type)
+    {
+        return type.name().concat("|").concat(path);
+    }
+}
@@ -0,0 +1,330 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner.IProjectInterpreter;
+
+/**
+ * Result of the parsing of a .work file, recorded so that it can be interpreted later by another thread.
+ * <p>
+ * Replaying the scan gives the interpreter exactly the calls the parsing would have given.
+ */
+final class RecordedScan implements IProjectInterpreter
+{
+    private static final byte INIT = 0;
+    private static final byte DONE = 1;
+    private static final byte OPEN = 2;
+    private static final byte CLOSE = 3;
+    private static final byte ADD_PROJECT = 4;
+    private static final byte RESET_PROJECT = 5;
+    private static final byte SET_PROJECT_TYPE = 6;
+    private static final byte SET_PROJECT_PATH = 7;
+    private static final byte ADD_PROJECT_SOURCE_FOLDERS = 8;
+    private static final byte ADD_CLASSPATH = 9;
+    private static final byte ADD_CLASSPATHS = 10;
+    private static final byte ADD_PROJECT_DEPENDENCIES = 11;
+    private static final byte ADD_SOURCEPATH = 12;
+    private static final byte SET_EXCLUDED_DIRECTORIES = 13;
+    private static final byte SET_OUTPUT_DIRECTORY = 14;
+    private static final byte SET_WEB_CONTENT_PATH = 15;
+    private static final byte SET_ECLIPSE_WORKSPACE = 16;
+    private static final byte SET_PROJECT_DEPENDENCIES = 17;
+
+    private byte[] operations;
+    private int operationCount;
+    private final List<String> arguments;
+    private boolean isOk;
+    // measured by the thread parsing the file, not saved in the cache
+    private final WorkFileMetrics metrics;
+
+    RecordedScan()
+    {
+        operations = new byte[64];
+        operationCount = 0;
+        arguments = new ArrayList<String>();
+        isOk = false;
+        metrics = new WorkFileMetrics(null);
+    }
+
+    /**
+     * @return {@code true} if no error was encountered during the parsing.
+     */
+    boolean isOk()
+    {
+        return isOk;
+    }
+
+    void setOk(boolean isOk)
+    {
+        this.isOk = isOk;
+    }
+
+    /**
+     * @return the measures of the parsing, empty if the scan was read from the cache
+     */
+    WorkFileMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Give the recorded calls to an interpreter, in the order they were recorded.
+     *
+     * @param interpreter
+     *            the interpreter
+     */
+    void replay(IProjectInterpreter interpreter)
+    {
+        int argumentIndex = 0;
+        for (int i = 0; i < operationCount; i++)
+        {
+            switch (operations[i])
+            {
+            case INIT:
+                interpreter.init();
+                break;
+            case DONE:
+                interpreter.done();
+                break;
+            case OPEN:
+                interpreter.open(arguments.get(argumentIndex++));
+                break;
+            case CLOSE:
+                interpreter.close();
+                break;
+            case ADD_PROJECT:
+                interpreter.addProject(arguments.get(argumentIndex++));
+                break;
+            case RESET_PROJECT:
+                interpreter.resetProject();
+                break;
+            case SET_PROJECT_TYPE:
+                interpreter.setProjectType(arguments.get(argumentIndex++));
+                break;
+            case SET_PROJECT_PATH:
+                interpreter.setProjectPath(arguments.get(argumentIndex++));
+                break;
+            case ADD_PROJECT_SOURCE_FOLDERS:
+                interpreter.addProjectSourceFolders();
+                break;
+            case ADD_CLASSPATH:
+                interpreter.addClasspath(arguments.get(argumentIndex++));
+                break;
+            case ADD_CLASSPATHS:
+                interpreter.addClasspaths();
+                break;
+            case ADD_PROJECT_DEPENDENCIES:
+                interpreter.addProjectDependencies();
+                break;
+            case ADD_SOURCEPATH:
+                interpreter.addSourcepath(arguments.get(argumentIndex++));
+                break;
+            case SET_EXCLUDED_DIRECTORIES:
+                interpreter.setExcludedDirectories(arguments.get(argumentIndex++));
+                break;
+            case SET_OUTPUT_DIRECTORY:
+                interpreter.setOutputDirectory(arguments.get(argumentIndex++));
+                break;
+            case SET_WEB_CONTENT_PATH:
+                interpreter.setWebContentPath(arguments.get(argumentIndex++));
+                break;
+            case SET_ECLIPSE_WORKSPACE:
+                interpreter.setEclipseWorkspace();
+                break;
+            case SET_PROJECT_DEPENDENCIES:
+                interpreter.setProjectDependencies(arguments.get(argumentIndex++));
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation " + operations[i]);
+            }
+        }
+    }
+
+    /**
+     * Write the recorded calls
+     *
+     * @param output
+     *            the output
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    void write(DataOutput output) throws IOException
+    {
+        output.writeBoolean(isOk);
+        output.writeInt(operationCount);
+        output.write(operations, 0, operationCount);
+        output.writeInt(arguments.size());
+        for (String argument : arguments)
+        {
+            // missing attribute
+            if (argument == null)
+            {
+                output.writeInt(-1);
+                continue;
+            }
+            // no 64KB limit as with writeUTF: class paths can be long
+            byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Read calls written by {@link #write(DataOutput)}
+     *
+     * @param input
+     *            the input
+     * @return the recorded calls
+     * @throws IOException
+     *             if the input cannot be read
+     */
+    static RecordedScan read(DataInput input) throws IOException
+    {
+        RecordedScan scan = new RecordedScan();
+        scan.isOk = input.readBoolean();
+        scan.operationCount = input.readInt();
+        scan.operations = new byte[Math.max(scan.operationCount, 1)];
+        input.readFully(scan.operations, 0, scan.operationCount);
+        int argumentCount = input.readInt();
+        for (int i = 0; i < argumentCount; i++)
+        {
+            int length = input.readInt();
+            if (length < 0)
+            {
+                scan.arguments.add(null);
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            scan.arguments.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return scan;
+    }
+
+    private void record(byte operation)
+    {
+        if (operationCount == operations.length)
+            operations = Arrays.copyOf(operations, operationCount * 2);
+        operations[operationCount++] = operation;
+    }
+
+    private void record(byte operation, String argument)
+    {
+        record(operation);
+        arguments.add(argument);
+    }
+
+    @Override
+    public void init()
+    {
+        record(INIT);
+    }
+
+    @Override
+    public void done()
+    {
+        record(DONE);
+    }
+
+    @Override
+    public void open(String resourceId)
+    {
+        record(OPEN, resourceId);
+    }
+
+    @Override
+    public void close()
+    {
+        record(CLOSE);
+    }
+
+    @Override
+    public void addProject(String name)
+    {
+        record(ADD_PROJECT, name);
+    }
+
+    @Override
+    public void resetProject()
+    {
+        record(RESET_PROJECT);
+    }
+
+    @Override
+    public void setProjectType(String type)
+    {
+        record(SET_PROJECT_TYPE, type);
+    }
+
+    @Override
+    public void setProjectPath(String path)
+    {
+        record(SET_PROJECT_PATH, path);
+    }
+
+    @Override
+    public void setProjectDependencies(String dependencies)
+    {
+        record(SET_PROJECT_DEPENDENCIES, dependencies);
+    }
+
+    @Override
+    public void addProjectSourceFolders()
+    {
+        record(ADD_PROJECT_SOURCE_FOLDERS);
+    }
+
+    @Override
+    public void addClasspath(String classpath)
+    {
+        record(ADD_CLASSPATH, classpath);
+    }
+
+    @Override
+    public void addClasspaths()
+    {
+        record(ADD_CLASSPATHS);
+    }
+
+    @Override
+    public void addProjectDependencies()
+    {
+        record(ADD_PROJECT_DEPENDENCIES);
+    }
+
+    @Override
+    public void addSourcepath(String sourcepath)
+    {
+        record(ADD_SOURCEPATH, sourcepath);
+    }
+
+    @Override
+    public void setExcludedDirectories(String excludedDirectories)
+    {
+        record(SET_EXCLUDED_DIRECTORIES, excludedDirectories);
+    }
+
+    @Override
+    public void setOutputDirectory(String outputDirectory)
+    {
+        record(SET_OUTPUT_DIRECTORY, outputDirectory);
+    }
+
+    @Override
+    public void setWebContentPath(String webContentPath)
+    {
+        record(SET_WEB_CONTENT_PATH, webContentPath);
+    }
+
+    @Override
+    public void setEclipseWorkspace()
+    {
+        record(SET_ECLIPSE_WORKSPACE);
+    }
+}
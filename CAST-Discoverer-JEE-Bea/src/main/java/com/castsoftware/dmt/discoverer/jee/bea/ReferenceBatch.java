@@ -0,0 +1,183 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.castsoftware.dmt.engine.project.Project;
+
+/**
+ * References of a project collected while a .work file is recorded and submitted to the project in one flush.
+ * <p>
+ * A reference already collected, flushed or not, is dropped. The flush submits the source folders first, then the
+ * resources, each sorted by kind (container, directory, project), path and ids, so that the references submitted do
+ * not depend on the order in which the .work files and the class path entries are processed.
+ * <p>
+ * Not thread safe.
+ */
+final class ReferenceBatch
+{
+    private enum Kind
+    {
+        SOURCE_DIRECTORY, CONTAINER, DIRECTORY, PROJECT
+    }
+
+    /**
+     * A reference waiting for the flush
+     */
+    private static final class PendingReference
+    {
+        private final Kind kind;
+        private final String path;
+        private final int languageId;
+        private final int resourceTypeId;
+
+        private PendingReference(Kind kind, String path, int languageId, int resourceTypeId)
+        {
+            this.kind = kind;
+            this.path = path;
+            this.languageId = languageId;
+            this.resourceTypeId = resourceTypeId;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object)
+                return true;
+            if (!(object instanceof PendingReference))
+                return false;
+            PendingReference reference = (PendingReference) object;
+            return kind == reference.kind && languageId == reference.languageId && resourceTypeId == reference.resourceTypeId
+                && (path == null ? reference.path == null : path.equals(reference.path));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = kind.hashCode();
+            hash = 31 * hash + (path == null ? 0 : path.hashCode());
+            hash = 31 * hash + languageId;
+            return 31 * hash + resourceTypeId;
+        }
+    }
+
+    private static final Comparator<PendingReference> ORDER = new Comparator<PendingReference>()
+    {
+        @Override
+        public int compare(PendingReference reference1, PendingReference reference2)
+        {
+            int result = reference1.kind.compareTo(reference2.kind);
+            if (result == 0)
+                result = comparePaths(reference1.path, reference2.path);
+            if (result == 0)
+                result = Integer.compare(reference1.languageId, reference2.languageId);
+            if (result == 0)
+                result = Integer.compare(reference1.resourceTypeId, reference2.resourceTypeId);
+            return result;
+        }
+
+        /**
+         * The null path of a project without folder first
+         */
+        private int comparePaths(String path1, String path2)
+        {
+            if (path1 == null || path2 == null)
+                return path1 == null ? (path2 == null ? 0 : -1) : 1;
+            return path1.compareTo(path2);
+        }
+    };
+
+    // the references collected since the batch was created
+    private final Set<PendingReference> collected;
+    private final List<PendingReference> sources;
+    private final List<PendingReference> resources;
+
+    ReferenceBatch()
+    {
+        collected = new HashSet<PendingReference>();
+        sources = new ArrayList<PendingReference>();
+        resources = new ArrayList<PendingReference>();
+    }
+
+    /**
+     * @return {@code false} if the reference was already collected
+     */
+    boolean addSourceDirectoryReference(String path, int languageId)
+    {
+        return add(sources, new PendingReference(Kind.SOURCE_DIRECTORY, path, languageId, 0));
+    }
+
+    /**
+     * @return {@code false} if the reference was already collected
+     */
+    boolean addContainerReference(String path, int languageId, int resourceTypeId)
+    {
+        return add(resources, new PendingReference(Kind.CONTAINER, path, languageId, resourceTypeId));
+    }
+
+    /**
+     * @return {@code false} if the reference was already collected
+     */
+    boolean addDirectoryReference(String path, int languageId, int resourceTypeId)
+    {
+        return add(resources, new PendingReference(Kind.DIRECTORY, path, languageId, resourceTypeId));
+    }
+
+    /**
+     * @param projectId
+     *            the id of the referenced project
+     * @return {@code false} if the reference was already collected
+     */
+    boolean addProjectReference(String projectId)
+    {
+        return add(resources, new PendingReference(Kind.PROJECT, projectId, 0, 0));
+    }
+
+    private boolean add(List<PendingReference> references, PendingReference reference)
+    {
+        if (!collected.add(reference))
+            return false;
+        references.add(reference);
+        return true;
+    }
+
+    /**
+     * Submit the references collected since the last flush, sorted
+     *
+     * @param project
+     *            the project of the references
+     */
+    void flush(Project project)
+    {
+        submit(project, sources);
+        submit(project, resources);
+    }
+
+    private static void submit(Project project, List<PendingReference> references)
+    {
+        Collections.sort(references, ORDER);
+        for (PendingReference reference : references)
+        {
+            switch (reference.kind)
+            {
+            case SOURCE_DIRECTORY:
+                project.addSourceDirectoryReference(reference.path, reference.languageId);
+                break;
+            case CONTAINER:
+                project.addContainerReference(reference.path, reference.languageId, reference.resourceTypeId);
+                break;
+            case DIRECTORY:
+                project.addDirectoryReference(reference.path, reference.languageId, reference.resourceTypeId);
+                break;
+            default:
+                project.addProjectReference(reference.path);
+                break;
+            }
+        }
+        references.clear();
+    }
+}
@@ -0,0 +1,209 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Resolution of the source folders of the java and ejb projects, as narrow as possible so that the build outputs are
+ * not analyzed.
+ * <p>
+ * The folders of the source.path option are used when given, without the excluded folders. Otherwise the project
+ * folder is used. When excluded folders are given by the user (see {@link DiscoveryOptions#EXCLUDED_SOURCE_FOLDERS})
+ * and the package is on the disk, a project folder containing excluded folders, the user ones or the excludedirs of the
+ * .work file, and no java file is narrowed to its other sub folders. This lists the project folders and may take a
+ * folder of jars for a source folder, so it is not done by default.
+ */
+final class SourceFolders
+{
+    /**
+     * No folder excluded by default: the project folders are not narrowed
+     */
+    static final String DEFAULT_EXCLUDED_FOLDERS = "";
+
+    private final Path packageRoot;
+    private final Set<String> excludedFolders;
+
+    /**
+     * @param packageRoot
+     *            the package root on the disk, null if not available: the project folders are then never narrowed
+     * @param excludedFolders
+     *            the names of the excluded folders, separated by ;, empty to never narrow the project folders
+     */
+    SourceFolders(Path packageRoot, String excludedFolders)
+    {
+        this.packageRoot = packageRoot;
+        this.excludedFolders = toNames(excludedFolders == null ? Collections.<String> emptyList() : splitNames(excludedFolders));
+    }
+
+    /**
+     * The source folders of a project
+     *
+     * @param model
+     *            the parsed .work file
+     * @param project
+     *            the index of the project
+     * @param variables
+     *            the class path variables of the .work file, also used by the source.path option
+     * @param workFolder
+     *            the folder of the .work file, relative to the package root
+     * @param projectPath
+     *            the folder of the project, relative to the package root
+     * @return the source folders, relative to the package root
+     */
+    List<String> resolve(WorkspaceModel model, int project, ClasspathVariables variables, String workFolder, String projectPath)
+    {
+        Set<String> excluded = excludedFolders;
+        if (!model.getExcludedDirectories().isEmpty())
+        {
+            excluded = new HashSet<String>(excludedFolders);
+            excluded.addAll(toNames(model.getExcludedDirectories()));
+        }
+
+        if (model.getSourcepathCount(project) > 0)
+        {
+            List<String> sourceFolders = new ArrayList<String>(model.getSourcepathCount(project));
+            for (int i = 0; i < model.getSourcepathCount(project); i++)
+            {
+                String sourceFolder = resolve(model.getSourcepath(project, i), variables, workFolder, projectPath);
+                if (sourceFolder != null && !isExcluded(sourceFolder, excluded) && !sourceFolders.contains(sourceFolder))
+                    sourceFolders.add(sourceFolder);
+            }
+            if (!sourceFolders.isEmpty())
+                return sourceFolders;
+        }
+
+        if (excludedFolders.isEmpty())
+            return Collections.singletonList(projectPath);
+        return narrow(projectPath, excluded);
+    }
+
+    /**
+     * Resolve a source.path entry: with class path variables such as ${X.root}/folder, ./folder relative to the .work
+     * file or folder relative to the project.
+     *
+     * @return null if not supported
+     */
+    private static String resolve(String sourcepath, ClasspathVariables variables, String workFolder, String projectPath)
+    {
+        String path = sourcepath.trim().replace('\\', '/');
+        boolean hasVariable = path.contains("${");
+        if (hasVariable)
+        {
+            // relative to the package root once resolved
+            path = variables.resolve(path);
+            if (path == null)
+                // unknown variable
+                return null;
+        }
+        while (path.length() > 1 && path.endsWith("/"))
+            path = path.substring(0, path.length() - 1);
+
+        if (hasVariable)
+            return path;
+        if (path.equals("."))
+            return projectPath;
+        if (path.startsWith("./"))
+            return workFolder.concat(path.substring(1));
+        if (path.startsWith("/") || new File(path).isAbsolute())
+            return path;
+        return projectPath.concat("/").concat(path);
+    }
+
+    private static boolean isExcluded(String folder, Set<String> excluded)
+    {
+        int slashPos = folder.lastIndexOf('/');
+        return excluded.contains(folder.substring(slashPos + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * The sub folders of the project folder which are not excluded, the project folder if nothing is excluded or if it
+     * directly contains java files.
+     */
+    private List<String> narrow(String projectPath, Set<String> excluded)
+    {
+        List<String> projectFolder = Collections.singletonList(projectPath);
+        if (packageRoot == null || excluded.isEmpty())
+            return projectFolder;
+
+        Path folder;
+        try
+        {
+            folder = packageRoot.resolve(projectPath);
+        }
+        catch (InvalidPathException e)
+        {
+            return projectFolder;
+        }
+        if (!Files.isDirectory(folder))
+            return projectFolder;
+
+        List<String> subFolders = new ArrayList<String>();
+        boolean hasExcludedFolder = false;
+        try
+        {
+            DirectoryStream<Path> children = Files.newDirectoryStream(folder);
+            try
+            {
+                for (Path child : children)
+                {
+                    String name = child.getFileName().toString();
+                    if (!Files.isDirectory(child))
+                    {
+                        String lowerName = name.toLowerCase(Locale.ENGLISH);
+                        if (lowerName.endsWith(".java") || lowerName.endsWith(".sqlj"))
+                            return projectFolder;
+                    }
+                    else if (excluded.contains(name.toLowerCase(Locale.ENGLISH)))
+                        hasExcludedFolder = true;
+                    else
+                        subFolders.add(name);
+                }
+            }
+            finally
+            {
+                children.close();
+            }
+        }
+        catch (IOException e)
+        {
+            return projectFolder;
+        }
+        if (!hasExcludedFolder || subFolders.isEmpty())
+            return projectFolder;
+
+        Collections.sort(subFolders);
+        List<String> sourceFolders = new ArrayList<String>(subFolders.size());
+        for (String subFolder : subFolders)
+            sourceFolders.add(projectPath.concat("/").concat(subFolder));
+        return sourceFolders;
+    }
+
+    private static List<String> splitNames(String names)
+    {
+        List<String> list = new ArrayList<String>();
+        for (String name : names.split(";"))
+        {
+            if (!name.trim().isEmpty())
+                list.add(name.trim());
+        }
+        return list;
+    }
+
+    private static Set<String> toNames(List<String> names)
+    {
+        Set<String> set = new HashSet<String>();
+        for (String name : names)
+            set.add(name.trim().toLowerCase(Locale.ENGLISH));
+        return set;
+    }
+}
@@ -0,0 +1,58 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table interning the strings of a .work file into consecutive int ids, so that a string repeated in the file (a
+ * project path, a shared jar) is kept once.
+ */
+final class StringTable
+{
+    private final Map<String, Integer> ids;
+    private final List<String> strings;
+
+    StringTable()
+    {
+        ids = new HashMap<String, Integer>();
+        strings = new ArrayList<String>();
+    }
+
+    /**
+     * The id of a string, added to the table if needed
+     *
+     * @param string
+     *            the string, not null
+     * @return the id of the string
+     */
+    int intern(String string)
+    {
+        Integer id = ids.get(string);
+        if (id == null)
+        {
+            id = Integer.valueOf(strings.size());
+            ids.put(string, id);
+            strings.add(string);
+        }
+        return id.intValue();
+    }
+
+    /**
+     * The string of an id
+     *
+     * @param id
+     *            the id returned by {@link #intern(String)}
+     * @return the string
+     */
+    String get(int id)
+    {
+        return strings.get(id);
+    }
+
+    int size()
+    {
+        return strings.size();
+    }
+}
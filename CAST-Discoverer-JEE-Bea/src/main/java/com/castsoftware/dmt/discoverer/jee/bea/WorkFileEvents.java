@@ -0,0 +1,121 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+/**
+ * Flight Recorder events of the stages of the discovery of a .work file.
+ * <p>
+ * The events are disabled by default. They are recorded once enabled by name in the settings of a recording, for
+ * instance with {@code -XX:StartFlightRecording:settings=jeebea.jfc} where the .jfc file contains
+ * {@code <event name="com.castsoftware.dmt.discoverer.jee.bea.Parse"><setting name="enabled">true</setting></event>}.
+ * <p>
+ * A stage is measured by a begin method, returning the event to pass to the matching end method. Nothing is recorded
+ * on a JVM without Flight Recorder: the event classes are then never loaded.
+ */
+final class WorkFileEvents
+{
+    private static final String PREFIX = "com.castsoftware.dmt.discoverer.jee.bea.";
+    /**
+     * Name of the resolution of the languages of the project type
+     */
+    static final String RESOLVE_LANGUAGES = PREFIX + "ResolveLanguages";
+    /**
+     * Name of the SAX parsing of a .work file
+     */
+    static final String PARSE = PREFIX + "Parse";
+    /**
+     * Name of the creation of a project and of its source references
+     */
+    static final String CREATE_PROJECT = PREFIX + "CreateProject";
+    /**
+     * Name of the resolution of the class path of a project
+     */
+    static final String EXPAND_CLASSPATH = PREFIX + "ExpandClasspath";
+    /**
+     * Name of the addition of the references between the projects
+     */
+    static final String WIRE_DEPENDENCIES = PREFIX + "WireDependencies";
+
+    private static final boolean IS_AVAILABLE = isFlightRecorderAvailable();
+
+    private WorkFileEvents()
+    {
+        // NOP
+    }
+
+    private static boolean isFlightRecorderAvailable()
+    {
+        try
+        {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        }
+        catch (ClassNotFoundException e)
+        {
+            // JVM older than 8u262
+            return false;
+        }
+    }
+
+    /**
+     * @return {@code true} if the JVM can record the events
+     */
+    static boolean isAvailable()
+    {
+        return IS_AVAILABLE;
+    }
+
+    static Object beginResolveLanguages()
+    {
+        return IS_AVAILABLE ? FlightRecorderEvents.beginResolveLanguages() : null;
+    }
+
+    static void endResolveLanguages(Object event, String filePath, String projectType)
+    {
+        if (event != null)
+            FlightRecorderEvents.endResolveLanguages(event, filePath, projectType);
+    }
+
+    static Object beginParse()
+    {
+        return IS_AVAILABLE ? FlightRecorderEvents.beginParse() : null;
+    }
+
+    static void endParse(Object event, String filePath, int elementCount, boolean isOk)
+    {
+        if (event != null)
+            FlightRecorderEvents.endParse(event, filePath, elementCount, isOk);
+    }
+
+    static Object beginCreateProject()
+    {
+        return IS_AVAILABLE ? FlightRecorderEvents.beginCreateProject() : null;
+    }
+
+    static void endCreateProject(Object event, String filePath, String projectName, WorkshopProjectType projectType,
+        int referenceCount)
+    {
+        if (event != null)
+            FlightRecorderEvents.endCreateProject(event, filePath, projectName, projectType.name(), referenceCount);
+    }
+
+    static Object beginExpandClasspath()
+    {
+        return IS_AVAILABLE ? FlightRecorderEvents.beginExpandClasspath() : null;
+    }
+
+    static void endExpandClasspath(Object event, String filePath, String projectName, int classpathCount, int referenceCount)
+    {
+        if (event != null)
+            FlightRecorderEvents.endExpandClasspath(event, filePath, projectName, classpathCount, referenceCount);
+    }
+
+    static Object beginWireDependencies()
+    {
+        return IS_AVAILABLE ? FlightRecorderEvents.beginWireDependencies() : null;
+    }
+
+    static void endWireDependencies(Object event, String filePath, int projectCount, int referenceCount)
+    {
+        if (event != null)
+            FlightRecorderEvents.endWireDependencies(event, filePath, projectCount, referenceCount);
+    }
+}
@@ -0,0 +1,128 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+/**
+ * Measures of the discovery of a .work file: its parsing and the projects created from it.
+ * <p>
+ * A file is measured by a single thread, the measures are added to the {@link DiscoveryMetrics} of the discovery once
+ * the file is discovered.
+ */
+final class WorkFileMetrics
+{
+    private final String filePath;
+    private long parseNanos;
+    private int elementCount;
+    private final int[] projectCounts;
+    private int referenceCount;
+    private int deletedProjectCount;
+
+    /**
+     * @param filePath
+     *            the path of the .work file, null when only the parsing is measured
+     */
+    WorkFileMetrics(String filePath)
+    {
+        this.filePath = filePath;
+        projectCounts = new int[WorkshopProjectType.values().length];
+    }
+
+    /**
+     * Count a parsing of the file
+     *
+     * @param nanos
+     *            the time spent parsing, in nanoseconds
+     * @param elements
+     *            the number of XML elements visited
+     */
+    void addParse(long nanos, int elements)
+    {
+        parseNanos += nanos;
+        elementCount += elements;
+    }
+
+    /**
+     * Count the parsing measured by another thread
+     *
+     * @param metrics
+     *            the measures of the parsing
+     */
+    void addParse(WorkFileMetrics metrics)
+    {
+        addParse(metrics.parseNanos, metrics.elementCount);
+    }
+
+    void addProject(WorkshopProjectType type)
+    {
+        projectCounts[type.ordinal()]++;
+    }
+
+    void addReference()
+    {
+        referenceCount++;
+    }
+
+    void addDeletedProject()
+    {
+        deletedProjectCount++;
+    }
+
+    /**
+     * @return the path of the .work file
+     */
+    String getFilePath()
+    {
+        return filePath;
+    }
+
+    /**
+     * @return the time spent parsing the file, in nanoseconds. 0 if the parsing was read from the cache.
+     */
+    long getParseNanos()
+    {
+        return parseNanos;
+    }
+
+    /**
+     * @return the number of XML elements visited
+     */
+    int getElementCount()
+    {
+        return elementCount;
+    }
+
+    /**
+     * @param type
+     *            the Workshop type of the projects
+     * @return the number of projects of that type created
+     */
+    int getProjectCount(WorkshopProjectType type)
+    {
+        return projectCounts[type.ordinal()];
+    }
+
+    /**
+     * @return the number of projects created
+     */
+    int getProjectCount()
+    {
+        int count = 0;
+        for (int projectCount : projectCounts)
+            count += projectCount;
+        return count;
+    }
+
+    /**
+     * @return the number of references added to the created projects
+     */
+    int getReferenceCount()
+    {
+        return referenceCount;
+    }
+
+    /**
+     * @return the number of projects deleted
+     */
+    int getDeletedProjectCount()
+    {
+        return deletedProjectCount;
+    }
+}
@@ -0,0 +1,235 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.castsoftware.util.logger.Logging;
+
+/**
+ * SAX parsers of the .work files, created once per thread and reused for all the files parsed by the thread.
+ * <p>
+ * The parsers never load anything outside of the file: the doctype declarations are accepted, but the external DTDs are
+ * not loaded and the external entities are resolved as empty. The size of the file is limited by the {@link ParseBudget} of the parsing and the nesting of its elements
+ * by the handlers. A handler aborting the parsing with an
+ * {@link AbortedException} reports it itself.
+ */
+final class WorkFileParsers
+{
+    /**
+     * Parser of a thread
+     */
+    private static final class PooledParser
+    {
+        private final SAXParser parser;
+        private boolean isInUse;
+
+        private PooledParser(SAXParser parser)
+        {
+            this.parser = parser;
+        }
+    }
+
+    /**
+     * Thrown by a handler to abort the parsing of a file, for another reason than an error of the file
+     */
+    static final class AbortedException extends SAXException
+    {
+        private static final long serialVersionUID = 1L;
+
+        AbortedException(String message)
+        {
+            super(message);
+        }
+    }
+
+    /**
+     * Resolver of the external entities and DTDs not disabled by the features of the parser: nothing is read
+     */
+    private static final EntityResolver EMPTY_ENTITY_RESOLVER = new EntityResolver()
+    {
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId)
+        {
+            return new InputSource(new StringReader(""));
+        }
+    };
+
+    private static final ThreadLocal<PooledParser> PARSERS = new ThreadLocal<PooledParser>();
+
+    private WorkFileParsers()
+    {
+        // NOP
+    }
+
+    /**
+     * @return a budget with the limits of the current system properties, for the parsings outside of a discovery
+     */
+    static ParseBudget createBudget()
+    {
+        return ParseBudget.create(DiscoveryOptions.fromSystemProperties());
+    }
+
+    /**
+     * Parse a .work file with the parser of the current thread. Errors are logged.
+     *
+     * @param reader
+     *            the content of the file
+     * @param handler
+     *            the handler of the elements
+     * @param filePath
+     *            the path of the file, for the logs
+     * @param budget
+     *            the limits of the parsing
+     * @return {@code true} if no error was encountered during parsing
+     */
+    static boolean parse(Reader reader, DefaultHandler handler, String filePath, ParseBudget budget)
+    {
+        PooledParser pooledParser = PARSERS.get();
+        boolean isPooled = pooledParser != null && !pooledParser.isInUse;
+        SAXParser parser;
+        try
+        {
+            if (isPooled)
+                parser = pooledParser.parser;
+            else
+            {
+                parser = createParser();
+                // the first parser of the thread is kept, a nested parsing uses its own parser
+                if (pooledParser == null)
+                {
+                    pooledParser = new PooledParser(parser);
+                    PARSERS.set(pooledParser);
+                    isPooled = true;
+                }
+            }
+        }
+        catch (ParserConfigurationException e)
+        {
+            Logging.managedError("cast.dmt.discover.jee.bea.parserConfigurationFailure", "MESSAGE", String.valueOf(e.getMessage()));
+            return false;
+        }
+        catch (SAXException e)
+        {
+            Logging.managedError("cast.dmt.discover.jee.bea.parserConfigurationFailure", "MESSAGE", String.valueOf(e.getMessage()));
+            return false;
+        }
+
+        if (isPooled)
+            pooledParser.isInUse = true;
+        try
+        {
+            // the handler is not used as entity resolver, as SAXParser.parse would do
+            XMLReader xmlReader = parser.getXMLReader();
+            xmlReader.setContentHandler(handler);
+            xmlReader.setErrorHandler(handler);
+            xmlReader.setDTDHandler(handler);
+            xmlReader.setEntityResolver(EMPTY_ENTITY_RESOLVER);
+            xmlReader.parse(new InputSource(new BoundedReader(reader, budget.getMaxFileSize())));
+            return true;
+        }
+        catch (AbortedException e)
+        {
+            return false;
+        }
+        catch (SAXException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.parseFailure", "FILE", filePath, "MESSAGE", String.valueOf(e.getMessage()));
+            return false;
+        }
+        catch (IOException e)
+        {
+            Logging.info("cast.dmt.discover.jee.bea.parseFailure", "FILE", filePath, "MESSAGE", String.valueOf(e.getMessage()));
+            return false;
+        }
+        finally
+        {
+            if (isPooled)
+            {
+                parser.reset();
+                pooledParser.isInUse = false;
+            }
+        }
+    }
+
+    private static SAXParser createParser() throws ParserConfigurationException, SAXException
+    {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(false);
+        factory.setValidating(false);
+        factory.setXIncludeAware(false);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        // no external DTD to load and no external entity to expand, the internal entities are bounded by the secure
+        // processing
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        return factory.newSAXParser();
+    }
+
+    /**
+     * Reader failing once the maximum number of characters is read
+     */
+    private static final class BoundedReader extends FilterReader
+    {
+        private final long maxLength;
+        private long length;
+
+        private BoundedReader(Reader reader, long maxLength)
+        {
+            super(reader);
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int c = super.read();
+            if (c >= 0)
+                count(1);
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException
+        {
+            int read = super.read(buffer, offset, count);
+            if (read > 0)
+                count(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException
+        {
+            long skipped = super.skip(count);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public void close()
+        {
+            // closed by the owner of the reader
+        }
+
+        private void count(long read) throws IOException
+        {
+            length += read;
+            if (length > maxLength)
+                throw new IOException("The file exceeds " + maxLength + " characters");
+        }
+    }
+}
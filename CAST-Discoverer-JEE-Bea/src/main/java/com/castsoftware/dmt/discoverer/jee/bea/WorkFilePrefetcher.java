@@ -0,0 +1,184 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parse the .work files of a package in parallel, ahead of the discovery engine.
+ * <p>
+ * Only the parsing runs in the pool: the recorded scans are interpreted by the discovery thread when the engine asks
+ * for the file, so that the projects are created in the same order as a sequential discovery.
+ * <p>
+ * The files whose content is already in the discovery cache are not parsed: their content is hashed in the pool and
+ * the discovery thread rebuilds their projects from the cache.
+ */
+final class WorkFilePrefetcher
+{
+    private final Path packageRoot;
+    private final ForkJoinPool pool;
+    private final ParseBudget budget;
+    // the keys of the cache when the discovery started, never modified
+    private final Set<String> cachedKeys;
+    // only accessed by the discovery thread
+    private final Map<String, Future<RecordedScan>> scans;
+
+    WorkFilePrefetcher(Path packageRoot, int parallelism, ParseBudget budget, Set<String> cachedKeys)
+    {
+        this.packageRoot = packageRoot;
+        this.budget = budget;
+        this.cachedKeys = cachedKeys;
+        pool = new ForkJoinPool(parallelism);
+        scans = new HashMap<String, Future<RecordedScan>>();
+    }
+
+    /**
+     * Find the .work files of the package and submit their parsing.
+     *
+     * @return the number of .work files found
+     * @throws IOException
+     *             if the package cannot be browsed
+     */
+    int start() throws IOException
+    {
+        final List<Path> files = new ArrayList<Path>();
+        Files.walkFileTree(packageRoot, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".work"))
+                    files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+
+        for (final Path file : files)
+        {
+            final String relativeFilePath = packageRoot.relativize(file).toString().replace('\\', '/');
+            scans.put(relativeFilePath, pool.submit(new Callable<RecordedScan>()
+            {
+                @Override
+                public RecordedScan call() throws IOException
+                {
+                    RecordedScan scan = new RecordedScan();
+                    if (cachedKeys.isEmpty())
+                    {
+                        // the files of other tools are rejected by the discoverer
+                        if (isWorkshopFile(file))
+                            scan.setOk(ProjectFileScanner.scan(scan, relativeFilePath, file, scan.getMetrics(), budget));
+                        return scan;
+                    }
+                    String content = read(file);
+                    // left to the cache: the scan stays failed and is not taken
+                    if (WorkFileSignature.matches(content) && !cachedKeys.contains(DiscoveryCache.key(content)))
+                        scan.setOk(ProjectFileScanner.scan(scan, relativeFilePath, content, scan.getMetrics(), budget));
+                    return scan;
+                }
+            }));
+        }
+        return files.size();
+    }
+
+    private static boolean isWorkshopFile(Path file) throws IOException
+    {
+        Reader reader = WorkFileReaders.open(file);
+        try
+        {
+            return WorkFileSignature.matches(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static String read(Path file) throws IOException
+    {
+        Reader reader = WorkFileReaders.open(file);
+        try
+        {
+            StringBuilder content = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) >= 0)
+                content.append(buffer, 0, read);
+            return content.toString();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Take the parsing of a .work file, waiting for it if needed.
+     *
+     * @param relativeFilePath
+     *            the path of the .work file relative to the package root
+     * @return null if the file was not parsed ahead or if its parsing failed
+     */
+    RecordedScan take(String relativeFilePath)
+    {
+        Future<RecordedScan> scan = scans.remove(relativeFilePath);
+        if (scan == null)
+            return null;
+        try
+        {
+            RecordedScan recordedScan = scan.get();
+            return recordedScan.isOk() ? recordedScan : null;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Drop the parsing of a .work file found in the cache, cancelling it if it has not started.
+     *
+     * @param relativeFilePath
+     *            the path of the .work file relative to the package root
+     */
+    void discard(String relativeFilePath)
+    {
+        Future<RecordedScan> scan = scans.remove(relativeFilePath);
+        if (scan != null)
+            scan.cancel(false);
+    }
+
+    /**
+     * Stop the pending parsing and release the threads.
+     */
+    void close()
+    {
+        pool.shutdownNow();
+        scans.clear();
+    }
+}
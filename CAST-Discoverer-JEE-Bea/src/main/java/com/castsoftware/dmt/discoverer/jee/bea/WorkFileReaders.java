@@ -0,0 +1,163 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Readers decoding a .work file incrementally, so that the file is never held in memory as a whole.
+ * <p>
+ * The charset is taken from the byte order mark or from the encoding of the XML declaration, UTF-8 otherwise.
+ */
+final class WorkFileReaders
+{
+    /**
+     * Number of bytes inspected to find the XML declaration
+     */
+    private static final int PROLOG_SIZE = 256;
+    /**
+     * Size of the decoding buffer
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private WorkFileReaders()
+    {
+        // NOP
+    }
+
+    /**
+     * Open a reader on a .work file through a file channel.
+     *
+     * @param file
+     *            the .work file
+     * @return the reader, to be closed by the caller
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    static Reader open(Path file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            ByteBuffer prolog = ByteBuffer.allocate(PROLOG_SIZE);
+            while (prolog.hasRemaining() && channel.read(prolog) >= 0)
+            {
+                // fill the prolog
+            }
+            prolog.flip();
+            byte[] bytes = new byte[prolog.remaining()];
+            prolog.get(bytes);
+
+            channel.position(utf8BomLength(bytes, bytes.length));
+            return Channels.newReader(channel, newDecoder(detectCharset(bytes, bytes.length)), BUFFER_SIZE);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a reader on the content of a .work file.
+     *
+     * @param stream
+     *            the content of the .work file
+     * @return the reader, closing the stream when closed
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    static Reader open(InputStream stream) throws IOException
+    {
+        BufferedInputStream input = new BufferedInputStream(stream, BUFFER_SIZE);
+        input.mark(PROLOG_SIZE);
+        byte[] bytes = new byte[PROLOG_SIZE];
+        int length = 0;
+        int read;
+        while (length < PROLOG_SIZE && (read = input.read(bytes, length, PROLOG_SIZE - length)) >= 0)
+            length += read;
+        input.reset();
+
+        long bomLength = utf8BomLength(bytes, length);
+        while (bomLength > 0)
+            bomLength -= input.skip(bomLength);
+        return new InputStreamReader(input, newDecoder(detectCharset(bytes, length)));
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset)
+    {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * The UTF-8 byte order mark is skipped as the XML parser does not expect it from a character stream. The UTF-16
+     * ones are consumed by the decoder.
+     */
+    private static int utf8BomLength(byte[] prolog, int length)
+    {
+        if (length >= 3 && (prolog[0] & 0xFF) == 0xEF && (prolog[1] & 0xFF) == 0xBB && (prolog[2] & 0xFF) == 0xBF)
+            return 3;
+        return 0;
+    }
+
+    private static Charset detectCharset(byte[] prolog, int length)
+    {
+        if (length >= 2)
+        {
+            int b0 = prolog[0] & 0xFF;
+            int b1 = prolog[1] & 0xFF;
+            if ((b0 == 0xFE && b1 == 0xFF) || (b0 == 0xFF && b1 == 0xFE))
+                return StandardCharsets.UTF_16;
+            if (b0 == 0x00 && b1 == '<')
+                return StandardCharsets.UTF_16BE;
+            if (b0 == '<' && b1 == 0x00)
+                return StandardCharsets.UTF_16LE;
+        }
+
+        // the XML declaration is ASCII compatible
+        String declaration = new String(prolog, 0, length, StandardCharsets.ISO_8859_1);
+        if (!declaration.startsWith("<?xml", utf8BomLength(prolog, length)))
+            return StandardCharsets.UTF_8;
+        int end = declaration.indexOf("?>");
+        if (end < 0)
+            return StandardCharsets.UTF_8;
+        int encodingPos = declaration.indexOf("encoding", 0);
+        if (encodingPos < 0 || encodingPos > end)
+            return StandardCharsets.UTF_8;
+        int quotePos = encodingPos + "encoding".length();
+        while (quotePos < end && declaration.charAt(quotePos) != '"' && declaration.charAt(quotePos) != '\'')
+            quotePos++;
+        if (quotePos >= end)
+            return StandardCharsets.UTF_8;
+        int closingQuotePos = declaration.indexOf(declaration.charAt(quotePos), quotePos + 1);
+        if (closingQuotePos < 0 || closingQuotePos > end)
+            return StandardCharsets.UTF_8;
+        String encoding = declaration.substring(quotePos + 1, closingQuotePos);
+        try
+        {
+            return Charset.forName(encoding);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Cheap check that a .work file is a Workshop application file, so that the .work files of other tools are rejected
+ * without being parsed.
+ * <p>
+ * Only the beginning of the file is inspected: the root element must be {@code <application>} and a Workshop marker
+ * (a {@code urn:com-bea-ide} project type or a {@code com.bea.ide} component) must follow.
+ */
+final class WorkFileSignature
+{
+    /**
+     * Number of characters inspected
+     */
+    static final int PREFIX_LENGTH = 16 * 1024;
+
+    private static final String ROOT_ELEMENT = "<application";
+    private static final String[] MARKERS = { "urn:com-bea-ide", "com.bea.ide." };
+
+    private WorkFileSignature()
+    {
+        // NOP
+    }
+
+    /**
+     * Check the content of a .work file
+     *
+     * @param content
+     *            the content of the file
+     * @return {@code true} if the file may be a Workshop application file
+     */
+    static boolean matches(CharSequence content)
+    {
+        int length = Math.min(content.length(), PREFIX_LENGTH);
+        int rootEnd = findRootElement(content, length);
+        if (rootEnd < 0)
+            return false;
+        for (String marker : MARKERS)
+        {
+            if (indexOf(content, marker, rootEnd, length) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check the beginning of a .work file
+     *
+     * @param reader
+     *            the reader of the file, positioned at its beginning. Up to {@link #PREFIX_LENGTH} characters are
+     *            consumed.
+     * @return {@code true} if the file may be a Workshop application file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    static boolean matches(Reader reader) throws IOException
+    {
+        char[] prefix = new char[PREFIX_LENGTH];
+        int length = 0;
+        int read;
+        while (length < PREFIX_LENGTH && (read = reader.read(prefix, length, PREFIX_LENGTH - length)) >= 0)
+            length += read;
+        return matches(CharBuffer.wrap(prefix, 0, length));
+    }
+
+    /**
+     * Skip the prolog (XML declaration, comments, doctype) and check the root element.
+     *
+     * @return the position after the root element name, -1 if the root element is not {@code <application>}
+     */
+    private static int findRootElement(CharSequence content, int length)
+    {
+        int pos = 0;
+        while (pos < length)
+        {
+            char c = content.charAt(pos);
+            if (Character.isWhitespace(c) || c == '\uFEFF')
+            {
+                pos++;
+                continue;
+            }
+            if (c != '<' || pos + 1 >= length)
+                return -1;
+
+            char next = content.charAt(pos + 1);
+            if (next == '?')
+                pos = skipTo(content, "?>", pos + 2, length);
+            else if (next == '!' && startsWith(content, "<!--", pos, length))
+                pos = skipTo(content, "-->", pos + 4, length);
+            else if (next == '!')
+                pos = skipTo(content, ">", pos + 2, length);
+            else
+            {
+                int end = pos + ROOT_ELEMENT.length();
+                if (!startsWith(content, ROOT_ELEMENT, pos, length) || end >= length)
+                    return -1;
+                char afterName = content.charAt(end);
+                if (afterName == '>' || afterName == '/' || Character.isWhitespace(afterName))
+                    return end;
+                return -1;
+            }
+            if (pos < 0)
+                return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position after the string, -1 if not found
+     */
+    private static int skipTo(CharSequence content, String string, int start, int length)
+    {
+        int pos = indexOf(content, string, start, length);
+        return pos < 0 ? -1 : pos + string.length();
+    }
+
+    private static boolean startsWith(CharSequence content, String string, int start, int length)
+    {
+        if (start + string.length() > length)
+            return false;
+        for (int i = 0; i < string.length(); i++)
+        {
+            if (content.charAt(start + i) != string.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence content, String string, int start, int length)
+    {
+        char first = string.charAt(0);
+        int last = length - string.length();
+        for (int pos = start; pos <= last; pos++)
+        {
+            if (content.charAt(pos) == first && startsWith(content, string, pos, length))
+                return pos;
+        }
+        return -1;
+    }
+}
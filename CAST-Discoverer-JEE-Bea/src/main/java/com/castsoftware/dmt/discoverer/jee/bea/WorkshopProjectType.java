@@ -0,0 +1,63 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+/**
+ * Types of the Workshop projects declared in a bea .work file
+ */
+public enum WorkshopProjectType
+{
+    /**
+     * Java project: source folders referencing the other java projects
+     */
+    JAVA("urn:com-bea-ide:project.type:Java"),
+    /**
+     * Web application
+     */
+    WEB_APP("urn:com-bea-ide:project.type:WebApp"),
+    /**
+     * EJB project
+     */
+    EJB("urn:com-bea-ide:project.type:EJB"),
+    /**
+     * Schema project, not discovered
+     */
+    SCHEMA("urn:com-bea-ide:project.type:Schema"),
+    /**
+     * Any other or missing type: the project is discovered without source folders
+     */
+    OTHER(null);
+
+    private final String urn;
+
+    private WorkshopProjectType(String urn)
+    {
+        this.urn = urn;
+    }
+
+    /**
+     * @return the URN of the type in the .work file, null for {@link #OTHER}
+     */
+    public String getUrn()
+    {
+        return urn;
+    }
+
+    /**
+     * The type of a project
+     *
+     * @param urn
+     *            the value of the type option, may be null
+     * @return {@link #OTHER} if the type is unknown
+     */
+    public static WorkshopProjectType fromUrn(String urn)
+    {
+        if (urn != null)
+        {
+            for (WorkshopProjectType type : values())
+            {
+                if (urn.equals(type.urn))
+                    return type;
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,508 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner.IProjectInterpreter;
+import com.castsoftware.util.StringHelper;
+
+/**
+ * Compact representation of the projects of a parsed bea .work file, independent from the discovery engine.
+ * <p>
+ * The strings are interned into int ids, the projects are identified by their index in the file and their
+ * dependencies are kept as bitsets. The model is built in one pass by {@link Builder} and the projects are created
+ * from it in one step once the file is parsed.
+ */
+public final class WorkspaceModel
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Entries of the projects (class path, source path), each entry being kept once per project
+     */
+    private static final class ProjectEntries
+    {
+        // the entries of the project i are entries[starts[i]] to entries[starts[i + 1] - 1]
+        private int[] starts;
+        private int[] entries;
+        private int count;
+        // entries already added to the current project
+        private final BitSet projectEntries;
+
+        private ProjectEntries()
+        {
+            starts = new int[INITIAL_CAPACITY + 1];
+            entries = new int[INITIAL_CAPACITY * 4];
+            projectEntries = new BitSet();
+        }
+
+        private int getCount(int project)
+        {
+            return starts[project + 1] - starts[project];
+        }
+
+        private int get(int project, int index)
+        {
+            return entries[starts[project] + index];
+        }
+
+        private void add(int id)
+        {
+            if (projectEntries.get(id))
+                return;
+            projectEntries.set(id);
+            if (count == entries.length)
+                entries = Arrays.copyOf(entries, count * 2);
+            entries[count++] = id;
+        }
+
+        /**
+         * The entries received so far belong to the project
+         */
+        private void endProject(int project)
+        {
+            if (project + 1 == starts.length)
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            starts[project + 1] = count;
+        }
+
+        /**
+         * Drop the entries of a project which was not added
+         */
+        private void resetProject(int projectCount)
+        {
+            count = starts[projectCount];
+            projectEntries.clear();
+        }
+    }
+
+    private final StringTable strings;
+    private int projectCount;
+    private int[] names;
+    // -1 when the option is missing
+    private int[] paths;
+    private int[] typeUrns;
+    // -1 when the web content is the project folder
+    private int[] webContentPaths;
+    private WorkshopProjectType[] types;
+    private final ProjectEntries classpaths;
+    private final ProjectEntries sourcepaths;
+    // the names of the projects declared by the project.dependencies option
+    private final ProjectEntries declaredDependencies;
+    private final ProjectDependencies dependencies;
+    private boolean hasDependencies;
+    private List<String> excludedDirectories;
+    private String outputDirectory;
+    private boolean isEclipseWorkspace;
+
+    private WorkspaceModel()
+    {
+        strings = new StringTable();
+        names = new int[INITIAL_CAPACITY];
+        paths = new int[INITIAL_CAPACITY];
+        typeUrns = new int[INITIAL_CAPACITY];
+        webContentPaths = new int[INITIAL_CAPACITY];
+        types = new WorkshopProjectType[INITIAL_CAPACITY];
+        classpaths = new ProjectEntries();
+        sourcepaths = new ProjectEntries();
+        declaredDependencies = new ProjectEntries();
+        dependencies = new ProjectDependencies();
+        excludedDirectories = Collections.emptyList();
+    }
+
+    /**
+     * @return the number of projects, the schema projects excluded
+     */
+    public int getProjectCount()
+    {
+        return projectCount;
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the name of the project
+     */
+    public String getProjectName(int project)
+    {
+        return strings.get(names[project]);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the project.path option, relative to the folder of the .work file. null if missing.
+     */
+    public String getProjectPath(int project)
+    {
+        return getString(paths[project]);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the type option of the project, null if missing
+     */
+    public String getProjectTypeUrn(int project)
+    {
+        return getString(typeUrns[project]);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the folder of the web content of the project, relative to the project folder. null if it is the project
+     *         folder.
+     */
+    public String getWebContentPath(int project)
+    {
+        return getString(webContentPaths[project]);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the type of the project
+     */
+    public WorkshopProjectType getProjectType(int project)
+    {
+        return types[project];
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the number of distinct class path entries of the project
+     */
+    public int getClasspathCount(int project)
+    {
+        return classpaths.getCount(project);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @param index
+     *            the index of the entry, in the order of the class.path options
+     * @return the class path entry
+     */
+    public String getClasspath(int project, int index)
+    {
+        return strings.get(classpaths.get(project, index));
+    }
+
+    int getClasspathId(int project, int index)
+    {
+        return classpaths.get(project, index);
+    }
+
+    /**
+     * @return the number of distinct strings of the model
+     */
+    int getStringCount()
+    {
+        return strings.size();
+    }
+
+    /**
+     * @param id
+     *            the id of a string of the model
+     * @return the string
+     */
+    String getString(int id)
+    {
+        return id < 0 ? null : strings.get(id);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the number of distinct source path entries of the project, 0 when the sources are in the project folder
+     */
+    public int getSourcepathCount(int project)
+    {
+        return sourcepaths.getCount(project);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @param index
+     *            the index of the entry, in the order of the source.path options
+     * @return the source path entry, as written in the .work file
+     */
+    public String getSourcepath(int project, int index)
+    {
+        return strings.get(sourcepaths.get(project, index));
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @return the number of distinct projects declared by the project.dependencies option of the project
+     */
+    public int getDeclaredDependencyCount(int project)
+    {
+        return declaredDependencies.getCount(project);
+    }
+
+    /**
+     * @param project
+     *            the index of the project
+     * @param index
+     *            the index of the declared dependency, in the order of the option
+     * @return the name of the project the project depends on, as written in the .work file
+     */
+    public String getDeclaredDependency(int project, int index)
+    {
+        return strings.get(declaredDependencies.get(project, index));
+    }
+
+    /**
+     * @return the names of the folders excluded from the application (excludedirs option)
+     */
+    public List<String> getExcludedDirectories()
+    {
+        return excludedDirectories;
+    }
+
+    /**
+     * @return the output directory of the EAR build (output.directory option of the EARBuild node), as written in the
+     *         .work file. null if the option is missing.
+     */
+    public String getOutputDirectory()
+    {
+        return outputDirectory;
+    }
+
+    /**
+     * @return {@code true} if the dependencies between the projects must be added
+     */
+    public boolean hasDependencies()
+    {
+        return hasDependencies;
+    }
+
+    ProjectDependencies getDependencies()
+    {
+        return dependencies;
+    }
+
+    /**
+     * @return {@code true} if the projects were read from Eclipse descriptors, whose class path is complete
+     */
+    public boolean isEclipseWorkspace()
+    {
+        return isEclipseWorkspace;
+    }
+
+    /**
+     * Interpreter building the model while the .work file is parsed
+     */
+    static final class Builder implements IProjectInterpreter
+    {
+        private final WorkspaceModel model;
+        private int path;
+        private int typeUrn;
+        private int webContentPath;
+
+        Builder()
+        {
+            model = new WorkspaceModel();
+            path = -1;
+            typeUrn = -1;
+            webContentPath = -1;
+        }
+
+        /**
+         * @return the model built from the calls received so far
+         */
+        WorkspaceModel build()
+        {
+            return model;
+        }
+
+        @Override
+        public void init()
+        {
+            // ignore
+        }
+
+        @Override
+        public void done()
+        {
+            // ignore
+        }
+
+        @Override
+        public void open(String resourceId)
+        {
+            // ignore
+        }
+
+        @Override
+        public void close()
+        {
+            // ignore
+        }
+
+        @Override
+        public void setExcludedDirectories(String excludedDirectories)
+        {
+            List<String> directories = new ArrayList<String>();
+            for (String directory : split(excludedDirectories))
+                directories.add(directory);
+            model.excludedDirectories = Collections.unmodifiableList(directories);
+        }
+
+        @Override
+        public void setOutputDirectory(String outputDirectory)
+        {
+            model.outputDirectory = outputDirectory;
+        }
+
+        @Override
+        public void setProjectPath(String projectPath)
+        {
+            path = model.strings.intern(projectPath);
+        }
+
+        @Override
+        public void setProjectType(String type)
+        {
+            typeUrn = type == null ? -1 : model.strings.intern(type);
+        }
+
+        @Override
+        public void setProjectDependencies(String dependencies)
+        {
+            for (String dependency : split(dependencies))
+                model.declaredDependencies.add(model.strings.intern(dependency.trim()));
+        }
+
+        @Override
+        public void addClasspath(String classpath)
+        {
+            for (String entry : split(classpath))
+                model.classpaths.add(model.strings.intern(entry));
+        }
+
+        @Override
+        public void addSourcepath(String sourcepath)
+        {
+            for (String entry : split(sourcepath))
+                model.sourcepaths.add(model.strings.intern(entry));
+        }
+
+        @Override
+        public void addProject(String name)
+        {
+            WorkshopProjectType type = WorkshopProjectType.fromUrn(model.getString(typeUrn));
+            if (type != WorkshopProjectType.SCHEMA)
+                model.addProject(model.strings.intern(name), path, typeUrn, webContentPath, type);
+        }
+
+        @Override
+        public void addProjectSourceFolders()
+        {
+            // part of the project
+        }
+
+        @Override
+        public void addClasspaths()
+        {
+            // part of the project
+        }
+
+        @Override
+        public void resetProject()
+        {
+            model.classpaths.resetProject(model.projectCount);
+            model.sourcepaths.resetProject(model.projectCount);
+            model.declaredDependencies.resetProject(model.projectCount);
+            path = -1;
+            typeUrn = -1;
+            webContentPath = -1;
+        }
+
+        @Override
+        public void addProjectDependencies()
+        {
+            model.hasDependencies = true;
+        }
+
+        @Override
+        public void setWebContentPath(String webContentPath)
+        {
+            this.webContentPath = webContentPath == null ? -1 : model.strings.intern(webContentPath);
+        }
+
+        @Override
+        public void setEclipseWorkspace()
+        {
+            model.isEclipseWorkspace = true;
+        }
+
+        /**
+         * The non empty entries of a list separated by ;
+         */
+        private static List<String> split(String list)
+        {
+            if (list == null)
+                return Collections.emptyList();
+            List<String> entries = new ArrayList<String>();
+            int start = 0;
+            int length = list.length();
+            while (start <= length)
+            {
+                int end = list.indexOf(';', start);
+                if (end < 0)
+                    end = length;
+                String entry = list.substring(start, end);
+                if (!StringHelper.isEmpty(entry))
+                    entries.add(entry);
+                start = end + 1;
+            }
+            return entries;
+        }
+    }
+
+    private void addProject(int name, int path, int typeUrn, int webContentPath, WorkshopProjectType type)
+    {
+        if (projectCount == names.length)
+        {
+            int capacity = projectCount * 2;
+            names = Arrays.copyOf(names, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            typeUrns = Arrays.copyOf(typeUrns, capacity);
+            webContentPaths = Arrays.copyOf(webContentPaths, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        names[projectCount] = name;
+        paths[projectCount] = path;
+        typeUrns[projectCount] = typeUrn;
+        webContentPaths[projectCount] = webContentPath;
+        types[projectCount] = type;
+        switch (type)
+        {
+        case JAVA:
+            dependencies.addJavaProject(projectCount);
+            break;
+        case WEB_APP:
+            dependencies.addWebProject(projectCount);
+            break;
+        case EJB:
+            dependencies.addEjbProject(projectCount);
+            break;
+        default:
+            break;
+        }
+        classpaths.endProject(projectCount);
+        sourcepaths.endProject(projectCount);
+        declaredDependencies.endProject(projectCount);
+        projectCount++;
+    }
+}
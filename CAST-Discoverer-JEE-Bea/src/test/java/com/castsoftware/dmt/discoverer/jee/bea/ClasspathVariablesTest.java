@@ -0,0 +1,56 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests for the resolution of the class path variables
+ *
+ */
+public class ClasspathVariablesTest
+{
+    private static ClasspathVariables createVariables()
+    {
+        WorkspaceModel model = ProjectFileScanner.parse("app/app.work", WorkspaceGenerator.generate(3));
+        return ClasspathVariables.create(model, "app", Collections.singletonMap("WL_HOME", "C:/bea/weblogic81"));
+    }
+
+    /**
+     * Test that the variables of the application and of the user are replaced
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void resolve() throws Throwable
+    {
+        ClasspathVariables variables = createVariables();
+
+        assertEquals("./lib/a.jar", variables.resolve("./lib/a.jar"));
+        assertEquals("app/Project2/lib/a.jar", variables.resolve("${Project2.root}/lib/a.jar"));
+        assertEquals("app/APP-INF/lib", variables.resolve("${app.root}/APP-INF/lib"));
+        assertEquals("C:/bea/weblogic81/server/lib/weblogic.jar", variables.resolve("${WL_HOME}/server/lib/weblogic.jar"));
+        // the character before the variable is kept
+        assertEquals("x/app/Project0;app/Project1", variables.resolve("x/${Project0.root};${Project1.root}"));
+        assertEquals("${unterminated", variables.resolve("${unterminated"));
+    }
+
+    /**
+     * Test that the entries with unknown variables are not supported
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void unknownVariable() throws Throwable
+    {
+        ClasspathVariables variables = createVariables();
+
+        assertNull(variables.resolve("${Project4.root}/lib/a.jar"));
+        assertNull(variables.resolve("${Project0.root}/${BEA_HOME}/a.jar"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
+import com.castsoftware.dmt.engine.project.IProfileReadOnly;
+import com.castsoftware.dmt.engine.project.Project;
+
+/**
+ * Discovery engine stub counting the calls made by the discoverer to the engine utilities and to the projects, without
+ * recording them so that the stub weighs as little as possible on the measures.
+ * <p>
+ * The projects of a workspace generated by {@link WorkspaceGenerator} are created with the stub, before the discovery.
+ */
+class CountingEngine
+{
+    /**
+     * Path of the generated .work file
+     */
+    static final String WORK_FILE = "app/app.work";
+
+    final IProjectsDiscovererUtilities utilities;
+    final Project workProject;
+    // the calls adding something to the package: projects, metadata and references
+    private int callCount;
+
+    /**
+     * @param projectCount
+     *            the number of projects of the generated workspace
+     */
+    CountingEngine(int projectCount)
+    {
+        final RecordingEngine configurationEngine = new RecordingEngine();
+        final Map<String, Project> projects = new HashMap<String, Project>();
+        for (int i = 0; i < projectCount; i++)
+        {
+            String name = WorkspaceGenerator.projectName(i);
+            String id = WORK_FILE.concat("_").concat(name);
+            projects.put(id, createProject(id, name, "app/".concat(name), null));
+        }
+        workProject = createProject(WORK_FILE, WORK_FILE, "app", WORK_FILE);
+
+        utilities = mock(IProjectsDiscovererUtilities.class, withSettings().stubOnly().defaultAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                String methodName = invocation.getMethod().getName();
+                if ("getProjectTypeConfiguration".equals(methodName))
+                    return configurationEngine.utilities.getProjectTypeConfiguration(RecordingEngine.PROJECT_TYPE);
+                if ("getProject".equals(methodName))
+                    return projects.get(invocation.getArgument(0));
+                callCount++;
+                if ("createInitialProject".equals(methodName))
+                    return projects.get(invocation.getArgument(0));
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        }));
+    }
+
+    /**
+     * @return the number of projects, metadata and references added, and of projects created or deleted
+     */
+    int getCallCount()
+    {
+        return callCount;
+    }
+
+    private Project createProject(final String id, final String name, final String path, final String descriptor)
+    {
+        return mock(Project.class, withSettings().stubOnly().defaultAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                String methodName = invocation.getMethod().getName();
+                if ("getId".equals(methodName) || "getResourceId".equals(methodName))
+                    return id;
+                if ("getName".equals(methodName))
+                    return name;
+                if ("getType".equals(methodName))
+                    return RecordingEngine.PROJECT_TYPE;
+                if ("getPath".equals(methodName))
+                    return path;
+                if ("getMetadata".equals(methodName) && descriptor != null
+                    && IProfileReadOnly.METADATA_DESCRIPTOR.equals(invocation.getArgument(0)))
+                    return RecordingEngine.createMetadata(invocation.getMethod().getReturnType(), descriptor);
+                if ("buildPackageRelativePath".equals(methodName))
+                    return "%".concat(id).concat("%/").concat((String) invocation.getArgument(0));
+                callCount++;
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        }));
+    }
+}
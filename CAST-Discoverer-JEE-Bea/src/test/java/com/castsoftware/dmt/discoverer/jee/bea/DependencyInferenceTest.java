@@ -0,0 +1,157 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the inference of the dependencies between the projects of a .work file
+ *
+ */
+public class DependencyInferenceTest
+{
+    private static final String WORK_FILE = "app/app.work";
+
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.INFER_DEPENDENCIES);
+    }
+
+    private static String project(String name, String type, String options, String classpath)
+    {
+        return "    <project name=\"" + name + "\">\n"
+            + "      <option name=\"project.path\" value=\"./" + name + "\" />\n"
+            + "      <option name=\"type\" value=\"urn:com-bea-ide:project.type:" + type + "\" />\n"
+            + options
+            + "      <components>\n"
+            + "        <component name=\"com.bea.ide.JavaCompiler\">\n"
+            + "          <option name=\"class.path\" value=\"" + classpath + "\" />\n"
+            + "        </component>\n"
+            + "      </components>\n"
+            + "    </project>\n";
+    }
+
+    private List<String> discover(String... projects) throws Throwable
+    {
+        StringBuilder content = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<application>\n  <projects>\n");
+        for (String project : projects)
+            content.append(project);
+        content.append("  </projects>\n</application>\n");
+        File file = new File(folder.getRoot(), WORK_FILE);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        discoverer.buildProject(WORK_FILE, content.toString(), engine.createWorkProject(WORK_FILE), engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    private List<String> discoverApplication() throws Throwable
+    {
+        return discover(project("Util", "Java", "", "./Util/lib/log4j.jar"),
+            project("Common", "Java", "", ""),
+            project("Model", "Java", "      <option name=\"project.dependencies\" value=\"Common;Unknown\" />\n", ""),
+            project("Web", "WebApp", "", "${Util.root};./APP-INF/lib/Model.jar"));
+    }
+
+    private static List<String> getProjectReferences(List<String> calls)
+    {
+        List<String> references = new ArrayList<String>();
+        for (String call : calls)
+        {
+            if (call.contains(".addProjectReference["))
+                references.add(call);
+        }
+        return references;
+    }
+
+    /**
+     * Test that the projects are linked all to all by default
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void linkAllToAllByDefault() throws Throwable
+    {
+        List<String> references = getProjectReferences(discoverApplication());
+
+        assertTrue(references.contains("app/app.work_Util.addProjectReference[app/app.work_Common]"));
+        assertTrue(references.contains("app/app.work_Common.addProjectReference[app/app.work_Model]"));
+        assertTrue(references.contains("app/app.work_Web.addProjectReference[app/app.work_Common]"));
+    }
+
+    /**
+     * Test that the projects are linked by their class path entries and their declared dependencies only
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void inferDependencies() throws Throwable
+    {
+        System.setProperty(DiscoveryOptions.INFER_DEPENDENCIES, "true");
+
+        List<String> calls = discoverApplication();
+
+        assertEquals(Arrays.asList("app/app.work_Model.addProjectReference[app/app.work_Common]",
+            "app/app.work_Web.addProjectReference[app/app.work_Model]",
+            "app/app.work_Web.addProjectReference[app/app.work_Util]"), getProjectReferences(calls));
+        int libraryCount = 0;
+        for (String call : calls)
+        {
+            // replaced by the project references
+            assertFalse(call, call.contains("Model.jar"));
+            assertFalse(call, call.startsWith("app/app.work_Web.addDirectoryReference") && call.contains("/Util"));
+            if (call.startsWith("app/app.work_Util.addContainerReference") && call.endsWith("/Util/lib/log4j.jar, 1, 1]"))
+                libraryCount++;
+        }
+        // the other entries are kept
+        assertEquals(1, libraryCount);
+    }
+
+    /**
+     * Test that the projects are linked all to all when no dependency can be inferred
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void linkAllToAllWithoutInferredDependency() throws Throwable
+    {
+        System.setProperty(DiscoveryOptions.INFER_DEPENDENCIES, "true");
+
+        List<String> references = getProjectReferences(discover(project("Util", "Java", "", ""),
+            project("Common", "Java", "", ""), project("Web", "WebApp", "", "")));
+
+        assertEquals(Arrays.asList("app/app.work_Util.addProjectReference[app/app.work_Common]",
+            "app/app.work_Common.addProjectReference[app/app.work_Util]",
+            "app/app.work_Web.addProjectReference[app/app.work_Common]",
+            "app/app.work_Web.addProjectReference[app/app.work_Util]"), references);
+    }
+}
@@ -0,0 +1,141 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScannerTest.RecordingInterpreter;
+
+/**
+ * Tests for the cache of the parsed .work files
+ *
+ */
+public class DiscoveryCacheTest
+{
+    /**
+     * Temporary folder receiving the cache file
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.CACHE_FILE);
+    }
+
+    private static RecordedScan record(String content)
+    {
+        RecordedScan scan = new RecordedScan();
+        scan.setOk(ProjectFileScanner.scan(scan, "test.work", content));
+        return scan;
+    }
+
+    private static List<String> replay(RecordedScan scan)
+    {
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        scan.replay(interpreter);
+        return interpreter.calls;
+    }
+
+    /**
+     * Test that the parsing read back from the cache file replays the same calls
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void saveAndLoad() throws Throwable
+    {
+        Path file = new File(folder.getRoot(), "test.cache").toPath();
+        String content = WorkspaceGenerator.generate(20);
+        String key = DiscoveryCache.key(content);
+
+        DiscoveryCache cache = DiscoveryCache.load(file, 10);
+        assertNull(cache.get(key));
+        cache.put(key, record(content));
+        cache.save();
+
+        DiscoveryCache loadedCache = DiscoveryCache.load(file, 10);
+        RecordedScan scan = loadedCache.get(key);
+        assertNotNull(scan);
+        assertEquals(replay(record(content)), replay(scan));
+        assertEquals(1, loadedCache.getHits());
+        assertEquals(0, loadedCache.getMisses());
+    }
+
+    /**
+     * Test that the least recently used entries are evicted above the maximum number of entries
+     */
+    @Test
+    public void evictLeastRecentlyUsed()
+    {
+        DiscoveryCache cache = DiscoveryCache.load(new File(folder.getRoot(), "test.cache").toPath(), 2);
+        cache.put("a", new RecordedScan());
+        cache.put("b", new RecordedScan());
+        cache.get("a");
+        cache.put("c", new RecordedScan());
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+    }
+
+    /**
+     * Test that a cache file which is not a cache is ignored
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void ignoreInvalidFile() throws Throwable
+    {
+        File file = folder.newFile("test.cache");
+        Files.write(file.toPath(), "not a cache".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, DiscoveryCache.load(file.toPath(), 10).size());
+    }
+
+    /**
+     * Test that a discovery replayed from the cache gives the same projects as the parsing
+     */
+    @Test
+    public void discoverFromCache()
+    {
+        System.setProperty(DiscoveryOptions.CACHE_FILE, new File(folder.getRoot(), "test.cache").getPath());
+        String content = WorkspaceGenerator.generate(15);
+
+        List<String> parsedCalls = discover(content);
+        List<String> cachedCalls = discover(content);
+
+        assertFalse(parsedCalls.isEmpty());
+        assertEquals(parsedCalls, cachedCalls);
+    }
+
+    private List<String> discover(String content)
+    {
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        discoverer.buildProject("app/app.work", content, engine.createWorkProject("app/app.work"), engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+}
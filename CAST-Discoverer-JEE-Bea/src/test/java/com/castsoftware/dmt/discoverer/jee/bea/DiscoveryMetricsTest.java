@@ -0,0 +1,89 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the measures of the discovery
+ *
+ */
+public class DiscoveryMetricsTest
+{
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that the values are counted in buckets doubling in size
+     */
+    @Test
+    public void histogramBuckets()
+    {
+        Histogram histogram = new Histogram();
+        for (long value : new long[] { 0, 1, 2, 3, 5, 7, 8, 1000 })
+            histogram.add(value);
+
+        Map<String, Long> expected = new LinkedHashMap<String, Long>();
+        expected.put("0", 1L);
+        expected.put("1", 1L);
+        expected.put("2-3", 2L);
+        expected.put("4-7", 2L);
+        expected.put("8-15", 1L);
+        expected.put("512-1023", 1L);
+        assertEquals(expected, histogram.toMap());
+        assertEquals(8, histogram.getCount());
+        assertEquals("0:1 1:1 2-3:2 4-7:2 8-15:1 512-1023:1", histogram.toString());
+    }
+
+    /**
+     * Test that the measures of a discovery are exposed through JMX
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void exposeDiscoveryMetrics() throws Throwable
+    {
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        // 10 projects: 4 Java, 2 WebApp, 2 EJB and 2 Schema ones, not discovered
+        discoverer.buildProject("app/app.work", WorkspaceGenerator.generate(10), engine.createWorkProject("app/app.work"),
+            engine.utilities);
+        discoverer.buildProject("other/other.work", "<project />", engine.createWorkProject("other/other.work"),
+            engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+
+        int referenceCount = 0;
+        for (String call : engine.calls)
+        {
+            if (call.contains(".add") && call.contains("Reference["))
+                referenceCount++;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(DiscoveryMetricsMXBean.OBJECT_NAME);
+        assertEquals(2, server.getAttribute(name, "FileCount"));
+        assertEquals(8L, server.getAttribute(name, "ProjectCount"));
+        assertEquals(2L, server.getAttribute(name, "DeletedProjectCount"));
+        assertEquals((long) referenceCount, server.getAttribute(name, "ReferenceCount"));
+        assertTrue((Long) server.getAttribute(name, "ElementCount") > 10);
+        // the rejected file is not parsed
+        String[] slowestFiles = (String[]) server.getAttribute(name, "SlowestFiles");
+        assertEquals(1, slowestFiles.length);
+        assertTrue(slowestFiles[0].startsWith("app/app.work="));
+    }
+}
@@ -0,0 +1,225 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the discovery of the Eclipse-based Workshop projects
+ *
+ */
+public class EclipseProjectTest
+{
+    private static final String WEB_PROJECT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<projectDescription>\n"
+        + "  <name>Web</name>\n"
+        + "  <projects />\n"
+        + "  <natures>\n"
+        + "    <nature>org.eclipse.jdt.core.javanature</nature>\n"
+        + "    <nature>org.eclipse.wst.common.modulecore.ModuleCoreNature</nature>\n"
+        + "  </natures>\n"
+        + "</projectDescription>\n";
+
+    private static final String WEB_CLASSPATH = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<classpath>\n"
+        + "  <classpathentry kind=\"src\" path=\"src\" />\n"
+        + "  <classpathentry kind=\"src\" path=\"/Util\" />\n"
+        + "  <classpathentry kind=\"con\" path=\"org.eclipse.jdt.launching.JRE_CONTAINER\" />\n"
+        + "  <classpathentry kind=\"con\" path=\"org.eclipse.jst.j2ee.internal.web.container\" />\n"
+        + "  <classpathentry kind=\"lib\" path=\"lib/common.jar\" />\n"
+        + "  <classpathentry kind=\"var\" path=\"WL_HOME/server/lib/weblogic.jar\" />\n"
+        + "  <classpathentry kind=\"output\" path=\"build/classes\" />\n"
+        + "</classpath>\n";
+
+    private static final String WEB_COMPONENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<project-modules id=\"moduleCoreId\" project-version=\"1.5.0\">\n"
+        + "  <wb-module deploy-name=\"Web\">\n"
+        + "    <wb-resource deploy-path=\"/\" source-path=\"/WebContent\" />\n"
+        + "    <wb-resource deploy-path=\"/WEB-INF/classes\" source-path=\"/src\" />\n"
+        + "    <property name=\"context-root\" value=\"web\" />\n"
+        + "  </wb-module>\n"
+        + "</project-modules>\n";
+
+    private static final String WEB_FACETS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<faceted-project>\n"
+        + "  <runtime name=\"BEA WebLogic v10.0\" />\n"
+        + "  <installed facet=\"jst.web\" version=\"2.4\" />\n"
+        + "  <installed facet=\"wls.web\" version=\"10.0\" />\n"
+        + "</faceted-project>\n";
+
+    private static final String PLAIN_PROJECT = "<projectDescription><name>Plain</name><natures>"
+        + "<nature>org.eclipse.jdt.core.javanature</nature></natures></projectDescription>";
+
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.ECLIPSE_PROJECTS);
+    }
+
+    private void createFile(String relativePath, String content) throws Throwable
+    {
+        File file = new File(folder.getRoot(), relativePath);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> discover() throws Throwable
+    {
+        createFile("app/app.work", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<application>\n"
+            + "  <projects>\n"
+            + "    <project name=\"Util\">\n"
+            + "      <option name=\"project.path\" value=\"./Util\" />\n"
+            + "      <option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" />\n"
+            + "    </project>\n"
+            + "  </projects>\n"
+            + "</application>\n");
+        createFile("app/Web/.project", WEB_PROJECT);
+        createFile("app/Web/.classpath", WEB_CLASSPATH);
+        createFile("app/Web/.settings/org.eclipse.wst.common.component", WEB_COMPONENT);
+        createFile("app/Web/.settings/org.eclipse.wst.common.project.facet.core.xml", WEB_FACETS);
+        createFile("app/Plain/.project", PLAIN_PROJECT);
+        createFile("app/Plain/.classpath", WEB_CLASSPATH);
+        createFile("app/Ear/.project", "<projectDescription><name>Ear</name><natures>"
+            + "<nature>org.eclipse.wst.common.modulecore.ModuleCoreNature</nature></natures></projectDescription>");
+
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        for (String file : Arrays.asList("app/app.work", "app/Web/.project", "app/Ear/.project", "app/Plain/.project"))
+        {
+            String content = new String(Files.readAllBytes(new File(folder.getRoot(), file).toPath()), StandardCharsets.UTF_8);
+            discoverer.buildProject(file, content, engine.createWorkProject(file), engine.utilities);
+        }
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    /**
+     * Test the interpretation of the descriptors of a web project
+     */
+    @Test
+    public void scanWebProject()
+    {
+        ProjectFileScannerTest.RecordingInterpreter interpreter = new ProjectFileScannerTest.RecordingInterpreter();
+
+        assertTrue(ProjectFileScanner.scanEclipseProject(interpreter, "app/Web/.project", WEB_PROJECT, WEB_CLASSPATH,
+            WEB_COMPONENT, WEB_FACETS));
+
+        assertEquals(Arrays.asList("setEclipseWorkspace", "setProjectPath .",
+            "setProjectType " + WorkshopProjectType.WEB_APP.getUrn(), "setWebContentPath WebContent", "addSourcepath src",
+            "addClasspath ./../Util", "addClasspath ./WebContent/WEB-INF/lib", "addClasspath ./lib/common.jar",
+            "addClasspath ${WL_HOME}/server/lib/weblogic.jar", "addProject Web", "addProjectSourceFolders", "addClasspaths",
+            "resetProject"), interpreter.calls);
+    }
+
+    /**
+     * Test that the projects without java nature are not given to the interpreter
+     */
+    @Test
+    public void ignoreOtherProjects()
+    {
+        ProjectFileScannerTest.RecordingInterpreter interpreter = new ProjectFileScannerTest.RecordingInterpreter();
+
+        assertTrue(ProjectFileScanner.scanEclipseProject(interpreter, ".project",
+            "<projectDescription><name>Ear</name><natures /></projectDescription>", null, null, null));
+        assertTrue(interpreter.calls.isEmpty());
+    }
+
+    /**
+     * Test that the java projects without Workshop nature, facet, runtime or component property are not given to the
+     * interpreter
+     */
+    @Test
+    public void rejectPlainJavaProjects()
+    {
+        ProjectFileScannerTest.RecordingInterpreter interpreter = new ProjectFileScannerTest.RecordingInterpreter();
+
+        assertTrue(ProjectFileScanner.scanEclipseProject(interpreter, "app/Plain/.project", PLAIN_PROJECT, WEB_CLASSPATH,
+            null, null));
+        assertTrue(ProjectFileScanner.scanEclipseProject(interpreter, "app/Web/.project", WEB_PROJECT, WEB_CLASSPATH,
+            WEB_COMPONENT, null));
+        assertTrue(interpreter.calls.isEmpty());
+
+        String workshopProject = PLAIN_PROJECT.replace("</natures>",
+            "<nature>com.bea.workshop.common.core.WorkshopProjectNature</nature></natures>");
+        assertTrue(ProjectFileScanner.scanEclipseProject(interpreter, "app/Plain/.project", workshopProject, WEB_CLASSPATH,
+            null, null));
+        assertTrue(interpreter.calls.contains("addProject Plain"));
+    }
+
+    /**
+     * Test that the Eclipse projects are discovered with the .work files, and linked to their projects
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void discoverWithWorkFiles() throws Throwable
+    {
+        System.setProperty(DiscoveryOptions.ECLIPSE_PROJECTS, "true");
+
+        List<String> calls = discover();
+
+        assertTrue(calls.contains("createInitialProject[app/Web/.project_Web, Web, " + RecordingEngine.PROJECT_TYPE
+            + ", app/Web/.project_Web, app/Web]"));
+        assertTrue(calls.contains("app/Web/.project_Web.addMetadata[applicationRootPath, app/Web/WebContent]"));
+        assertTrue(calls.contains("app/Web/.project_Web.addMetadata[applicationDescriptor, app/Web/WebContent/WEB-INF/web.xml]"));
+        assertTrue(calls.contains("app/Web/.project_Web.addProjectReference[app/app.work_Util]"));
+        assertTrue(calls.contains("app/Web/.project_Web.addContainerReference[%app/Web/.project_Web%/lib/common.jar, 1, 1]"));
+        assertTrue(calls.contains("deleteProject[app/Ear/.project]"));
+        // left to the generic Eclipse discoverer
+        assertTrue(calls.contains("deleteProject[app/Plain/.project]"));
+        for (String call : calls)
+        {
+            // the class path of an Eclipse project is complete
+            assertFalse(call, call.startsWith("app/Web/.project_Web.") && call.contains("APP-INF"));
+            assertFalse(call, call.contains("weblogic.jar"));
+            assertFalse(call, call.contains("app/Ear/.project_"));
+            assertFalse(call, call.contains("app/Plain/.project_"));
+        }
+    }
+
+    /**
+     * Test that the Eclipse projects are left to another discoverer by default
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void leaveEclipseProjectsByDefault() throws Throwable
+    {
+        List<String> calls = discover();
+
+        // only the .work file is measured
+        ObjectName name = new ObjectName(DiscoveryMetricsMXBean.OBJECT_NAME);
+        assertEquals(1, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FileCount"));
+
+        assertTrue(calls.contains("deleteProject[app/Web/.project]"));
+        for (String call : calls)
+            assertFalse(call, call.contains("app/Web/.project_"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the expansion of the Class-Path of the manifests of the jars
+ *
+ */
+public class JarManifestsTest
+{
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.EXPAND_MANIFEST_CLASSPATH);
+    }
+
+    private File createJar(String relativePath, String classPath) throws Throwable
+    {
+        File file = new File(folder.getRoot(), relativePath);
+        file.getParentFile().mkdirs();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (classPath != null)
+            manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+        JarOutputStream stream = new JarOutputStream(new FileOutputStream(file), manifest);
+        try
+        {
+            stream.putNextEntry(new ZipEntry("com/castsoftware/Empty.class"));
+            stream.write(new byte[16]);
+            stream.closeEntry();
+        }
+        finally
+        {
+            stream.close();
+        }
+        return file;
+    }
+
+    private File createStoredJar(String relativePath, String classPath) throws Throwable
+    {
+        File file = new File(folder.getRoot(), relativePath);
+        file.getParentFile().mkdirs();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        manifest.write(content);
+        byte[] bytes = content.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ZipEntry entry = new ZipEntry("META-INF/MANIFEST.MF");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        OutputStream fileStream = new FileOutputStream(file);
+        ZipOutputStream stream = new ZipOutputStream(fileStream);
+        try
+        {
+            stream.setComment("stored manifest");
+            stream.putNextEntry(entry);
+            stream.write(bytes);
+            stream.closeEntry();
+        }
+        finally
+        {
+            stream.close();
+        }
+        return file;
+    }
+
+    /**
+     * Test that the Class-Path is read from a deflated and from a stored manifest
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void readClassPath() throws Throwable
+    {
+        String longClassPath = "lib/first.jar lib/second.jar lib/a-rather-long-name-to-have-continuation-lines.jar";
+        assertArrayEquals(longClassPath.split(" "),
+            JarManifests.readClassPath(createJar("deflated.jar", longClassPath).toPath()));
+        assertArrayEquals(new String[] { "other.jar" },
+            JarManifests.readClassPath(createStoredJar("stored.jar", " other.jar ").toPath()));
+        assertEquals(0, JarManifests.readClassPath(createJar("none.jar", null).toPath()).length);
+
+        File notJar = folder.newFile("notJar.jar");
+        assertEquals(0, JarManifests.readClassPath(notJar.toPath()).length);
+    }
+
+    /**
+     * Test that the listed jars are followed transitively, relative to the folder of each jar, ignoring the missing
+     * jars and the cycles
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void expandTransitively() throws Throwable
+    {
+        createJar("app/APP-INF/lib/CM_JavaAPI.jar", "ext/log.jar ../../../shared/util.jar missing.jar classes/");
+        createJar("app/APP-INF/lib/ext/log.jar", "../CM_JavaAPI.jar");
+        createJar("shared/util.jar", "http://example.com/remote.jar sub%20dir/core.jar");
+        createJar("shared/sub dir/core.jar", null);
+        PathTable paths = new PathTable();
+        JarManifests jarManifests = new JarManifests(folder.getRoot().toPath());
+
+        String[] jars = jarManifests.getClassPath("app/APP-INF/lib/CM_JavaAPI.jar", paths);
+        assertArrayEquals(new String[] { "app/APP-INF/lib/ext/log.jar", "shared/util.jar", "shared/sub dir/core.jar" },
+            jars);
+        assertSame(jars, jarManifests.getClassPath("app/APP-INF/lib/CM_JavaAPI.jar", paths));
+        assertEquals(0, jarManifests.getClassPath("app/APP-INF/lib/missing.jar", paths).length);
+    }
+
+    private List<String> discover() throws Throwable
+    {
+        createJar("app/APP-INF/lib/CM_JavaAPI.jar", "ext/log.jar");
+        createJar("app/APP-INF/lib/ext/log.jar", null);
+        String content = WorkspaceGenerator.generate(1);
+
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        discoverer.buildProject("app/app.work", content, engine.createWorkProject("app/app.work"), engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    /**
+     * Test that the projects reference the jars listed by the manifests of the jars of their class path
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void referenceManifestJars() throws Throwable
+    {
+        System.setProperty(DiscoveryOptions.EXPAND_MANIFEST_CLASSPATH, "true");
+
+        List<String> calls = discover();
+
+        assertTrue(calls.contains("app/app.work_Project0.addContainerReference[app/APP-INF/lib/CM_JavaAPI.jar, 1, 1]"));
+        assertTrue(calls.contains("app/app.work_Project0.addContainerReference[app/APP-INF/lib/ext/log.jar, 1, 1]"));
+    }
+
+    /**
+     * Test that the manifests are not read by default
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void disabledByDefault() throws Throwable
+    {
+        List<String> calls = discover();
+
+        assertTrue(calls.contains("app/app.work_Project0.addContainerReference[app/APP-INF/lib/CM_JavaAPI.jar, 1, 1]"));
+        assertFalse(calls.contains("app/app.work_Project0.addContainerReference[app/APP-INF/lib/ext/log.jar, 1, 1]"));
+    }
+}
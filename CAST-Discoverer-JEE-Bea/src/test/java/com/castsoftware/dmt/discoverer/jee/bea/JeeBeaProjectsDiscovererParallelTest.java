@@ -0,0 +1,145 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the parallel parsing of the .work files
+ *
+ */
+public class JeeBeaProjectsDiscovererParallelTest
+{
+    /**
+     * Temporary folder receiving the package
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.PARALLELISM);
+        System.clearProperty(DiscoveryOptions.CACHE_FILE);
+    }
+
+    private List<String> discover(List<String> relativeFilePaths, List<String> contents, int parallelism)
+    {
+        System.setProperty(DiscoveryOptions.PARALLELISM, Integer.toString(parallelism));
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        for (int i = 0; i < relativeFilePaths.size(); i++)
+        {
+            String relativeFilePath = relativeFilePaths.get(i);
+            discoverer.buildProject(relativeFilePath, contents.get(i), engine.createWorkProject(relativeFilePath),
+                engine.utilities);
+        }
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    private void write(String relativeFilePath, String content) throws Throwable
+    {
+        File file = new File(folder.getRoot(), relativeFilePath);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that the parallel parsing gives the same projects, in the same order, as the sequential one
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void parallelMatchesSequential() throws Throwable
+    {
+        List<String> relativeFilePaths = new ArrayList<String>();
+        List<String> contents = new ArrayList<String>();
+        for (int i = 0; i < 12; i++)
+        {
+            String relativeFilePath = "app" + i + "/app" + i + ".work";
+            String content = WorkspaceGenerator.generate(5 + i * 3);
+            write(relativeFilePath, content);
+            relativeFilePaths.add(relativeFilePath);
+            contents.add(content);
+        }
+
+        List<String> sequentialCalls = discover(relativeFilePaths, contents, 1);
+        List<String> parallelCalls = discover(relativeFilePaths, contents, 4);
+
+        assertFalse(sequentialCalls.isEmpty());
+        assertEquals(sequentialCalls, parallelCalls);
+    }
+
+    /**
+     * Test that the files already in the cache are not parsed ahead
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void skipCachedFiles() throws Throwable
+    {
+        String cachedContent = WorkspaceGenerator.generate(5);
+        write("cached/cached.work", cachedContent);
+        write("changed/changed.work", WorkspaceGenerator.generate(8));
+
+        WorkFilePrefetcher prefetcher = new WorkFilePrefetcher(folder.getRoot().toPath(), 2, WorkFileParsers.createBudget(),
+            Collections.singleton(DiscoveryCache.key(cachedContent)));
+        try
+        {
+            assertEquals(2, prefetcher.start());
+            assertNull(prefetcher.take("cached/cached.work"));
+            assertNotNull(prefetcher.take("changed/changed.work"));
+        }
+        finally
+        {
+            prefetcher.close();
+        }
+    }
+
+    /**
+     * Test that the parallel parsing with the cache gives the same projects as the sequential one, on the first
+     * discovery and when the projects are rebuilt from the cache
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void parallelWithCacheMatchesSequential() throws Throwable
+    {
+        List<String> relativeFilePaths = new ArrayList<String>();
+        List<String> contents = new ArrayList<String>();
+        for (int i = 0; i < 6; i++)
+        {
+            String relativeFilePath = "app" + i + "/app" + i + ".work";
+            String content = WorkspaceGenerator.generate(5 + i * 3);
+            write(relativeFilePath, content);
+            relativeFilePaths.add(relativeFilePath);
+            contents.add(content);
+        }
+        List<String> sequentialCalls = discover(relativeFilePaths, contents, 1);
+
+        System.setProperty(DiscoveryOptions.CACHE_FILE, new File(folder.getRoot(), "test.cache").getPath());
+        assertEquals(sequentialCalls, discover(relativeFilePaths, contents, 4));
+        assertEquals(sequentialCalls, discover(relativeFilePaths, contents, 4));
+    }
+}
@@ -79,4 +79,17 @@ public class JeeBeaProjectsDiscovererUnitTest
     {
         new JeeBeaProjectsDiscovererTester("Test2").go();
     }
+
+    /**
+     * Test discovery of 2 .work files, the class path of a web project pointing at a java project of a .work file
+     * discovered after it
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void unitTest3() throws Throwable
+    {
+        new JeeBeaProjectsDiscovererTester("Test3").go();
+    }
 }
@@ -0,0 +1,52 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+/**
+ * Tests for the resolution of the language IDs
+ *
+ */
+public class LanguageDescriptorTest
+{
+    /**
+     * Test that the language and resource type IDs are taken from the configuration
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void resolveIds() throws Throwable
+    {
+        RecordingEngine engine = new RecordingEngine();
+        LanguageDescriptor languages = LanguageDescriptor.resolve(engine.utilities, RecordingEngine.PROJECT_TYPE);
+
+        assertEquals(1, languages.getJavaLanguageId());
+        assertEquals(1, languages.getJavaContainerLanguageId());
+        assertEquals(2, languages.getJavaWebServerLanguageId());
+        assertEquals(3, languages.getJavaWebClientLanguageId());
+    }
+
+    /**
+     * Test that the configuration is browsed once per project type
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void resolveOncePerProjectType() throws Throwable
+    {
+        RecordingEngine engine = new RecordingEngine();
+        LanguageDescriptor.Cache cache = new LanguageDescriptor.Cache();
+
+        LanguageDescriptor languages = cache.get(engine.utilities, RecordingEngine.PROJECT_TYPE);
+        for (int i = 0; i < 10; i++)
+            assertSame(languages, cache.get(engine.utilities, RecordingEngine.PROJECT_TYPE));
+
+        verify(engine.utilities, times(1)).getProjectTypeConfiguration(RecordingEngine.PROJECT_TYPE);
+    }
+}
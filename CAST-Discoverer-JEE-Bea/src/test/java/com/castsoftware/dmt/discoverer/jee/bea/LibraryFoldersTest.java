@@ -0,0 +1,89 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the listing of the APP-INF/lib folders
+ *
+ */
+public class LibraryFoldersTest
+{
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void createFile(String relativePath) throws Throwable
+    {
+        File file = new File(folder.getRoot(), relativePath);
+        file.getParentFile().mkdirs();
+        assertTrue(file.createNewFile());
+    }
+
+    /**
+     * Test that a folder is listed once, its jars sorted by name
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void listOnce() throws Throwable
+    {
+        createFile("app/APP-INF/lib/b.jar");
+        createFile("app/APP-INF/lib/a.JAR");
+        createFile("app/APP-INF/lib/readme.txt");
+        PathTable paths = new PathTable();
+        LibraryFolders libraryFolders = new LibraryFolders(folder.getRoot().toPath());
+
+        String[] jars = libraryFolders.list("app/APP-INF/lib", paths);
+        assertArrayEquals(new String[] { "app/APP-INF/lib/a.JAR", "app/APP-INF/lib/b.jar" }, jars);
+        assertSame(jars, libraryFolders.list("app/APP-INF/lib", paths));
+        assertNull(libraryFolders.list("other/APP-INF/lib", paths));
+        assertNull(new LibraryFolders(null).list("app/APP-INF/lib", paths));
+    }
+
+    /**
+     * Test that the projects reference the jars of the lib folder of the EAR output directory
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void referenceOutputDirectoryJars() throws Throwable
+    {
+        createFile("app/build/APP-INF/lib/common.jar");
+        String content = WorkspaceGenerator.generate(3).replace("name=\"output.directory\" value=\".\"",
+            "name=\"output.directory\" value=\"build\"");
+        assertEquals("build", ProjectFileScanner.parse("app/app.work", content).getOutputDirectory());
+
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        discoverer.buildProject("app/app.work", content, engine.createWorkProject("app/app.work"), engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+
+        List<String> calls = engine.calls;
+        int jarReferenceCount = 0;
+        for (String call : calls)
+        {
+            if (call.endsWith(".addContainerReference[app/build/APP-INF/lib/common.jar, 1, 1]"))
+                jarReferenceCount++;
+            assertFalse(call, call.contains("APP-INF/lib, "));
+        }
+        // one per project
+        assertEquals(3, jarReferenceCount);
+    }
+}
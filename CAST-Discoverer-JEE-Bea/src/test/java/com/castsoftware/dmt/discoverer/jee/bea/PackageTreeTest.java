@@ -0,0 +1,142 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the check of the discovered paths against the delivered package
+ *
+ */
+public class PackageTreeTest
+{
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.VALIDATE_PATHS);
+    }
+
+    private void createFile(String relativePath) throws Throwable
+    {
+        File file = new File(folder.getRoot(), relativePath);
+        file.getParentFile().mkdirs();
+        assertTrue(file.createNewFile());
+    }
+
+    private static String project(String name, String classpath)
+    {
+        return "    <project name=\"" + name + "\">\n"
+            + "      <option name=\"project.path\" value=\"./" + name + "\" />\n"
+            + "      <option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" />\n"
+            + "      <components>\n"
+            + "        <component name=\"com.bea.ide.JavaCompiler\">\n"
+            + "          <option name=\"class.path\" value=\"" + classpath + "\" />\n"
+            + "        </component>\n"
+            + "      </components>\n"
+            + "    </project>\n";
+    }
+
+    private List<String> discover() throws Throwable
+    {
+        createFile("app/Util/src/Util.java");
+        createFile("app/lib/common.jar");
+        String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<application>\n"
+            + "  <projects>\n"
+            + project("Util", "${app.root}/lib/common.jar;${app.root}/lib/missing.jar;${app.root}/../outside/missing")
+            + project("Missing", "${app.root}/lib/common.jar")
+            + "  </projects>\n"
+            + "  <dependencies>\n"
+            + "    <project name=\"Util\">\n"
+            + "      <dependency project=\"Missing\" />\n"
+            + "    </project>\n"
+            + "  </dependencies>\n"
+            + "</application>\n";
+
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        discoverer.buildProject("app/app.work", content, engine.createWorkProject("app/app.work"), engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    /**
+     * Test that the projects and references which were not delivered are dropped
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void dropDanglingPaths() throws Throwable
+    {
+        System.setProperty(DiscoveryOptions.VALIDATE_PATHS, "true");
+
+        List<String> calls = discover();
+
+        assertTrue(calls.contains("app/app.work_Util.addContainerReference[app/lib/common.jar, 1, 1]"));
+        assertFalse(calls.contains("app/app.work_Util.addContainerReference[app/lib/missing.jar, 1, 1]"));
+        // not delivered, the APP-INF/lib folder is dropped too
+        assertFalse(calls.contains("app/app.work_Util.addDirectoryReference[app/APP-INF/lib, 1, 1]"));
+        for (String call : calls)
+        {
+            assertFalse(call, call.contains("Missing"));
+        }
+    }
+
+    /**
+     * Test that every path is kept by default
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void keepPathsByDefault() throws Throwable
+    {
+        List<String> calls = discover();
+
+        assertTrue(calls.contains("app/app.work_Util.addContainerReference[app/lib/missing.jar, 1, 1]"));
+        assertTrue(calls.contains("app/app.work_Missing.addSourceDirectoryReference[app/Missing, 1]"));
+    }
+
+    /**
+     * Test the lookup of the paths relative to the package root and the summary counts
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void checkPaths() throws Throwable
+    {
+        createFile("app/Util/src/Util.java");
+        PackageTree packageTree = new PackageTree(folder.getRoot().toPath());
+
+        assertTrue(packageTree.check("app/util/./SRC", PackageTree.Kind.SOURCE_FOLDER));
+        assertTrue(packageTree.check("app/other/../Util/src/Util.java", PackageTree.Kind.CLASSPATH));
+        assertTrue(packageTree.check(new File(folder.getRoot(), "app/Util").getPath(), PackageTree.Kind.PROJECT));
+        // outside the package, cannot be checked
+        assertTrue(packageTree.check("app/../../elsewhere.jar", PackageTree.Kind.CLASSPATH));
+        assertFalse(packageTree.check("app/Missing", PackageTree.Kind.PROJECT));
+        assertFalse(packageTree.check("app/lib/missing.jar", PackageTree.Kind.CLASSPATH));
+        assertEquals(1, packageTree.getDanglingCount(PackageTree.Kind.PROJECT));
+        assertEquals(0, packageTree.getDanglingCount(PackageTree.Kind.SOURCE_FOLDER));
+        assertEquals(1, packageTree.getDanglingCount(PackageTree.Kind.CLASSPATH));
+    }
+}
@@ -0,0 +1,138 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the budget of the parsing, the cancellation and the progress of the discovery
+ *
+ */
+public class ParseBudgetTest
+{
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.PROGRESS_INTERVAL_MILLIS);
+    }
+
+    /**
+     * A budget with the default size and depth limits
+     */
+    private static ParseBudget createBudget(long maxElementCount)
+    {
+        DiscoveryOptions options = DiscoveryOptions.fromSystemProperties();
+        return new ParseBudget(options.getMaxFileSize(), options.getMaxElementDepth(), maxElementCount, 0);
+    }
+
+    /**
+     * Test that the parsing of a file larger than the element budget is aborted, keeping the projects parsed before
+     */
+    @Test
+    public void abortOverElementBudget()
+    {
+        String content = WorkspaceGenerator.generate(100);
+        WorkspaceModel.Builder builder = new WorkspaceModel.Builder();
+        WorkFileMetrics metrics = new WorkFileMetrics(null);
+
+        assertFalse(ProjectFileScanner.scan(builder, "app/app.work", content, metrics, createBudget(1000)));
+        int projectCount = builder.build().getProjectCount();
+        assertTrue(Integer.toString(projectCount), projectCount > 0 && projectCount < 100);
+        // the element over the budget is counted
+        assertEquals(1001, metrics.getElementCount());
+
+        assertTrue(ProjectFileScanner.scan(new WorkspaceModel.Builder(), "app/app.work", content, null, createBudget(0)));
+    }
+
+    /**
+     * Test that a cancelled budget aborts the running parsing and the next ones
+     */
+    @Test
+    public void cancelParsing()
+    {
+        final ParseBudget budget = createBudget(0);
+        ProjectFileScannerTest.RecordingInterpreter interpreter = new ProjectFileScannerTest.RecordingInterpreter()
+        {
+            @Override
+            public void addProject(String name)
+            {
+                super.addProject(name);
+                budget.cancel();
+            }
+        };
+
+        assertFalse(ProjectFileScanner.scan(interpreter, "app/app.work", WorkspaceGenerator.generate(100), null, budget));
+        assertFalse(interpreter.calls.contains("addProject Project99"));
+        assertFalse(ProjectFileScanner.scan(new WorkspaceModel.Builder(), "app/app.work", WorkspaceGenerator.generate(1), null,
+            budget));
+    }
+
+    /**
+     * Test that the files given after the cancellation of the discovery are not discovered
+     */
+    @Test
+    public void cancelDiscovery()
+    {
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree("/nonexistent");
+        discoverer.buildProject("app1/app1.work", WorkspaceGenerator.generate(1), engine.createWorkProject("app1/app1.work"),
+            engine.utilities);
+        discoverer.cancel();
+        discoverer.buildProject("app2/app2.work", WorkspaceGenerator.generate(1), engine.createWorkProject("app2/app2.work"),
+            engine.utilities);
+        discoverer.endTree("/nonexistent");
+
+        assertTrue(engine.calls.contains("createInitialProject[app1/app1.work_Project0, Project0, "
+            + RecordingEngine.PROJECT_TYPE + ", app1/app1.work_Project0, app1/Project0]"));
+        assertTrue(engine.calls.contains("deleteProject[app2/app2.work]"));
+        for (String call : engine.calls)
+        {
+            assertFalse(call, call.startsWith("app2/app2.work_"));
+        }
+    }
+
+    /**
+     * Test that the listener receives the progress of the discovery and its end
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void reportProgress() throws Throwable
+    {
+        System.setProperty(DiscoveryOptions.PROGRESS_INTERVAL_MILLIS, "1");
+        final List<String> reports = new ArrayList<String>();
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.setProgressListener(new DiscoveryProgressListener()
+        {
+            @Override
+            public void progress(int fileCount, long projectCount, double filesPerSecond, boolean isDone)
+            {
+                assertTrue(filesPerSecond > 0);
+                reports.add(fileCount + ":" + projectCount + ":" + isDone);
+            }
+        });
+        discoverer.startTree("/nonexistent");
+        Thread.sleep(2);
+        discoverer.buildProject("app1/app1.work", WorkspaceGenerator.generate(2), engine.createWorkProject("app1/app1.work"),
+            engine.utilities);
+        Thread.sleep(2);
+        discoverer.buildProject("app2/app2.work", WorkspaceGenerator.generate(3), engine.createWorkProject("app2/app2.work"),
+            engine.utilities);
+        discoverer.endTree("/nonexistent");
+
+        assertEquals("1:2:false", reports.get(0));
+        assertEquals("2:5:true", reports.get(reports.size() - 1));
+    }
+}
@@ -0,0 +1,121 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the canonical paths of the references
+ *
+ */
+public class PathTableTest
+{
+    /**
+     * Test that the equivalent paths share the first spelling
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void internWithCollation() throws Throwable
+    {
+        PathTable table = new PathTable();
+        String path = table.intern("./APP-INF/lib");
+
+        assertSame(path, table.intern(new String("./APP-INF/lib")));
+        assertSame(path, table.intern(".\\app-inf\\LIB"));
+        assertSame(path, table.intern("./APP-INF/lib/"));
+        assertEquals("./APP-INF/lib/a.jar", table.intern("./APP-INF/lib/a.jar"));
+        assertEquals(2, table.size());
+    }
+
+    /**
+     * Test the lookup of the ancestors of a folder
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void findAncestors() throws Throwable
+    {
+        PathTable table = new PathTable();
+        String folder = table.intern("app/Project1");
+
+        assertTrue(table.isSameOrAncestor("app/Project1", folder));
+        assertTrue(table.isSameOrAncestor("APP\\project1\\", folder));
+        assertTrue(table.isSameOrAncestor("app", folder));
+        assertFalse(table.isSameOrAncestor("app/Project", folder));
+        assertFalse(table.isSameOrAncestor("app/Project1/classes", folder));
+        assertFalse(table.isSameOrAncestor("other", folder));
+    }
+
+    /**
+     * Test that the . and .. segments are resolved
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void resolveDotSegments() throws Throwable
+    {
+        PathTable table = new PathTable();
+        String path = table.intern("app1/../shared/Util");
+
+        assertSame(path, table.intern("shared/Util"));
+        assertSame(path, table.intern("app2/./../Shared/util/"));
+        assertTrue(table.isSameOrAncestor("app2/../shared", path));
+        // .. above the root is kept
+        assertEquals("../other", table.intern("../other"));
+        assertFalse(table.isSameOrAncestor("../other", path));
+    }
+
+    /**
+     * Test that the absolute paths are not merged with the relative ones
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void separateAbsolutePaths() throws Throwable
+    {
+        PathTable table = new PathTable();
+        String relative = table.intern("opt/lib/x.jar");
+        String absolute = table.intern("/opt/lib/x.jar");
+        String drive = table.intern("C:\\opt\\lib\\x.jar");
+        String unc = table.intern("\\\\server\\opt\\lib\\x.jar");
+
+        assertEquals("/opt/lib/x.jar", absolute);
+        assertEquals("C:\\opt\\lib\\x.jar", drive);
+        assertEquals(4, table.size());
+        assertSame(absolute, table.intern("\\opt\\lib\\x.jar"));
+        assertSame(drive, table.intern("c:/opt/lib/x.jar"));
+        assertSame(unc, table.intern("//server/opt/lib/x.jar"));
+        assertSame(relative, table.intern("./opt/lib/x.jar"));
+        // nothing above the root
+        assertSame(absolute, table.intern("/../opt/lib/x.jar"));
+        assertTrue(table.isSameOrAncestor("/opt", absolute));
+        assertFalse(table.isSameOrAncestor("opt", absolute));
+        assertFalse(table.isSameOrAncestor("/opt", relative));
+    }
+
+    /**
+     * Test that a path is looked up without being interned
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void getWithoutInterning() throws Throwable
+    {
+        PathTable table = new PathTable();
+
+        assertNull(table.get("app1/../shared/Util"));
+        String path = table.intern("shared/Util");
+        assertSame(path, table.get("app1/../shared/Util"));
+        assertEquals(1, table.size());
+    }
+}
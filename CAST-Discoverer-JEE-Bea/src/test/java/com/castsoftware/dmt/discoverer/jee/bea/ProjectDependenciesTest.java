@@ -0,0 +1,100 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the dependencies between the projects of a .work file
+ *
+ */
+public class ProjectDependenciesTest
+{
+    private static class CountingRecorder implements ProjectDependencies.IProjectReferenceRecorder
+    {
+        private int calls;
+        private final Set<String> references = new HashSet<String>();
+
+        @Override
+        public void addProjectReference(int project, int referencedProject)
+        {
+            calls++;
+            assertTrue(project + " -> " + referencedProject + " recorded twice",
+                references.add(project + " -> " + referencedProject));
+        }
+    }
+
+    private static ProjectDependencies createDependencies(int javaCount, int webCount, int ejbCount)
+    {
+        ProjectDependencies dependencies = new ProjectDependencies();
+        int project = 0;
+        for (int i = 0; i < javaCount; i++)
+            dependencies.addJavaProject(project++);
+        for (int i = 0; i < webCount; i++)
+            dependencies.addWebProject(project++);
+        for (int i = 0; i < ejbCount; i++)
+            dependencies.addEjbProject(project++);
+        return dependencies;
+    }
+
+    /**
+     * Test that each reference is recorded exactly once
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void eachReferenceRecordedOnce() throws Throwable
+    {
+        CountingRecorder recorder = new CountingRecorder();
+        createDependencies(40, 25, 5).record(recorder);
+
+        assertEquals(40 * 39 + (25 + 5) * 40, recorder.calls);
+        assertEquals(recorder.calls, recorder.references.size());
+    }
+
+    /**
+     * Test that java projects are not linked when there is no web or ejb project
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void noReferenceWithoutWebOrEjbProject() throws Throwable
+    {
+        CountingRecorder recorder = new CountingRecorder();
+        createDependencies(10, 0, 0).record(recorder);
+
+        assertEquals(0, recorder.calls);
+    }
+
+    /**
+     * Test that only the inferred dependencies are recorded, without the project itself
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void recordInferredDependencies() throws Throwable
+    {
+        ProjectDependencies dependencies = createDependencies(3, 1, 0);
+        assertFalse(dependencies.hasInferredDependencies());
+        dependencies.addInferredDependency(3, 0);
+        dependencies.addInferredDependency(3, 0);
+        dependencies.addInferredDependency(1, 2);
+        dependencies.addInferredDependency(2, 2);
+
+        CountingRecorder recorder = new CountingRecorder();
+        dependencies.recordInferred(recorder);
+
+        assertTrue(dependencies.hasInferredDependencies());
+        assertEquals(new HashSet<String>(Arrays.asList("1 -> 2", "3 -> 0")), recorder.references);
+        assertEquals(2, recorder.calls);
+    }
+}
@@ -0,0 +1,218 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScanner.IProjectInterpreter;
+
+/**
+ * Tests for the scanning of .work files without the discovery engine
+ *
+ */
+public class ProjectFileScannerTest
+{
+    /**
+     * Interpreter recording the calls it receives
+     */
+    static class RecordingInterpreter implements IProjectInterpreter
+    {
+        final List<String> calls = new ArrayList<String>();
+
+        @Override
+        public void init()
+        {
+            // ignore
+        }
+
+        @Override
+        public void done()
+        {
+            // ignore
+        }
+
+        @Override
+        public void open(String resourceId)
+        {
+            // ignore
+        }
+
+        @Override
+        public void close()
+        {
+            // ignore
+        }
+
+        @Override
+        public void addProject(String name)
+        {
+            calls.add("addProject " + name);
+        }
+
+        @Override
+        public void resetProject()
+        {
+            calls.add("resetProject");
+        }
+
+        @Override
+        public void setProjectType(String type)
+        {
+            calls.add("setProjectType " + type);
+        }
+
+        @Override
+        public void setProjectPath(String path)
+        {
+            calls.add("setProjectPath " + path);
+        }
+
+        @Override
+        public void setProjectDependencies(String dependencies)
+        {
+            calls.add("setProjectDependencies " + dependencies);
+        }
+
+        @Override
+        public void addProjectSourceFolders()
+        {
+            calls.add("addProjectSourceFolders");
+        }
+
+        @Override
+        public void addClasspath(String classpath)
+        {
+            calls.add("addClasspath " + classpath);
+        }
+
+        @Override
+        public void addClasspaths()
+        {
+            calls.add("addClasspaths");
+        }
+
+        @Override
+        public void addProjectDependencies()
+        {
+            calls.add("addProjectDependencies");
+        }
+
+        @Override
+        public void addSourcepath(String sourcepath)
+        {
+            calls.add("addSourcepath " + sourcepath);
+        }
+
+        @Override
+        public void setExcludedDirectories(String excludedDirectories)
+        {
+            calls.add("setExcludedDirectories " + excludedDirectories);
+        }
+
+        @Override
+        public void setOutputDirectory(String outputDirectory)
+        {
+            calls.add("setOutputDirectory " + outputDirectory);
+        }
+
+        @Override
+        public void setWebContentPath(String webContentPath)
+        {
+            calls.add("setWebContentPath " + webContentPath);
+        }
+
+        @Override
+        public void setEclipseWorkspace()
+        {
+            calls.add("setEclipseWorkspace");
+        }
+    }
+
+    /**
+     * Temporary folder receiving the .work files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> scanContent(String content)
+    {
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(interpreter, "test.work", content));
+        return interpreter.calls;
+    }
+
+    /**
+     * Test that a .work file read from the disk is interpreted like its content
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void scanFile() throws Throwable
+    {
+        String content = WorkspaceGenerator.generate(50);
+        File file = folder.newFile("test.work");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(interpreter, "test.work", file.toPath()));
+
+        assertEquals(scanContent(content), interpreter.calls);
+    }
+
+    /**
+     * Test that a .work stream with a byte order mark is interpreted like its content
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void scanStreamWithByteOrderMark() throws Throwable
+    {
+        String content = WorkspaceGenerator.generate(5);
+        byte[] bytes = ("\uFEFF" + content).getBytes(StandardCharsets.UTF_8);
+
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(interpreter, "test.work", new ByteArrayInputStream(bytes)));
+
+        assertEquals(scanContent(content), interpreter.calls);
+    }
+
+    /**
+     * Test that the public scan of a .work file references its class path entries, without end of discovery
+     */
+    @Test
+    public void scanProjectReferencesClasspath()
+    {
+        String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<application>\n"
+            + "  <projects>\n"
+            + "    <project name=\"Util\">\n"
+            + "      <option name=\"project.path\" value=\"./Util\" />\n"
+            + "      <option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" />\n"
+            + "      <components>\n"
+            + "        <component name=\"com.bea.ide.JavaCompiler\">\n"
+            + "          <option name=\"class.path\" value=\"./lib/common.jar;./classes\" />\n"
+            + "        </component>\n"
+            + "      </components>\n"
+            + "    </project>\n"
+            + "  </projects>\n"
+            + "</application>\n";
+        RecordingEngine engine = new RecordingEngine();
+
+        ProjectFileScanner.scan(engine.createWorkProject("app/app.work"), content, engine.utilities);
+
+        assertTrue(engine.calls.contains("app/app.work_Util.addContainerReference[%app/app.work_Util%/lib/common.jar, 1, 1]"));
+        assertTrue(engine.calls.contains("app/app.work_Util.addDirectoryReference[%app/app.work_Util%/classes, 1, 1]"));
+    }
+}
@@ -0,0 +1,178 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the links between the projects of different .work files
+ *
+ */
+public class ProjectIndexTest
+{
+    private static final String UTIL_REFERENCE = "app1/app1.work_Util";
+
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.LINK_WORK_FILES);
+    }
+
+    private static String workFile(String projectName, String type, String classpath)
+    {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<application>\n"
+            + "  <projects>\n"
+            + "    <project name=\"" + projectName + "\">\n"
+            + "      <option name=\"project.path\" value=\"./" + projectName + "\" />\n"
+            + "      <option name=\"type\" value=\"urn:com-bea-ide:project.type:" + type + "\" />\n"
+            + "      <components>\n"
+            + "        <component name=\"com.bea.ide.JavaCompiler\">\n"
+            + "          <option name=\"class.path\" value=\"" + classpath + "\" />\n"
+            + "        </component>\n"
+            + "      </components>\n"
+            + "    </project>\n"
+            + "  </projects>\n"
+            + "</application>\n";
+    }
+
+    private List<String> discover(String webClasspath, boolean isUtilFirst)
+    {
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        if (isUtilFirst)
+            discoverer.buildProject("app1/app1.work", workFile("Util", "Java", ""), engine.createWorkProject("app1/app1.work"),
+                engine.utilities);
+        discoverer.buildProject("app2/app2.work", workFile("Web", "WebApp", webClasspath),
+            engine.createWorkProject("app2/app2.work"), engine.utilities);
+        if (!isUtilFirst)
+            discoverer.buildProject("app1/app1.work", workFile("Util", "Java", ""), engine.createWorkProject("app1/app1.work"),
+                engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    /**
+     * Test that the output jar of a project of another .work file gives a project reference
+     */
+    @Test
+    public void linkOutputJar()
+    {
+        List<String> calls = discover("${app.root}/../app1/APP-INF/lib/Util.jar", true);
+
+        assertTrue(calls.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+        assertFalse(calls.contains("app2/app2.work_Web.addContainerReference[app2/../app1/APP-INF/lib/Util.jar, 1, 1]"));
+    }
+
+    /**
+     * Test that the folder of a project of another .work file gives a project reference
+     */
+    @Test
+    public void linkProjectFolder()
+    {
+        List<String> calls = discover("${app.root}/../app1/Util", true);
+
+        assertTrue(calls.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+        assertFalse(calls.contains("app2/app2.work_Web.addDirectoryReference[app2/../app1/Util, 1, 1]"));
+    }
+
+    /**
+     * Test that a project discovered after the class path entry pointing at it is linked when the discovery ends
+     */
+    @Test
+    public void linkProjectDiscoveredLater()
+    {
+        List<String> calls = discover("${app.root}/../app1/APP-INF/lib/Util.jar", false);
+
+        assertFalse(calls.contains("app2/app2.work_Web.addContainerReference[app2/../app1/APP-INF/lib/Util.jar, 1, 1]"));
+        assertTrue(calls.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+    }
+
+    /**
+     * Test that the references of a class path do not depend on the order of the .work files
+     */
+    @Test
+    public void linkInAnyOrder()
+    {
+        String classpath = "${app.root}/../app1/APP-INF/lib/Util.jar;${app.root}/../app1/Util;${app.root}/lib/common.jar;"
+            + "${app.root}/classes";
+
+        List<String> references = select(discover(classpath, true), "app2/app2.work_Web.");
+        assertEquals(references, select(discover(classpath, false), "app2/app2.work_Web."));
+        assertTrue(references.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+        assertTrue(references.contains("app2/app2.work_Web.addContainerReference[app2/lib/common.jar, 1, 1]"));
+        assertTrue(references.contains("app2/app2.work_Web.addDirectoryReference[app2/classes, 1, 1]"));
+    }
+
+    /**
+     * Test that the jar of a project built in another copy of the EAR output is linked by its name
+     */
+    @Test
+    public void linkOutputJarByName()
+    {
+        List<String> calls = discover("${app.root}/../build/APP-INF/lib/Util.jar", false);
+
+        assertTrue(calls.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+        assertFalse(calls.contains("app2/app2.work_Web.addContainerReference[app2/../build/APP-INF/lib/Util.jar, 1, 1]"));
+    }
+
+    /**
+     * Test that a jar outside of the output folders is not linked to the project building a jar of that name
+     */
+    @Test
+    public void keepJarNamedAsOutput()
+    {
+        for (boolean isUtilFirst : new boolean[] { true, false })
+        {
+            List<String> calls = discover("${app.root}/Web/WEB-INF/lib/Util.jar", isUtilFirst);
+
+            assertTrue(calls.contains("app2/app2.work_Web.addContainerReference[app2/Web/WEB-INF/lib/Util.jar, 1, 1]"));
+            assertFalse(calls.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+        }
+    }
+
+    /**
+     * Test that the entries are kept as jar references when the linking is disabled
+     */
+    @Test
+    public void disableLinking()
+    {
+        System.setProperty(DiscoveryOptions.LINK_WORK_FILES, "false");
+
+        List<String> calls = discover("${app.root}/../app1/APP-INF/lib/Util.jar", true);
+
+        assertTrue(calls.contains("app2/app2.work_Web.addContainerReference[app2/../app1/APP-INF/lib/Util.jar, 1, 1]"));
+        assertFalse(calls.contains("app2/app2.work_Web.addProjectReference[" + UTIL_REFERENCE + "]"));
+    }
+
+    private static List<String> select(List<String> calls, String prefix)
+    {
+        List<String> selected = new ArrayList<String>();
+        for (String call : calls)
+        {
+            if (call.startsWith(prefix))
+                selected.add(call);
+        }
+        Collections.sort(selected);
+        return selected;
+    }
+}
@@ -0,0 +1,181 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectRegistry.RegisteredProject;
+
+/**
+ * Tests for the sharing of the projects declared by several .work files
+ *
+ */
+public class ProjectRegistryTest
+{
+    /**
+     * Temporary folder used as package root
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Restore the default options
+     */
+    @After
+    public void tearDown()
+    {
+        System.clearProperty(DiscoveryOptions.SHARE_PROJECTS);
+    }
+
+    private static String workFile(String projectPath)
+    {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<application>\n"
+            + "  <projects>\n"
+            + "    <project name=\"Util\">\n"
+            + "      <option name=\"project.path\" value=\"" + projectPath + "\" />\n"
+            + "      <option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" />\n"
+            + "      <components>\n"
+            + "        <component name=\"com.bea.ide.JavaCompiler\">\n"
+            + "          <option name=\"class.path\" value=\"${app.root}/lib/common.jar\" />\n"
+            + "        </component>\n"
+            + "      </components>\n"
+            + "    </project>\n"
+            + "  </projects>\n"
+            + "</application>\n";
+    }
+
+    private List<String> discover()
+    {
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        discoverer.buildProject("app1/app1.work", workFile("./../shared/Util"), engine.createWorkProject("app1/app1.work"),
+            engine.utilities);
+        discoverer.buildProject("app2/app2.work", workFile("./../Shared/./Util/"), engine.createWorkProject("app2/app2.work"),
+            engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        return engine.calls;
+    }
+
+    private static List<String> select(List<String> calls, String prefix)
+    {
+        List<String> selected = new ArrayList<String>();
+        for (String call : calls)
+        {
+            if (call.startsWith(prefix))
+                selected.add(call);
+        }
+        return selected;
+    }
+
+    /**
+     * Test that a folder declared by two .work files gives one project with the references of both
+     */
+    @Test
+    public void shareProject()
+    {
+        List<String> calls = discover();
+
+        assertEquals(1, select(calls, "createInitialProject").size());
+        List<String> projectCalls = select(calls, "app1/app1.work_Util.");
+        assertTrue(projectCalls.contains("app1/app1.work_Util.addContainerReference[app1/lib/common.jar, 1, 1]"));
+        assertTrue(projectCalls.contains("app1/app1.work_Util.addContainerReference[app2/lib/common.jar, 1, 1]"));
+        // the source folder is only referenced once
+        assertEquals(1, select(calls, "app1/app1.work_Util.addSourceDirectoryReference").size());
+        assertEquals(0, select(calls, "app2/app2.work_Util.").size());
+    }
+
+    /**
+     * Test that every .work file creates its own projects when the sharing is disabled
+     */
+    @Test
+    public void disableSharing()
+    {
+        System.setProperty(DiscoveryOptions.SHARE_PROJECTS, "false");
+
+        List<String> calls = discover();
+
+        assertEquals(2, select(calls, "createInitialProject").size());
+        assertEquals(1, select(calls, "app2/app2.work_Util.addSourceDirectoryReference").size());
+    }
+
+    /**
+     * Test that the references are submitted when the project is flushed, without duplicates, the source folders first
+     */
+    @Test
+    public void batchReferences()
+    {
+        RecordingEngine engine = new RecordingEngine();
+        RegisteredProject project = new RegisteredProject(engine.createWorkProject("app/app.work"));
+        RegisteredProject other = new RegisteredProject(engine.createWorkProject("other/other.work"));
+
+        assertTrue(project.addDirectoryReference("app/APP-INF/lib", 1, 1));
+        assertTrue(project.addProjectReference(other));
+        assertTrue(project.addSourceDirectoryReference("app/Util", 1));
+        assertFalse(project.addDirectoryReference("app/APP-INF/lib", 1, 1));
+        assertFalse(project.addProjectReference(project));
+        assertTrue(engine.calls.isEmpty());
+
+        project.flush();
+        assertFalse(project.addProjectReference(other));
+        project.flush();
+        assertEquals(Arrays.asList("app/app.work.addSourceDirectoryReference[app/Util, 1]",
+            "app/app.work.addDirectoryReference[app/APP-INF/lib, 1, 1]", "app/app.work.addProjectReference[other/other.work]"),
+            engine.calls);
+    }
+
+    /**
+     * Test that the references are submitted sorted, whatever the order in which they were collected
+     */
+    @Test
+    public void sortBatchedReferences()
+    {
+        RecordingEngine engine = new RecordingEngine();
+        RegisteredProject project = new RegisteredProject(engine.createWorkProject("app/app.work"));
+        RegisteredProject util = new RegisteredProject(engine.createWorkProject("util/util.work"));
+        RegisteredProject common = new RegisteredProject(engine.createWorkProject("common/common.work"));
+
+        assertTrue(project.addProjectReference(util));
+        assertTrue(project.addContainerReference("app/lib/b.jar", 1, 1));
+        assertTrue(project.addSourceDirectoryReference("app/Web", 2));
+        assertTrue(project.addProjectReference(common));
+        assertTrue(project.addContainerReference("app/lib/a.jar", 1, 1));
+        assertTrue(project.addSourceDirectoryReference("app/Util", 1));
+        project.flush();
+
+        assertEquals(Arrays.asList("app/app.work.addSourceDirectoryReference[app/Util, 1]",
+            "app/app.work.addSourceDirectoryReference[app/Web, 2]", "app/app.work.addContainerReference[app/lib/a.jar, 1, 1]",
+            "app/app.work.addContainerReference[app/lib/b.jar, 1, 1]", "app/app.work.addProjectReference[common/common.work]",
+            "app/app.work.addProjectReference[util/util.work]"), engine.calls);
+    }
+
+    /**
+     * Test that the source folder of a project without folder is submitted first, and only once
+     */
+    @Test
+    public void batchReferenceWithoutPath()
+    {
+        RecordingEngine engine = new RecordingEngine();
+        RegisteredProject project = new RegisteredProject(engine.createWorkProject("app/app.work"));
+
+        assertTrue(project.addSourceDirectoryReference("app/Util", 1));
+        assertTrue(project.addSourceDirectoryReference(null, 1));
+        assertFalse(project.addSourceDirectoryReference(null, 1));
+        assertTrue(project.addSourceDirectoryReference(null, 2));
+        project.flush();
+
+        assertEquals(Arrays.asList("app/app.work.addSourceDirectoryReference[null, 1]",
+            "app/app.work.addSourceDirectoryReference[null, 2]", "app/app.work.addSourceDirectoryReference[app/Util, 1]"),
+            engine.calls);
+    }
+}
@@ -0,0 +1,181 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.castsoftware.dmt.engine.discovery.IProjectsDiscovererUtilities;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration;
+import com.castsoftware.dmt.engine.discovery.ProjectsDiscovererWrapper.ProfileOrProjectTypeConfiguration.LanguageConfiguration.ResourceTypeConfiguration;
+import com.castsoftware.dmt.engine.project.IProfileReadOnly;
+import com.castsoftware.dmt.engine.project.Project;
+
+/**
+ * Discovery engine stub recording, in order, every call made by the discoverer to the engine utilities and to the
+ * projects.
+ */
+class RecordingEngine
+{
+    static final String PROJECT_TYPE = "dmtdevjeetechno.J2EEProject";
+
+    final List<String> calls = new ArrayList<String>();
+    final Map<String, Project> projects = new LinkedHashMap<String, Project>();
+    final IProjectsDiscovererUtilities utilities;
+    private final ProfileOrProjectTypeConfiguration configuration;
+
+    RecordingEngine()
+    {
+        final List<LanguageConfiguration> languages = new ArrayList<LanguageConfiguration>();
+        languages.add(createLanguage(1, "JavaLanguage", "JavaContainerLanguage", "XMLLanguage", "JavaPropertiesLanguage"));
+        languages.add(createLanguage(2, "JavaWebServerLanguage", "JavaWebContainerLanguage"));
+        languages.add(createLanguage(3, "JavaWebClientLanguage"));
+        configuration = mock(ProfileOrProjectTypeConfiguration.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                if ("getLanguageConfigurations".equals(invocation.getMethod().getName()))
+                    return languages;
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+
+        utilities = mock(IProjectsDiscovererUtilities.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                String methodName = invocation.getMethod().getName();
+                if ("getProjectTypeConfiguration".equals(methodName))
+                    return configuration;
+                if ("getProject".equals(methodName))
+                    return projects.get(invocation.getArgument(0));
+                calls.add(describe(invocation));
+                if ("createInitialProject".equals(methodName))
+                {
+                    Project project = createProject((String) invocation.getArgument(0), (String) invocation.getArgument(1),
+                        (String) invocation.getArgument(3), (String) invocation.getArgument(4), null);
+                    projects.put(project.getId(), project);
+                    return project;
+                }
+                if ("deleteProject".equals(methodName))
+                    projects.remove(invocation.getArgument(0));
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    /**
+     * Create the project the engine creates by default for a .work file
+     *
+     * @param relativeFilePath
+     *            the path of the .work file
+     * @return the project
+     */
+    Project createWorkProject(String relativeFilePath)
+    {
+        int slashPos = relativeFilePath.lastIndexOf('/');
+        String path = slashPos == -1 ? "." : relativeFilePath.substring(0, slashPos);
+        Project project = createProject(relativeFilePath, relativeFilePath, relativeFilePath, path, relativeFilePath);
+        projects.put(relativeFilePath, project);
+        return project;
+    }
+
+    private Project createProject(final String id, final String name, final String resourceId, final String path,
+        final String descriptor)
+    {
+        return mock(Project.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                Method method = invocation.getMethod();
+                String methodName = method.getName();
+                if ("getId".equals(methodName))
+                    return id;
+                if ("getName".equals(methodName))
+                    return name;
+                if ("getType".equals(methodName))
+                    return PROJECT_TYPE;
+                if ("getResourceId".equals(methodName))
+                    return resourceId;
+                if ("getPath".equals(methodName))
+                    return path;
+                if ("getMetadata".equals(methodName) && IProfileReadOnly.METADATA_DESCRIPTOR.equals(invocation.getArgument(0)))
+                    return createMetadata(method.getReturnType(), descriptor);
+                if ("buildPackageRelativePath".equals(methodName))
+                    return "%".concat(id).concat("%/").concat((String) invocation.getArgument(0));
+                calls.add(id + "." + describe(invocation));
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    static Object createMetadata(Class<?> metadataClass, final String value)
+    {
+        return mock(metadataClass, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                if ("getValue".equals(invocation.getMethod().getName()))
+                    return value;
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static LanguageConfiguration createLanguage(final int id, final String name, String... resourceTypeNames)
+    {
+        final List<ResourceTypeConfiguration> resourceTypes = new ArrayList<ResourceTypeConfiguration>();
+        for (int i = 0; i < resourceTypeNames.length; i++)
+            resourceTypes.add(createResourceType(i + 1, resourceTypeNames[i]));
+        return mock(LanguageConfiguration.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                String methodName = invocation.getMethod().getName();
+                if ("getLanguageId".equals(methodName))
+                    return id;
+                if ("getLanguageName".equals(methodName))
+                    return name;
+                if ("getResourceTypeConfigurations".equals(methodName))
+                    return resourceTypes;
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static ResourceTypeConfiguration createResourceType(final int id, final String name)
+    {
+        return mock(ResourceTypeConfiguration.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                String methodName = invocation.getMethod().getName();
+                if ("getResourceTypeId".equals(methodName))
+                    return id;
+                if ("getResourceTypeName".equals(methodName))
+                    return name;
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static String describe(InvocationOnMock invocation)
+    {
+        return invocation.getMethod().getName() + Arrays.toString(invocation.getArguments());
+    }
+}
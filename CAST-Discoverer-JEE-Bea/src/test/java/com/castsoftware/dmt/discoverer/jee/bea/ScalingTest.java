@@ -0,0 +1,227 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that the cost of the discovery of a .work file grows linearly with its number of projects: the allocations and
+ * the calls to the engine per project stay within fixed budgets from 100 to 10,000 projects, and the heap retained once
+ * the discovery is done grows by a fixed budget per added project from 1,000 to 10,000 projects.
+ * <p>
+ * The budgets are twice the measures of the current discovery on a 64-bit HotSpot JVM, so that a regression is caught.
+ * The retained heap is only compared between two sizes: its absolute measure, after System.gc, is not accurate enough
+ * for the smallest workspaces.
+ * <p>
+ * The projects of a .work file with web or ejb projects are linked all to all, which is quadratic by nature: the
+ * budgets are checked on java projects, and the linking is checked separately on smaller mixed workspaces.
+ * <p>
+ * The allocations are measured with the allocation counter of the HotSpot JVM, the test is skipped on the JVMs not
+ * providing it. They include the ones of the engine stub, which are the same for each call. The discovery runs on the
+ * test thread, the files being parsed in parallel only when there are several.
+ */
+public class ScalingTest
+{
+    private static final String JAVA_TYPE = "urn:com-bea-ide:project.type:Java";
+
+    /**
+     * Calls to the engine per java project: the creation of the project, its type, its source folder, its class path
+     * entries and the APP-INF/lib folder
+     */
+    private static final int CALLS_PER_JAVA_PROJECT = WorkspaceGenerator.DEFAULT_CLASSPATH_ENTRIES + 4;
+
+    /**
+     * Bytes allocated per java project, parsing of the 2 kB of XML of the project and engine stub included: 185 kB
+     * measured
+     */
+    private static final long MAX_ALLOCATED_BYTES_PER_PROJECT = 384 * 1024;
+
+    /**
+     * Bytes retained per java project added from 1,000 to 10,000 projects, the discoverer being still referenced: 9.5 kB
+     * measured
+     */
+    private static final long MAX_RETAINED_BYTES_PER_ADDED_PROJECT = 20 * 1024;
+
+    /**
+     * Bytes allocated per call to the engine when the projects are linked all to all: 5 kB measured
+     */
+    private static final long MAX_ALLOCATED_BYTES_PER_CALL = 10 * 1024;
+
+    /**
+     * Bytes retained per call to the engine added from 100 to 1,000 projects linked all to all: 94 bytes measured
+     */
+    private static final long MAX_RETAINED_BYTES_PER_ADDED_CALL = 192;
+
+    /**
+     * Growth of the allocations per project from 1,000 to 10,000 projects: none measured
+     */
+    private static final double MAX_ALLOCATION_GROWTH = 1.25;
+
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    /**
+     * Check that the allocations can be measured, and warm up the discovery so that the class loading is not measured
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+        {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+            for (int i = 0; i < 3; i++)
+                measure(WorkspaceGenerator.generate(100), 100);
+        }
+    }
+
+    /**
+     * Measures of the discovery of a generated .work file
+     */
+    private static final class Measure
+    {
+        final int projectCount;
+        long allocatedBytes;
+        long retainedBytes;
+        int callCount;
+
+        Measure(int projectCount)
+        {
+            this.projectCount = projectCount;
+        }
+
+        long getAllocatedBytesPerProject()
+        {
+            return allocatedBytes / projectCount;
+        }
+
+    }
+
+    private static Measure measure(String content, int projectCount)
+    {
+        Measure measure = new Measure(projectCount);
+        CountingEngine engine = new CountingEngine(projectCount);
+        long threadId = Thread.currentThread().getId();
+        long usedBytes = getUsedHeap();
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree("/nonexistent");
+        discoverer.buildProject(CountingEngine.WORK_FILE, content, engine.workProject, engine.utilities);
+        discoverer.endTree("/nonexistent");
+
+        measure.allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+        measure.retainedBytes = getUsedHeap() - usedBytes;
+        measure.callCount = engine.getCallCount();
+        // kept reachable until the heap is measured
+        assertTrue(discoverer.hashCode() != 0 || content.length() > 0);
+        return measure;
+    }
+
+    private static Measure measureJavaProjects(int projectCount)
+    {
+        return measure(WorkspaceGenerator.generate(projectCount, WorkspaceGenerator.DEFAULT_CLASSPATH_ENTRIES,
+            WorkspaceGenerator.DEFAULT_COMPONENT_DEPTH, JAVA_TYPE), projectCount);
+    }
+
+    private static long getUsedHeap()
+    {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void checkBudgets(Measure measure)
+    {
+        // plus the deletion of the project of the .work file
+        assertEquals(measure.projectCount * CALLS_PER_JAVA_PROJECT + 1, measure.callCount);
+        assertTrue(Long.toString(measure.getAllocatedBytesPerProject()),
+            measure.getAllocatedBytesPerProject() <= MAX_ALLOCATED_BYTES_PER_PROJECT);
+    }
+
+    /**
+     * The number of references between the projects of a generated workspace linked all to all: each java project
+     * references the other java projects, each web and ejb project references the java projects
+     */
+    private static int getLinkCount(int projectCount)
+    {
+        int javaCount = 0;
+        int otherCount = 0;
+        for (int i = 0; i < projectCount; i++)
+        {
+            String type = WorkspaceGenerator.projectType(i);
+            if (JAVA_TYPE.equals(type))
+                javaCount++;
+            else if (!type.endsWith(":Schema"))
+                otherCount++;
+        }
+        return javaCount * (javaCount - 1) + otherCount * javaCount;
+    }
+
+    /**
+     * Test the discovery of 100 java projects
+     */
+    @Test
+    public void discover100Projects()
+    {
+        assumeTrue(threadBean != null);
+        checkBudgets(measureJavaProjects(100));
+    }
+
+    /**
+     * Test the discovery of 1,000 java projects
+     */
+    @Test
+    public void discover1000Projects()
+    {
+        assumeTrue(threadBean != null);
+        checkBudgets(measureJavaProjects(1000));
+    }
+
+    /**
+     * Test the discovery of 10,000 java projects, and that the allocations and the retained heap per project do not grow
+     * with the number of projects
+     */
+    @Test
+    public void discover10000Projects()
+    {
+        assumeTrue(threadBean != null);
+        Measure small = measureJavaProjects(1000);
+        Measure large = measureJavaProjects(10000);
+        checkBudgets(large);
+        double growth = (double) large.getAllocatedBytesPerProject() / small.getAllocatedBytesPerProject();
+        assertTrue(Double.toString(growth), growth <= MAX_ALLOCATION_GROWTH);
+        long addedProjectCount = large.projectCount - small.projectCount;
+        long retainedGrowth = large.retainedBytes - small.retainedBytes;
+        assertTrue(Long.toString(retainedGrowth / addedProjectCount),
+            retainedGrowth <= addedProjectCount * MAX_RETAINED_BYTES_PER_ADDED_PROJECT);
+    }
+
+    /**
+     * Test that the projects of a workspace with web and ejb projects are linked all to all and nothing more
+     */
+    @Test
+    public void linkMixedProjects()
+    {
+        assumeTrue(threadBean != null);
+        Measure small = measure(WorkspaceGenerator.generate(100), 100);
+        Measure large = measure(WorkspaceGenerator.generate(1000), 1000);
+
+        // the calls other than the links are the same for each project
+        int smallCallCount = small.callCount - getLinkCount(100) - 1;
+        int largeCallCount = large.callCount - getLinkCount(1000) - 1;
+        assertEquals(10 * smallCallCount, largeCallCount);
+        assertTrue(Long.toString(large.allocatedBytes / large.callCount),
+            large.allocatedBytes <= large.callCount * MAX_ALLOCATED_BYTES_PER_CALL);
+        long addedCallCount = large.callCount - small.callCount;
+        long retainedGrowth = large.retainedBytes - small.retainedBytes;
+        assertTrue(Long.toString(retainedGrowth / addedCallCount),
+            retainedGrowth <= addedCallCount * MAX_RETAINED_BYTES_PER_ADDED_CALL);
+    }
+}
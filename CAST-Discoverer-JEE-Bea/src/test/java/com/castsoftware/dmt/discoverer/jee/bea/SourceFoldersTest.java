@@ -0,0 +1,119 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the resolution of the source folders of the java projects
+ *
+ */
+public class SourceFoldersTest
+{
+    private static final String BUILD_OUTPUT_FOLDERS = ".workshop;.beabuild;classes;bin";
+
+    /**
+     * Temporary folder receiving the package
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static WorkspaceModel parse(String sourcepath)
+    {
+        String content = "<application><option name=\"excludedirs\" value=\"cvs;sccs;rcs;\" /><projects>"
+            + "<project name=\"A\"><option name=\"project.path\" value=\"./A\" />"
+            + "<option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" />"
+            + "<components><component name=\"com.bea.ide.JavaCompiler\">"
+            + "<option name=\"class.path\" value=\"\" />"
+            + "<option name=\"source.path\" value=\"" + sourcepath + "\" />"
+            + "</component></components></project>"
+            + "</projects></application>";
+        return ProjectFileScanner.parse("app/app.work", content);
+    }
+
+    private static List<String> resolve(SourceFolders sourceFolders, WorkspaceModel model)
+    {
+        Map<String, String> userVariables = new HashMap<String, String>();
+        userVariables.put("GEN_HOME", "generated");
+        return sourceFolders.resolve(model, 0, ClasspathVariables.create(model, "app", userVariables), "app", "app/A");
+    }
+
+    /**
+     * Test that the source.path entries are resolved against the project and the .work folders, and with the class
+     * path variables
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void resolveSourcepath() throws Throwable
+    {
+        WorkspaceModel model = parse("${A.root}/src;./shared/gen;test;CVS;${B.root}/src;src/;${app.root}/common/src/;${GEN_HOME}/java");
+        SourceFolders sourceFolders = new SourceFolders(null, SourceFolders.DEFAULT_EXCLUDED_FOLDERS);
+
+        assertEquals(Arrays.asList("app/A/src", "app/shared/gen", "app/A/test", "app/common/src", "generated/java"),
+            resolve(sourceFolders, model));
+    }
+
+    /**
+     * Test that the project folder is used without source.path when it holds no build output
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void keepProjectFolder() throws Throwable
+    {
+        new File(folder.getRoot(), "app/A/com").mkdirs();
+        SourceFolders sourceFolders = new SourceFolders(folder.getRoot().toPath(), BUILD_OUTPUT_FOLDERS);
+
+        assertEquals(Collections.singletonList("app/A"), resolve(sourceFolders, parse("")));
+    }
+
+    /**
+     * Test that the project folder is kept by default, whatever its sub folders on the disk
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void keepProjectFolderByDefault() throws Throwable
+    {
+        for (String subFolder : Arrays.asList("classes", "lib", "src", "CVS"))
+            new File(folder.getRoot(), "app/A/" + subFolder).mkdirs();
+        SourceFolders sourceFolders = new SourceFolders(folder.getRoot().toPath(), SourceFolders.DEFAULT_EXCLUDED_FOLDERS);
+
+        assertEquals(Collections.singletonList("app/A"), resolve(sourceFolders, parse("")));
+    }
+
+    /**
+     * Test that the build outputs and the excluded folders are left out of the project folder
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void excludeOutputFolders() throws Throwable
+    {
+        new File(folder.getRoot(), "app/A/com").mkdirs();
+        new File(folder.getRoot(), "app/A/org").mkdirs();
+        new File(folder.getRoot(), "app/A/classes").mkdirs();
+        new File(folder.getRoot(), "app/A/CVS").mkdirs();
+        SourceFolders sourceFolders = new SourceFolders(folder.getRoot().toPath(), BUILD_OUTPUT_FOLDERS);
+
+        assertEquals(Arrays.asList("app/A/com", "app/A/org"), resolve(sourceFolders, parse("")));
+
+        // java files of the default package
+        new File(folder.getRoot(), "app/A/Main.java").createNewFile();
+        assertEquals(Collections.singletonList("app/A"), resolve(sourceFolders, parse("")));
+    }
+}
@@ -0,0 +1,128 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for the Flight Recorder events of the discovery
+ *
+ */
+public class WorkFileEventsTest
+{
+    private static final String[] EVENT_NAMES = { WorkFileEvents.RESOLVE_LANGUAGES, WorkFileEvents.PARSE,
+        WorkFileEvents.CREATE_PROJECT, WorkFileEvents.EXPAND_CLASSPATH, WorkFileEvents.WIRE_DEPENDENCIES };
+
+    /**
+     * Temporary folder receiving the recordings
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Skip the tests on a JVM without Flight Recorder
+     */
+    @Before
+    public void setUp()
+    {
+        Assume.assumeTrue(WorkFileEvents.isAvailable());
+    }
+
+    private List<RecordedEvent> record(Recording recording) throws Throwable
+    {
+        recording.start();
+        RecordingEngine engine = new RecordingEngine();
+        JeeBeaProjectsDiscoverer discoverer = new JeeBeaProjectsDiscoverer();
+        discoverer.startTree(folder.getRoot().getPath());
+        // 5 projects: 2 Java, 1 WebApp, 1 EJB and 1 Schema, not discovered
+        discoverer.buildProject("app/app.work", WorkspaceGenerator.generate(5), engine.createWorkProject("app/app.work"),
+            engine.utilities);
+        discoverer.endTree(folder.getRoot().getPath());
+        recording.stop();
+
+        Path file = folder.newFile("events.jfr").toPath();
+        recording.dump(file);
+        recording.close();
+
+        List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file))
+        {
+            if (event.getEventType().getName().startsWith("com.castsoftware."))
+                events.add(event);
+        }
+        return events;
+    }
+
+    private static List<RecordedEvent> select(List<RecordedEvent> events, String name)
+    {
+        List<RecordedEvent> selected = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events)
+        {
+            if (event.getEventType().getName().equals(name))
+                selected.add(event);
+        }
+        return selected;
+    }
+
+    /**
+     * Test that the events of every stage are recorded once enabled
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void recordEnabledEvents() throws Throwable
+    {
+        Recording recording = new Recording();
+        for (String name : EVENT_NAMES)
+            recording.enable(name).withoutThreshold();
+
+        List<RecordedEvent> events = record(recording);
+
+        assertEquals(1, select(events, WorkFileEvents.RESOLVE_LANGUAGES).size());
+        assertEquals(4, select(events, WorkFileEvents.CREATE_PROJECT).size());
+        assertEquals(4, select(events, WorkFileEvents.EXPAND_CLASSPATH).size());
+        assertEquals(1, select(events, WorkFileEvents.WIRE_DEPENDENCIES).size());
+
+        List<RecordedEvent> parseEvents = select(events, WorkFileEvents.PARSE);
+        assertEquals(1, parseEvents.size());
+        RecordedEvent parseEvent = parseEvents.get(0);
+        assertEquals("app/app.work", parseEvent.getString("filePath"));
+        assertTrue(parseEvent.getInt("elementCount") > 0);
+        assertTrue(parseEvent.getBoolean("isOk"));
+
+        for (RecordedEvent event : select(events, WorkFileEvents.EXPAND_CLASSPATH))
+        {
+            assertEquals("app/app.work", event.getString("filePath"));
+            assertTrue(event.getInt("referenceCount") > 0);
+        }
+    }
+
+    /**
+     * Test that the events are not recorded with the default settings
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void disabledByDefault() throws Throwable
+    {
+        List<RecordedEvent> events = record(new Recording(Configuration.getConfiguration("default")));
+
+        assertEquals(0, events.size());
+    }
+}
@@ -0,0 +1,160 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.castsoftware.dmt.discoverer.jee.bea.ProjectFileScannerTest.RecordingInterpreter;
+
+/**
+ * Tests for the hardened parsers of the .work files
+ *
+ */
+public class WorkFileParsersTest
+{
+    /**
+     * Temporary folder receiving the external entities
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that the external entities are never loaded
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void refuseExternalEntity() throws Throwable
+    {
+        File entity = folder.newFile("entity.xml");
+        Files.write(entity.toPath(), "./Leaked".getBytes(StandardCharsets.UTF_8));
+        String content = "<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE application [<!ENTITY path SYSTEM \"" + entity.toURI() + "\">]>\n"
+            + "<application><projects><project name=\"A\">"
+            + "<option name=\"project.path\" value=\"&path;\" />"
+            + "</project></projects></application>";
+
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertFalse(ProjectFileScanner.scan(interpreter, "test.work", content));
+        assertTrue(interpreter.calls.isEmpty());
+    }
+
+    /**
+     * Test that a doctype with an internal subset is accepted, and its internal entities expanded
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void acceptInternalDoctype() throws Throwable
+    {
+        String content = "<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE application [\n"
+            + "  <!ELEMENT application ANY>\n"
+            + "  <!ENTITY path \"./A\">\n"
+            + "]>\n"
+            + "<application><projects><project name=\"A\">"
+            + "<option name=\"project.path\" value=\"&path;\" />"
+            + "</project></projects></application>";
+
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(interpreter, "test.work", content));
+        assertTrue(interpreter.calls.contains("setProjectPath ./A"));
+        assertTrue(interpreter.calls.contains("addProject A"));
+    }
+
+    /**
+     * Test that an external DTD is not loaded, the file being parsed without it
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void ignoreExternalDtd() throws Throwable
+    {
+        String content = "<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE application SYSTEM \"" + new File(folder.getRoot(), "missing.dtd").toURI() + "\">\n"
+            + "<application><projects><project name=\"A\" /></projects></application>";
+
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(interpreter, "test.work", content));
+        assertTrue(interpreter.calls.contains("addProject A"));
+    }
+
+    /**
+     * Test that the parsing of too deeply nested elements fails
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void limitElementDepth() throws Throwable
+    {
+        int depth = WorkFileParsers.createBudget().getMaxElementDepth() + 1;
+        StringBuilder content = new StringBuilder("<application>");
+        for (int i = 1; i < depth; i++)
+            content.append("<node>");
+        for (int i = 1; i < depth; i++)
+            content.append("</node>");
+        content.append("</application>");
+
+        assertFalse(ProjectFileScanner.scan(new RecordingInterpreter(), "test.work", content.toString()));
+    }
+
+    /**
+     * Test that the limits follow the options, changed after the first parsing
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void readLimitsPerParsing() throws Throwable
+    {
+        String content = "<application><projects><project name=\"A\" /></projects></application>";
+        assertTrue(ProjectFileScanner.scan(new RecordingInterpreter(), "test.work", content));
+
+        try
+        {
+            System.setProperty(DiscoveryOptions.MAX_ELEMENT_DEPTH, "2");
+            assertFalse(ProjectFileScanner.scan(new RecordingInterpreter(), "test.work", content));
+            System.clearProperty(DiscoveryOptions.MAX_ELEMENT_DEPTH);
+            System.setProperty(DiscoveryOptions.MAX_FILE_SIZE, "20");
+            assertFalse(ProjectFileScanner.scan(new RecordingInterpreter(), "test.work", content));
+        }
+        finally
+        {
+            System.clearProperty(DiscoveryOptions.MAX_ELEMENT_DEPTH);
+            System.clearProperty(DiscoveryOptions.MAX_FILE_SIZE);
+        }
+        assertTrue(ProjectFileScanner.scan(new RecordingInterpreter(), "test.work", content));
+    }
+
+    /**
+     * Test that the parser of the thread is reused after a failure
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void reuseAfterFailure() throws Throwable
+    {
+        String content = WorkspaceGenerator.generate(5);
+        RecordingInterpreter expected = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(expected, "test.work", content));
+
+        assertFalse(ProjectFileScanner.scan(new RecordingInterpreter(), "test.work", "<application><projects>"));
+
+        RecordingInterpreter interpreter = new RecordingInterpreter();
+        assertTrue(ProjectFileScanner.scan(interpreter, "test.work", content));
+        assertEquals(expected.calls, interpreter.calls);
+    }
+}
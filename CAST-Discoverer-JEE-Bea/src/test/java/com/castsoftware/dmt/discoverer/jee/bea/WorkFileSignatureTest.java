@@ -0,0 +1,67 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests for the pre-check of the .work files
+ *
+ */
+public class WorkFileSignatureTest
+{
+    /**
+     * Test that the Workshop application files are accepted
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void acceptWorkshopFile() throws Throwable
+    {
+        String content = WorkspaceGenerator.generate(1000);
+
+        assertTrue(WorkFileSignature.matches(content));
+        assertTrue(WorkFileSignature.matches(new StringReader(content)));
+        assertTrue(WorkFileSignature.matches("\uFEFF<?xml version=\"1.0\"?>\n<!-- workshop -->\n<!DOCTYPE application>\n"
+            + "<application>\n<projects><project name=\"A\">"
+            + "<option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" /></project></projects></application>"));
+    }
+
+    /**
+     * Test that the .work files of other tools are rejected
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void rejectOtherFile() throws Throwable
+    {
+        assertFalse(WorkFileSignature.matches(""));
+        assertFalse(WorkFileSignature.matches("work in progress: com.bea.ide"));
+        assertFalse(WorkFileSignature.matches("<?xml version=\"1.0\"?><workspace name=\"com.bea.ide.x\"/>"));
+        assertFalse(WorkFileSignature.matches("<applications><option name=\"urn:com-bea-ide\"/></applications>"));
+        assertFalse(WorkFileSignature.matches("<application><projects /></application>"));
+    }
+
+    /**
+     * Test that only the beginning of the file is inspected
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void inspectPrefixOnly() throws Throwable
+    {
+        StringBuilder content = new StringBuilder("<application>");
+        while (content.length() < WorkFileSignature.PREFIX_LENGTH)
+            content.append("<node name=\"padding\" />");
+        content.append("<option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" /></application>");
+
+        assertFalse(WorkFileSignature.matches(content));
+        assertFalse(WorkFileSignature.matches(new StringReader(content.toString())));
+    }
+}
@@ -0,0 +1,203 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+/**
+ * Generator of synthetic bea .work files used by the benchmarks and the scaling tests.
+ */
+public final class WorkspaceGenerator
+{
+    /**
+     * Workshop project types, in the order they are assigned to the generated projects
+     */
+    private static final String[] PROJECT_TYPES = {
+        "urn:com-bea-ide:project.type:Java",
+        "urn:com-bea-ide:project.type:WebApp",
+        "urn:com-bea-ide:project.type:Java",
+        "urn:com-bea-ide:project.type:EJB",
+        "urn:com-bea-ide:project.type:Schema"
+    };
+
+    /**
+     * Default number of entries of the class.path options
+     */
+    public static final int DEFAULT_CLASSPATH_ENTRIES = 20;
+
+    /**
+     * Default nesting depth of the IDE state nodes
+     */
+    public static final int DEFAULT_COMPONENT_DEPTH = 8;
+
+    private WorkspaceGenerator()
+    {
+        // NOP
+    }
+
+    /**
+     * Generate a .work file with the default class.path length and IDE state depth.
+     *
+     * @param projectCount
+     *            the number of projects of the workspace
+     * @return the content of the .work file
+     */
+    public static String generate(int projectCount)
+    {
+        return generate(projectCount, DEFAULT_CLASSPATH_ENTRIES, DEFAULT_COMPONENT_DEPTH);
+    }
+
+    /**
+     * Generate a .work file.
+     *
+     * @param projectCount
+     *            the number of projects of the workspace
+     * @param classpathEntries
+     *            the number of entries of each class.path option
+     * @param componentDepth
+     *            the nesting depth of the IDE state nodes of each component section
+     * @return the content of the .work file
+     */
+    public static String generate(int projectCount, int classpathEntries, int componentDepth)
+    {
+        return generate(projectCount, classpathEntries, componentDepth, PROJECT_TYPES);
+    }
+
+    /**
+     * Generate a .work file whose projects have the given types.
+     *
+     * @param projectCount
+     *            the number of projects of the workspace
+     * @param classpathEntries
+     *            the number of entries of each class.path option
+     * @param componentDepth
+     *            the nesting depth of the IDE state nodes of each component section
+     * @param projectTypes
+     *            the Workshop type URNs, assigned in turn to the projects
+     * @return the content of the .work file
+     */
+    public static String generate(int projectCount, int classpathEntries, int componentDepth, String... projectTypes)
+    {
+        StringBuilder builder = new StringBuilder(projectCount * (1024 + classpathEntries * 48 + componentDepth * 64));
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n");
+        builder.append("<application>\n");
+        builder.append("  <option name=\"excludedirs\" value=\"cvs;sccs;rcs;\" />\n");
+        builder.append("  <option name=\"name\" value=\"synthetic\" />\n");
+        builder.append("  <option name=\"version\" value=\"1\" />\n");
+        builder.append("  <components>\n");
+        builder.append("    <component name=\"com.bea.ide.debug.IDebugClient\">\n");
+        for (int i = 0; i < projectCount; i++)
+            option(builder, 6, "SrcPath" + i + "_project_", projectName(i));
+        builder.append("    </component>\n");
+        builder.append("    <component name=\"com.bea.ide.workspace.IWorkspace\">\n");
+        builder.append("      <node name=\"ApplicationBuild\">\n");
+        for (int i = 0; i < projectCount; i++)
+        {
+            builder.append("        <node name=\"").append(i + 1).append("\">\n");
+            option(builder, 10, "includeProject", "true");
+            option(builder, 10, "project", projectName(i));
+            builder.append("        </node>\n");
+        }
+        builder.append("      </node>\n");
+        builder.append("      <node name=\"EARBuild\">\n");
+        option(builder, 8, "output.directory", ".");
+        builder.append("      </node>\n");
+        builder.append("    </component>\n");
+        builder.append("    <component name=\"com.bea.ide.editor.IEditorState\">\n");
+        ideState(builder, 6, componentDepth);
+        builder.append("    </component>\n");
+        builder.append("  </components>\n");
+        builder.append("  <projects>\n");
+        for (int i = 0; i < projectCount; i++)
+            project(builder, i, projectTypes[i % projectTypes.length], classpathEntries, componentDepth);
+        builder.append("  </projects>\n");
+        builder.append("  <node name=\"roles\" />\n");
+        builder.append("</application>\n");
+        return builder.toString();
+    }
+
+    /**
+     * The name of a generated project
+     *
+     * @param index
+     *            the index of the project
+     * @return the name of the project
+     */
+    public static String projectName(int index)
+    {
+        return "Project" + index;
+    }
+
+    /**
+     * The Workshop type of a project generated with the default types
+     *
+     * @param index
+     *            the index of the project
+     * @return the type URN of the project
+     */
+    public static String projectType(int index)
+    {
+        return PROJECT_TYPES[index % PROJECT_TYPES.length];
+    }
+
+    private static void project(StringBuilder builder, int index, String projectType, int classpathEntries, int componentDepth)
+    {
+        String name = projectName(index);
+        builder.append("    <project name=\"").append(name).append("\">\n");
+        option(builder, 6, "project.path", "./" + name);
+        option(builder, 6, "type", projectType);
+        builder.append("      <components>\n");
+        builder.append("        <component name=\"com.bea.ide.JavaCompiler\">\n");
+        StringBuilder classpath = new StringBuilder();
+        for (int i = 0; i < classpathEntries; i++)
+        {
+            if (i > 0)
+                classpath.append(';');
+            switch (i % 3)
+            {
+            case 0:
+                classpath.append("./APP-INF/lib/library").append(i).append(".jar");
+                break;
+            case 1:
+                classpath.append("${").append(name).append(".root}/lib/dependency").append(i).append(".jar");
+                break;
+            default:
+                classpath.append("./shared/classes").append(i);
+                break;
+            }
+        }
+        option(builder, 10, "class.path", classpath.toString());
+        option(builder, 10, "source.path", "");
+        builder.append("        </component>\n");
+        builder.append("        <component name=\"com.bea.ide.debug.IDebugData\">\n");
+        option(builder, 10, "debug.main", "com.castsoftware.synthetic." + name + ".Main");
+        ideState(builder, 10, componentDepth);
+        builder.append("        </component>\n");
+        builder.append("        <component name=\"workshop.workspace.project.build.ProjectBuilderPrefs\">\n");
+        option(builder, 10, "ant.path", "${" + name + ".root}/build.xml");
+        option(builder, 10, "useAnt", "true");
+        builder.append("        </component>\n");
+        builder.append("      </components>\n");
+        builder.append("    </project>\n");
+    }
+
+    private static void ideState(StringBuilder builder, int indent, int depth)
+    {
+        for (int level = 0; level < depth; level++)
+        {
+            indent(builder, indent + 2 * level).append("<node name=\"state").append(level).append("\">\n");
+            option(builder, indent + 2 * level + 2, "visible", "true");
+            option(builder, indent + 2 * level + 2, "position", String.valueOf(level * 17));
+        }
+        for (int level = depth - 1; level >= 0; level--)
+            indent(builder, indent + 2 * level).append("</node>\n");
+    }
+
+    private static void option(StringBuilder builder, int indent, String name, String value)
+    {
+        indent(builder, indent).append("<option name=\"").append(name).append("\" value=\"").append(value).append("\" />\n");
+    }
+
+    private static StringBuilder indent(StringBuilder builder, int indent)
+    {
+        for (int i = 0; i < indent; i++)
+            builder.append(' ');
+        return builder;
+    }
+}
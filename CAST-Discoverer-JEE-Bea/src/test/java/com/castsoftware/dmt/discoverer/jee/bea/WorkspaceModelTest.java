@@ -0,0 +1,68 @@
+package com.castsoftware.dmt.discoverer.jee.bea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the model of a parsed .work file
+ *
+ */
+public class WorkspaceModelTest
+{
+    /**
+     * Test that the projects are parsed in order, without the schema projects
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void parseProjects() throws Throwable
+    {
+        WorkspaceModel model = ProjectFileScanner.parse("test.work", WorkspaceGenerator.generate(10));
+
+        // Project4 and Project9 are schemas
+        assertEquals(8, model.getProjectCount());
+        assertEquals("Project6", model.getProjectName(5));
+        assertEquals("./Project6", model.getProjectPath(5));
+        assertEquals(WorkspaceGenerator.projectType(6), model.getProjectTypeUrn(5));
+        assertEquals(WorkshopProjectType.WEB_APP, model.getProjectType(5));
+        assertEquals(WorkspaceGenerator.DEFAULT_CLASSPATH_ENTRIES, model.getClasspathCount(5));
+        assertEquals("./APP-INF/lib/library0.jar", model.getClasspath(5, 0));
+        assertEquals("${Project6.root}/lib/dependency1.jar", model.getClasspath(5, 1));
+        assertTrue(model.hasDependencies());
+    }
+
+    /**
+     * Test that the class path entries of a project are kept once, in order
+     *
+     * @throws Throwable
+     *             if anything goes wrong
+     */
+    @Test
+    public void deduplicateClasspath() throws Throwable
+    {
+        String content = "<application><projects>"
+            + "<project name=\"A\"><option name=\"project.path\" value=\"./A\" />"
+            + "<option name=\"type\" value=\"urn:com-bea-ide:project.type:Java\" />"
+            + "<components><component name=\"com.bea.ide.JavaCompiler\">"
+            + "<option name=\"class.path\" value=\"a.jar;;b.jar;a.jar\" />"
+            + "</component></components></project>"
+            + "<project name=\"B\"><option name=\"project.path\" value=\"./B\" />"
+            + "<components><component name=\"com.bea.ide.JavaCompiler\">"
+            + "<option name=\"class.path\" value=\"b.jar;a.jar\" />"
+            + "</component></components></project>"
+            + "</projects></application>";
+        WorkspaceModel model = ProjectFileScanner.parse("test.work", content);
+
+        assertEquals(2, model.getProjectCount());
+        assertEquals(2, model.getClasspathCount(0));
+        assertEquals("a.jar", model.getClasspath(0, 0));
+        assertEquals("b.jar", model.getClasspath(0, 1));
+        assertEquals(WorkshopProjectType.OTHER, model.getProjectType(1));
+        assertEquals(2, model.getClasspathCount(1));
+        assertEquals("b.jar", model.getClasspath(1, 0));
+        assertEquals("a.jar", model.getClasspath(1, 1));
+    }
+}